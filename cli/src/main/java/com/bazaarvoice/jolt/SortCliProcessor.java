@@ -68,10 +68,16 @@ public class SortCliProcessor implements JoltCliProcessor {
             return false;
         }
 
-        Sortr sortr = new Sortr();
-        Object output = sortr.transform( jsonObject );
+        // Write the keys out in Sortr order, rather than building a sorted copy of the input just to print it
         Boolean uglyPrint = ns.getBoolean( "u" );
-        return JoltCliUtilities.printJsonObject( output, uglyPrint, SUPPRESS_OUTPUT );
+        try {
+            String output = uglyPrint ? CanonicalJsonWriter.toJsonString( jsonObject ) : CanonicalJsonWriter.toPrettyJsonString( jsonObject );
+            JoltCliUtilities.printToStandardOut( output, SUPPRESS_OUTPUT );
+        } catch ( Exception e ) {
+            JoltCliUtilities.printToStandardOut( "An error occured while attempting to print the output.", SUPPRESS_OUTPUT );
+            return false;
+        }
+        return true;
     }
 
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.exception.JsonMarshalException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes JSON with every Map's keys in Sortr order, straight to a JsonGenerator, so that the serialized form of a
+ *  document is deterministic.  Meant for hashing and caching keys, and anywhere else Sortr is only used to get
+ *  canonical output.
+ *
+ * The output is the same as serializing the output of Sortr, but the tree is never copied : the only things
+ *  allocated are the arrays of keys that get sorted.
+ */
+public class CanonicalJsonWriter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private CanonicalJsonWriter() {}
+
+    /**
+     * Writes the JSON to the stream and flushes it, without closing it.
+     */
+    public static void write( Object json, OutputStream out ) {
+        try ( JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator( out ) ) {
+            generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+            write( json, generator );
+        }
+        catch ( IOException e ) {
+            throw new JsonMarshalException( "Unable to serialize object : " + json, e );
+        }
+    }
+
+    public static String toJsonString( Object json ) {
+        return writeToString( json, false );
+    }
+
+    public static String toPrettyJsonString( Object json ) {
+        return writeToString( json, true );
+    }
+
+    /**
+     * Writes the JSON to the generator, using the generator's codec, if it has one, for anything other
+     *  than Maps, Lists, Strings, Numbers and Booleans.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static void write( Object json, JsonGenerator generator ) throws IOException {
+
+        if ( json instanceof Map ) {
+            Map<String, Object> map = (Map<String, Object>) json;
+
+            String[] keys = map.keySet().toArray( new String[ map.size() ] );
+            Arrays.sort( keys, Sortr.keyComparator() );
+
+            generator.writeStartObject();
+            for ( String key : keys ) {
+                generator.writeFieldName( key );
+                write( map.get( key ), generator );
+            }
+            generator.writeEndObject();
+        }
+        else if ( json instanceof List ) {
+            // Don't sort the list because that would change intent, same as Sortr
+            generator.writeStartArray();
+            for ( Object element : (List<Object>) json ) {
+                write( element, generator );
+            }
+            generator.writeEndArray();
+        }
+        else if ( json instanceof String ) {
+            generator.writeString( (String) json );
+        }
+        else if ( json == null ) {
+            generator.writeNull();
+        }
+        else if ( json instanceof Boolean ) {
+            generator.writeBoolean( (Boolean) json );
+        }
+        else if ( generator.getCodec() == null ) {
+            OBJECT_MAPPER.writeValue( generator, json );
+        }
+        else {
+            generator.writeObject( json );
+        }
+    }
+
+    private static String writeToString( Object json, boolean pretty ) {
+        StringWriter writer = new StringWriter();
+        try ( JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator( writer ) ) {
+            if ( pretty ) {
+                generator.setPrettyPrinter( new DefaultPrettyPrinter() );
+            }
+            write( json, generator );
+        }
+        catch ( IOException e ) {
+            throw new JsonMarshalException( "Unable to serialize object : " + json, e );
+        }
+        return writer.toString();
+    }
+}
@@ -22,6 +22,9 @@ import java.io.FileInputStream;
 
 /**
  * A factory class with various static methods that return instances of Chainr.
+ *
+ * Every call reads and compiles the spec again.  Code that looks up a Chainr per request should use a
+ *  ChainrRegistry instead, which compiles each spec once and reloads file system specs when they change.
  */
 public class ChainrFactory {
 
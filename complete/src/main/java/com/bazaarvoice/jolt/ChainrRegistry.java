@@ -0,0 +1,271 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.chainr.instantiator.ChainrInstantiator;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A long lived, caching alternative to ChainrFactory.
+ *
+ * ChainrFactory reads and compiles the spec on every call, which is fine at startup, but not on a per request
+ *  code path.  A ChainrRegistry compiles each spec location once, and hands back the same Chainr until the
+ *  spec changes.
+ *
+ * Specs from the file system are watched with a WatchService.  When a spec file changes, a background thread
+ *  re-reads it, and if its content hash differs, compiles it and swaps the new Chainr in.  Lookups never block
+ *  on a reload : transforms already running keep using the Chainr they were given, and the next lookup gets
+ *  the new one.  If the changed spec does not compile, the previous Chainr stays in place, and the failure is
+ *  available from getReloadFailure(...).
+ *
+ * Class path specs can not change while the JVM is running, so they are compiled once and never watched.
+ *
+ * Instances are thread safe, and should be closed to stop the watcher thread.
+ */
+public class ChainrRegistry implements Closeable {
+
+    private final ChainrInstantiator chainrInstantiator;
+
+    private final ConcurrentMap<String, Chainr> classPathChainrs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, FileEntry> fileChainrs = new ConcurrentHashMap<>();
+
+    // lazily created on the first file system spec, guarded by "this"
+    private final Set<Path> watchedDirs = new HashSet<>();
+    private WatchService watchService;
+    private Thread watcher;
+    private boolean closed = false;
+
+    public ChainrRegistry() {
+        this( null );
+    }
+
+    /**
+     * @param chainrInstantiator the ChainrInstantiator to use to initialize every Chainr, or null for the default
+     */
+    public ChainrRegistry( ChainrInstantiator chainrInstantiator ) {
+        this.chainrInstantiator = chainrInstantiator;
+    }
+
+    /**
+     * @param chainrSpecClassPath The class path that points to the chainr spec.
+     * @return the Chainr compiled from that spec, compiling it on the first call
+     */
+    public Chainr fromClassPath( String chainrSpecClassPath ) {
+        Chainr chainr = classPathChainrs.get( chainrSpecClassPath );
+        if ( chainr == null ) {
+            Chainr newChainr = ChainrFactory.fromClassPath( chainrSpecClassPath, chainrInstantiator );
+            chainr = classPathChainrs.putIfAbsent( chainrSpecClassPath, newChainr );
+            if ( chainr == null ) {
+                chainr = newChainr;
+            }
+        }
+        return chainr;
+    }
+
+    /**
+     * @param chainrSpecFilePath The file path that points to the chainr spec.
+     * @return the current Chainr for that spec file, compiling and watching it on the first call
+     */
+    public Chainr fromFileSystem( String chainrSpecFilePath ) {
+        return fromFile( new File( chainrSpecFilePath ) );
+    }
+
+    /**
+     * @param chainrSpecFile The File which contains the chainr spec.
+     * @return the current Chainr for that spec file, compiling and watching it on the first call
+     */
+    public Chainr fromFile( File chainrSpecFile ) {
+        Path path = toKey( chainrSpecFile );
+
+        FileEntry entry = fileChainrs.get( path );
+        if ( entry == null ) {
+            byte[] content = read( path );
+            FileEntry newEntry = new FileEntry( digest( content ), compile( content ) );
+            entry = fileChainrs.putIfAbsent( path, newEntry );
+            if ( entry == null ) {
+                entry = newEntry;
+                watch( path.getParent() );
+            }
+        }
+        return entry.chainr;
+    }
+
+    /**
+     * @return the exception from the last failed reload of the spec file, or null if the last reload, if any, worked
+     */
+    public Exception getReloadFailure( File chainrSpecFile ) {
+        FileEntry entry = fileChainrs.get( toKey( chainrSpecFile ) );
+        return entry == null ? null : entry.reloadFailure;
+    }
+
+    /**
+     * Synchronously re-checks every spec file in the registry, rather than waiting on the watcher.
+     * Useful on file systems where WatchService events are slow or missing, eg some network mounts.
+     */
+    public void refresh() {
+        for ( Path path : fileChainrs.keySet() ) {
+            reload( path );
+        }
+    }
+
+    /**
+     * Stops watching the spec files.  Chainrs already handed out stay usable, but will no longer be reloaded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if ( watchService != null ) {
+            watchService.close();
+            watcher.interrupt();
+        }
+    }
+
+    private void reload( Path path ) {
+        FileEntry entry = fileChainrs.get( path );
+        if ( entry == null ) {
+            return;
+        }
+
+        // One reload of a given file at a time, so that an older read can not overwrite a newer one.
+        //  Lookups do not take this lock; they just read the volatile chainr.
+        synchronized ( entry ) {
+            try {
+                byte[] content = read( path );
+                byte[] digest = digest( content );
+                if ( ! Arrays.equals( digest, entry.digest ) ) {
+                    Chainr chainr = compile( content );
+                    entry.digest = digest;
+                    entry.chainr = chainr;
+                }
+                entry.reloadFailure = null;
+            }
+            catch ( Exception e ) {
+                // eg the editor has only written half the file; keep the last good Chainr, and wait for the next event
+                entry.reloadFailure = e;
+            }
+        }
+    }
+
+    private synchronized void watch( Path dir ) {
+        if ( closed || watchedDirs.contains( dir ) ) {
+            return;
+        }
+        try {
+            if ( watchService == null ) {
+                watchService = FileSystems.getDefault().newWatchService();
+                watcher = new Thread( new Watcher( watchService ), "jolt-chainr-registry" );
+                watcher.setDaemon( true );
+                watcher.start();
+            }
+            // editors that save via a rename show up as a create rather than a modify
+            dir.register( watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY );
+            watchedDirs.add( dir );
+        }
+        catch ( IOException e ) {
+            throw new RuntimeException( "Unable to watch chainr spec directory " + dir, e );
+        }
+    }
+
+    private class Watcher implements Runnable {
+
+        private final WatchService watchService;
+
+        private Watcher( WatchService watchService ) {
+            this.watchService = watchService;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while ( true ) {
+                    WatchKey key = watchService.take();
+                    Path dir = (Path) key.watchable();
+                    for ( WatchEvent<?> event : key.pollEvents() ) {
+                        if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+                            refresh();
+                        }
+                        else {
+                            reload( dir.resolve( (Path) event.context() ) );
+                        }
+                    }
+                    key.reset();
+                }
+            }
+            catch ( InterruptedException | ClosedWatchServiceException e ) {
+                // closed
+            }
+        }
+    }
+
+    private Chainr compile( byte[] content ) {
+        Object chainrSpec = JsonUtils.jsonToObject( new ByteArrayInputStream( content ) );
+        return chainrInstantiator == null ? Chainr.fromSpec( chainrSpec ) : Chainr.fromSpec( chainrSpec, chainrInstantiator );
+    }
+
+    private static Path toKey( File chainrSpecFile ) {
+        return chainrSpecFile.toPath().toAbsolutePath().normalize();
+    }
+
+    private static byte[] read( Path path ) {
+        try {
+            return Files.readAllBytes( path );
+        }
+        catch ( IOException e ) {
+            throw new RuntimeException( "Unable to load chainr spec file " + path, e );
+        }
+    }
+
+    private static byte[] digest( byte[] content ) {
+        try {
+            return MessageDigest.getInstance( "SHA-256" ).digest( content );
+        }
+        catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( "Every JVM is required to support SHA-256", e );
+        }
+    }
+
+    private static final class FileEntry {
+
+        // written under the entry's lock, read without it
+        private volatile byte[] digest;
+        private volatile Chainr chainr;
+        private volatile Exception reloadFailure;
+
+        private FileEntry( byte[] digest, Chainr chainr ) {
+            this.digest = digest;
+            this.chainr = chainr;
+        }
+    }
+}
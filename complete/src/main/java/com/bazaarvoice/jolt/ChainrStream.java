@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.exception.JsonMarshalException;
+import com.bazaarvoice.jolt.exception.JsonUnmarshalException;
+import com.bazaarvoice.jolt.exception.TransformException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a Chainr over a stream of newline delimited JSON (NDJSON) records, writing one NDJSON record per input record,
+ *  in input order.
+ *
+ * Only the records being transformed are held in memory, so inputs of any size can be processed, as long as each
+ *  record fits.  By default records are transformed one at a time on the calling thread.  Given an Executor, up to
+ *  maxInFlight records are transformed concurrently, while the calling thread keeps reading ahead and writing out
+ *  finished records in order.
+ *
+ * Records do not have to be on one line each : any whitespace between the top level JSON values works.  A null
+ *  output is written as a "null" record, so the output always lines up with the input.
+ *
+ * A ChainrStream can be reused, but not by several threads at once.
+ */
+public class ChainrStream {
+
+    private static final byte[] NEWLINE = { '\n' };
+
+    private final Chainr chainr;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Object> context = null;
+    private Executor executor = null;
+    private int maxInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+    public ChainrStream( Chainr chainr ) {
+        this( chainr, new ObjectMapper() );
+    }
+
+    /**
+     * @param objectMapper a configured Jackson ObjectMapper, to read and write the records with
+     */
+    public ChainrStream( Chainr chainr, ObjectMapper objectMapper ) {
+        if ( chainr == null ) {
+            throw new IllegalArgumentException( "ChainrStream requires a non-null chainr." );
+        }
+        this.chainr = chainr;
+        this.objectMapper = objectMapper == null ? new ObjectMapper() : objectMapper;
+        JsonUtilImpl.configureStockJoltObjectMapper( this.objectMapper );
+    }
+
+    /**
+     * @param context optional tweaks passed to the Chainr for every record
+     */
+    public ChainrStream context( Map<String, Object> context ) {
+        this.context = context;
+        return this;
+    }
+
+    /**
+     * Transform records concurrently on the given Executor, or on the calling thread if it is null.
+     */
+    public ChainrStream executor( Executor executor ) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param maxInFlight how many records can be read but not yet written at any time, when running on an Executor
+     */
+    public ChainrStream maxInFlight( int maxInFlight ) {
+        if ( maxInFlight < 1 ) {
+            throw new IllegalArgumentException( "ChainrStream requires maxInFlight to be at least 1, got " + maxInFlight );
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Transform every record of the input, writing the results to the output.  Neither stream is closed.
+     *
+     * @return the number of records written
+     * @throws JsonUnmarshalException if the input can not be parsed
+     * @throws JsonMarshalException if an output record can not be written
+     * @throws TransformException if transforming a record fails, after every prior record has been written
+     */
+    public long transform( InputStream in, OutputStream out ) {
+
+        MappingIterator<Object> records = openRecords( in );
+        try {
+            return executor == null ? transformSequentially( records, out ) : transformConcurrently( records, out );
+        }
+        finally {
+            closeQuietly( records );
+        }
+    }
+
+    private long transformSequentially( MappingIterator<Object> records, OutputStream out ) {
+
+        long written = 0;
+        while ( hasNext( records, written ) ) {
+            Object record = next( records, written );
+            write( transformRecord( record, written ), out );
+            written++;
+        }
+        flush( out );
+        return written;
+    }
+
+    private long transformConcurrently( MappingIterator<Object> records, OutputStream out ) {
+
+        ArrayDeque<CompletableFuture<Object>> inFlight = new ArrayDeque<>( maxInFlight );
+        long read = 0;
+        long written = 0;
+
+        try {
+            while ( hasNext( records, read ) ) {
+
+                if ( inFlight.size() == maxInFlight ) {
+                    write( await( inFlight.poll(), written ), out );
+                    written++;
+                }
+
+                final Object record = next( records, read );
+                final long recordNumber = read++;
+                inFlight.add( CompletableFuture.supplyAsync( () -> transformRecord( record, recordNumber ), executor ) );
+            }
+
+            while ( ! inFlight.isEmpty() ) {
+                write( await( inFlight.poll(), written ), out );
+                written++;
+            }
+        }
+        catch ( RuntimeException | Error e ) {
+            // nobody is going to write the rest, so do not leave them running on the executor
+            for ( CompletableFuture<Object> future : inFlight ) {
+                future.cancel( false );
+            }
+            throw e;
+        }
+        flush( out );
+        return written;
+    }
+
+    private Object transformRecord( Object record, long recordNumber ) {
+        try {
+            return chainr.transform( record, context );
+        }
+        catch ( RuntimeException re ) {
+            throw new TransformException( "ChainrStream failed to transform record " + recordNumber + ".", re );
+        }
+    }
+
+    private static Object await( CompletableFuture<Object> future, long recordNumber ) {
+        try {
+            return future.join();
+        }
+        catch ( CompletionException ce ) {
+            if ( ce.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw new TransformException( "ChainrStream failed to transform record " + recordNumber + ".", ce.getCause() );
+        }
+    }
+
+    private MappingIterator<Object> openRecords( InputStream in ) {
+        try {
+            JsonParser parser = objectMapper.getFactory().createParser( in );
+            parser.disable( JsonParser.Feature.AUTO_CLOSE_SOURCE );
+            return objectMapper.readValues( parser, Object.class );
+        }
+        catch ( IOException e ) {
+            throw new JsonUnmarshalException( "Unable to unmarshal JSON records.", e );
+        }
+    }
+
+    private static boolean hasNext( MappingIterator<Object> records, long recordNumber ) {
+        try {
+            return records.hasNextValue();
+        }
+        catch ( IOException e ) {
+            throw new JsonUnmarshalException( "Unable to unmarshal JSON record " + recordNumber + ".", e );
+        }
+    }
+
+    private static Object next( MappingIterator<Object> records, long recordNumber ) {
+        try {
+            return records.nextValue();
+        }
+        catch ( IOException e ) {
+            throw new JsonUnmarshalException( "Unable to unmarshal JSON record " + recordNumber + ".", e );
+        }
+    }
+
+    private void write( Object output, OutputStream out ) {
+        try {
+            out.write( objectMapper.writeValueAsBytes( output ) );
+            out.write( NEWLINE );
+        }
+        catch ( IOException e ) {
+            throw new JsonMarshalException( "Unable to marshal a record to JSON.", e );
+        }
+    }
+
+    private static void flush( OutputStream out ) {
+        try {
+            out.flush();
+        }
+        catch ( IOException e ) {
+            throw new JsonMarshalException( "Unable to flush the JSON records.", e );
+        }
+    }
+
+    private static void closeQuietly( MappingIterator<Object> records ) {
+        try {
+            records.close();
+        }
+        catch ( IOException ignored ) {
+            // the input stream itself belongs to the caller, nothing of ours is left open
+        }
+    }
+}
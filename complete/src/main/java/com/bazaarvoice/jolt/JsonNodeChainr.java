@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.chainr.ChainrBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * Runs a Chainr directly on Jackson JsonNode trees, without converting them to and from LinkedHashMaps and ArrayLists.
+ *
+ * The input tree is handed to the transforms as a live Map / List view (see {@link JsonNodeViews}), and the Chainr
+ *  builds its output with a {@link JsonNodeContainerFactory}, so the returned JsonNode is the tree the transforms
+ *  wrote, not a copy of it.  Subtrees Shiftr moves from the input to the output are shared, not copied.
+ *
+ * Note that, just like with Map inputs, Defaultr, Removr, etc. change the input tree in place.
+ */
+public class JsonNodeChainr {
+
+    private final Chainr chainr;
+
+    /**
+     * @param chainrSpec a Chainr spec, either as maps-of-maps or as a JsonNode
+     */
+    public static JsonNodeChainr fromSpec( Object chainrSpec ) {
+        return new JsonNodeChainr( builder( chainrSpec ).build() );
+    }
+
+    /**
+     * @return a ChainrBuilder for the spec, already configured to build JsonNode output, for any other tweaks
+     */
+    public static ChainrBuilder builder( Object chainrSpec ) {
+        if ( chainrSpec instanceof JsonNode ) {
+            chainrSpec = JsonUtils.jsonToObject( chainrSpec.toString() );
+        }
+        return new ChainrBuilder( chainrSpec ).containerFactory( JsonNodeContainerFactory.INSTANCE );
+    }
+
+    /**
+     * @param chainr a Chainr, ideally built with a JsonNodeContainerFactory, otherwise its output gets copied into JsonNodes
+     */
+    public JsonNodeChainr( Chainr chainr ) {
+        if ( chainr == null ) {
+            throw new IllegalArgumentException( "JsonNodeChainr requires a Chainr." );
+        }
+        this.chainr = chainr;
+    }
+
+    public JsonNode transform( JsonNode input ) {
+        return transform( input, null );
+    }
+
+    public JsonNode transform( JsonNode input, Map<String, Object> context ) {
+        return JsonNodeViews.unwrap( chainr.transform( JsonNodeViews.wrap( input ), context ) );
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.common.ContainerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ContainerFactory whose Maps and Lists are views of new Jackson ObjectNodes and ArrayNodes, see {@link JsonNodeViews},
+ *  so the output of a transform is a JsonNode tree as it is being built.
+ */
+public final class JsonNodeContainerFactory implements ContainerFactory {
+
+    public static final JsonNodeContainerFactory INSTANCE = new JsonNodeContainerFactory();
+
+    private JsonNodeContainerFactory() {}
+
+    // ObjectNodes and ArrayNodes can not be pre-sized, so the expected sizes are ignored
+
+    @Override
+    public Map<String, Object> newMap( int expectedSize ) {
+        return JsonNodeViews.newMap();
+    }
+
+    @Override
+    public List<Object> newList( int expectedSize ) {
+        return JsonNodeViews.newList();
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.common.ExecutionStrategy;
+import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.common.PathEvaluatingTraversal;
+import com.bazaarvoice.jolt.common.pathelement.ArrayPathElement;
+import com.bazaarvoice.jolt.common.pathelement.AtPathElement;
+import com.bazaarvoice.jolt.common.pathelement.MatchablePathElement;
+import com.bazaarvoice.jolt.common.pathelement.PathElement;
+import com.bazaarvoice.jolt.common.pathelement.TransposePathElement;
+import com.bazaarvoice.jolt.common.spec.LiteralChildIndex;
+import com.bazaarvoice.jolt.common.tree.MatchedElement;
+import com.bazaarvoice.jolt.common.tree.WalkedPath;
+import com.bazaarvoice.jolt.exception.JsonUnmarshalException;
+import com.bazaarvoice.jolt.exception.SpecException;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrCompositeSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrLeafSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrSpec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Runs a Shiftr spec directly off of a Jackson JsonParser, so that the input document never has to be in memory
+ *  as a whole.  Meant for inputs like { "records" : [ ...millions... ] }, where the output is much smaller than the
+ *  input, or at least the input and the output do not have to fit in memory at the same time.
+ *
+ * The parser drives the same walk the Shiftr spec tree does :
+ *  - input the spec does not match is skipped over without being parsed into Maps and Lists
+ *  - Maps and Lists matched by a spec level that only needs their keys are streamed through, one entry at a time
+ *  - everything else, like the values that get written to the output, is read into memory and handed to the
+ *     regular spec objects
+ *
+ * A spec level needs more than the keys of its input if it, or a level below it, reads the input data itself :
+ *  "@" keys and "@(2,foo)" transposes, on either side of the spec.  Those levels are read into memory whole.
+ *
+ * Entries are applied in the same order the interpreted Shiftr applies them, so the output is identical to
+ *  Shiftr's, including implicit lists and [#2] style indexes.  Where Shiftr applies literal keys in spec order,
+ *  entries that arrive early are held back until it is their turn, so listing the key of a huge array last in the
+ *  spec (or having it come first in the input) keeps it streaming.  Input Maps with duplicate keys are the exception :
+ *  each duplicate is applied, rather than only the last one.
+ *
+ * Like Shiftr, a StreamingShiftr is immutable and can be shared across threads.
+ */
+public class StreamingShiftr {
+
+    private static final String ROOT_KEY = SpecDriven.ROOT_KEY;
+
+    private final ShiftrCompositeSpec rootSpec;
+    private final int walkedPathDepth;
+    private final ObjectMapper objectMapper;
+
+    // the spec levels that only ever look at the keys of their input
+    private final Set<ShiftrCompositeSpec> keyOnlyLevels = Collections.newSetFromMap( new IdentityHashMap<ShiftrCompositeSpec, Boolean>() );
+
+    public StreamingShiftr( Object spec ) {
+        this( spec, new ObjectMapper() );
+    }
+
+    /**
+     * @param objectMapper a configured Jackson ObjectMapper, to create parsers and read the values that are needed whole
+     */
+    @SuppressWarnings( "unchecked" )
+    public StreamingShiftr( Object spec, ObjectMapper objectMapper ) {
+
+        if ( spec == null ){
+            throw new SpecException( "StreamingShiftr expected a spec of Map type, got 'null'." );
+        }
+        if ( ! ( spec instanceof Map ) ) {
+            throw new SpecException( "StreamingShiftr expected a spec of Map type, got " + spec.getClass().getSimpleName() );
+        }
+
+        rootSpec = new ShiftrCompositeSpec( ROOT_KEY, (Map<String, Object>) spec );
+        walkedPathDepth = WalkedPath.requiredDepth( spec );
+        findKeyOnlyLevels( rootSpec );
+
+        this.objectMapper = objectMapper == null ? new ObjectMapper() : objectMapper;
+        JsonUtilImpl.configureStockJoltObjectMapper( this.objectMapper );
+    }
+
+    /**
+     * Transform the single JSON document in the stream.  The stream is not closed.
+     *
+     * @return the same output Shiftr.transform would have produced for the document
+     */
+    public Object transform( InputStream in ) {
+        try ( JsonParser parser = objectMapper.getFactory().createParser( in ) ) {
+            parser.disable( JsonParser.Feature.AUTO_CLOSE_SOURCE );
+            if ( parser.nextToken() == null ) {
+                throw new JsonUnmarshalException( "Unable to unmarshal JSON : the input is empty." );
+            }
+            return transform( parser );
+        }
+        catch ( IOException e ) {
+            throw new JsonUnmarshalException( "Unable to unmarshal JSON to an Object.", e );
+        }
+    }
+
+    /**
+     * Transform the JSON value the parser is on.  Afterwards the parser is on the last token of that value.
+     *
+     * @param parser parser positioned on the first token of the value to transform
+     * @return the same output Shiftr.transform would have produced for the value
+     */
+    public Object transform( JsonParser parser ) {
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        WalkedPath walkedPath = new WalkedPath( walkedPathDepth );
+
+        try {
+            if ( canStream( rootSpec, parser.getCurrentToken() ) ) {
+                walkedPath.add( null, new MatchedElement( ROOT_KEY ) );
+                streamLevel( rootSpec, ROOT_KEY, parser, walkedPath, output );
+            }
+            else {
+                Object input = readValue( parser );
+                walkedPath.add( input, new MatchedElement( ROOT_KEY ) );
+                rootSpec.apply( ROOT_KEY, Optional.of( input ), walkedPath, output, null );
+            }
+        }
+        catch ( IOException e ) {
+            throw new JsonUnmarshalException( "Unable to unmarshal JSON to an Object.", e );
+        }
+
+        return output.get( ROOT_KEY );
+    }
+
+    /**
+     * @return how many levels up from the given spec, counting its own level as 0, the input data itself is read,
+     *  or -1 if the spec and everything below it only look at keys
+     */
+    private int findKeyOnlyLevels( ShiftrSpec spec ) {
+
+        int dataLevel = -1;
+        MatchablePathElement pathElement = spec.getPathElement();
+
+        // LHS transposes are evaluated before their own level is added to the walkedPath
+        if ( pathElement instanceof TransposePathElement ) {
+            dataLevel = ( (TransposePathElement) pathElement ).getUpLevel() + 1;
+        }
+
+        if ( spec instanceof ShiftrLeafSpec ) {
+
+            // "@" writes the input of its parent
+            if ( pathElement instanceof AtPathElement ) {
+                dataLevel = Math.max( dataLevel, 1 );
+            }
+
+            for ( PathEvaluatingTraversal writer : ( (ShiftrLeafSpec) spec ).getShiftrWriters() ) {
+                for ( int index = 0; index < writer.size(); index++ ) {
+                    dataLevel = Math.max( dataLevel, transposeUpLevel( writer.get( index ) ) );
+                }
+            }
+            return dataLevel;
+        }
+
+        ShiftrCompositeSpec composite = (ShiftrCompositeSpec) spec;
+
+        List<ShiftrSpec> children = new ArrayList<>( composite.getSpecialChildren() );
+        children.addAll( composite.getLiteralChildren().values() );
+        children.addAll( composite.getComputedChildren() );
+
+        for ( ShiftrSpec child : children ) {
+            dataLevel = Math.max( dataLevel, findKeyOnlyLevels( child ) - 1 );
+        }
+
+        if ( dataLevel < 0 ) {
+            keyOnlyLevels.add( composite );
+        }
+        return dataLevel;
+    }
+
+    private static int transposeUpLevel( PathElement pathElement ) {
+        if ( pathElement instanceof TransposePathElement ) {
+            return ( (TransposePathElement) pathElement ).getUpLevel();
+        }
+        if ( pathElement instanceof ArrayPathElement && ( (ArrayPathElement) pathElement ).getTransposePathElement() != null ) {
+            return ( (ArrayPathElement) pathElement ).getTransposePathElement().getUpLevel();
+        }
+        return -1;
+    }
+
+    private boolean canStream( ShiftrSpec spec, JsonToken token ) {
+
+        if ( ! ( spec instanceof ShiftrCompositeSpec ) || ! keyOnlyLevels.contains( spec ) ) {
+            return false;
+        }
+
+        ExecutionStrategy strategy = ( (ShiftrCompositeSpec) spec ).getExecutionStrategy();
+        if ( token == JsonToken.START_OBJECT ) {
+            return true;
+        }
+        // Lists with literal children apply them in spec order, by index, which is not worth reproducing
+        return token == JsonToken.START_ARRAY && ( strategy == ExecutionStrategy.COMPUTED || strategy == ExecutionStrategy.CONFLICT );
+    }
+
+    /**
+     * Apply the spec, which has already matched the key, to the value the parser is on.
+     */
+    private void apply( ShiftrSpec spec, String key, JsonParser parser, WalkedPath walkedPath, Map<String, Object> output ) throws IOException {
+        if ( canStream( spec, parser.getCurrentToken() ) ) {
+            streamLevel( (ShiftrCompositeSpec) spec, key, parser, walkedPath, output );
+        }
+        else {
+            spec.apply( key, Optional.of( readValue( parser ) ), walkedPath, output, null );
+        }
+    }
+
+    /**
+     * The streaming version of ShiftrCompositeSpec.apply, for a Map or List input.
+     */
+    private void streamLevel( ShiftrCompositeSpec spec, String key, JsonParser parser, WalkedPath walkedPath, Map<String, Object> output ) throws IOException {
+
+        MatchedElement thisLevel = spec.getPathElement().match( key, walkedPath );
+
+        // nothing below this level reads the data, so it does not need to be in the walkedPath
+        walkedPath.add( null, thisLevel );
+
+        // only "$" and "#" can be special children of a key only level, and those just need the key
+        for ( ShiftrSpec special : spec.getSpecialChildren() ) {
+            special.apply( key, Optional.of( null ), walkedPath, output, null );
+        }
+
+        if ( parser.getCurrentToken() == JsonToken.START_ARRAY ) {
+            int index = 0;
+            while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+                applyInInputOrder( spec, Integer.toString( index++ ), parser, walkedPath, output );
+            }
+        }
+        else if ( spec.getExecutionStrategy() == ExecutionStrategy.COMPUTED || spec.getExecutionStrategy() == ExecutionStrategy.CONFLICT ) {
+            while ( parser.nextToken() != JsonToken.END_OBJECT ) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                applyInInputOrder( spec, fieldName, parser, walkedPath, output );
+            }
+        }
+        else {
+            streamLiteralsFirst( spec, parser, walkedPath, output );
+        }
+
+        walkedPath.removeLast();
+        walkedPath.lastElement().getMatchedElement().incrementHashCount();
+    }
+
+    /**
+     * COMPUTED and CONFLICT apply each input key as it comes : to its literal child, or else the first computed child that matches.
+     */
+    private void applyInInputOrder( ShiftrCompositeSpec spec, String key, JsonParser parser, WalkedPath walkedPath, Map<String, Object> output ) throws IOException {
+
+        ShiftrSpec child = spec.getLiteralChildren().get( key );
+        if ( child == null ) {
+            child = firstMatchingComputedChild( spec, key, walkedPath );
+        }
+
+        if ( child == null ) {
+            parser.skipChildren();
+        }
+        else {
+            apply( child, key, parser, walkedPath, output );
+        }
+    }
+
+    /**
+     * AVAILABLE_LITERALS applies the literal children in spec order, and AVAILABLE_LITERALS_WITH_COMPUTED then applies
+     *  the computed children in input order.  So a literal entry can be applied as soon as every literal before it
+     *  in spec order has either been applied or read into memory, while computed entries have to wait for the end.
+     */
+    private void streamLiteralsFirst( ShiftrCompositeSpec spec, JsonParser parser, WalkedPath walkedPath, Map<String, Object> output ) throws IOException {
+
+        LiteralChildIndex<ShiftrSpec> literals = spec.getLiteralChildIndex();
+        boolean withComputed = spec.getExecutionStrategy() == ExecutionStrategy.AVAILABLE_LITERALS_WITH_COMPUTED;
+
+        BitSet seen = new BitSet( literals.size() );
+        TreeMap<Integer, Object> heldLiterals = new TreeMap<>();
+        List<Map.Entry<String, Object>> heldComputed = new ArrayList<>();
+
+        while ( parser.nextToken() != JsonToken.END_OBJECT ) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            int ordinal = literals.ordinalOf( fieldName );
+            if ( ordinal >= 0 ) {
+                seen.set( ordinal );
+                if ( seen.nextClearBit( 0 ) > ordinal ) {
+                    // every literal before this one has been seen, so this is its turn
+                    applyHeldLiterals( literals, heldLiterals.headMap( ordinal ), walkedPath, output );
+                    apply( (ShiftrSpec) literals.getChild( ordinal ), fieldName, parser, walkedPath, output );
+                }
+                else {
+                    heldLiterals.put( ordinal, readValue( parser ) );
+                }
+            }
+            else if ( withComputed && firstMatchingComputedChild( spec, fieldName, walkedPath ) != null ) {
+                heldComputed.add( new AbstractMap.SimpleImmutableEntry<>( fieldName, readValue( parser ) ) );
+            }
+            else {
+                parser.skipChildren();
+            }
+        }
+
+        applyHeldLiterals( literals, heldLiterals, walkedPath, output );
+        for ( Map.Entry<String, Object> entry : heldComputed ) {
+            spec.getComputedChildMatcher().apply( entry.getKey(), Optional.of( entry.getValue() ), walkedPath, output, null );
+        }
+    }
+
+    private static void applyHeldLiterals( LiteralChildIndex<ShiftrSpec> literals, Map<Integer, Object> held, WalkedPath walkedPath, Map<String, Object> output ) {
+        Iterator<Map.Entry<Integer, Object>> iter = held.entrySet().iterator();
+        while ( iter.hasNext() ) {
+            Map.Entry<Integer, Object> entry = iter.next();
+            String key = literals.getKey( entry.getKey() );
+            literals.getChild( entry.getKey() ).apply( key, Optional.of( entry.getValue() ), walkedPath, output, null );
+            iter.remove();
+        }
+    }
+
+    /**
+     * Computed children either match a key and apply themselves, or do not match it, so the first one whose key
+     *  matches is the one that applies.
+     */
+    private static ShiftrSpec firstMatchingComputedChild( ShiftrCompositeSpec spec, String key, WalkedPath walkedPath ) {
+        for ( ShiftrSpec child : spec.getComputedChildren() ) {
+            if ( child.getPathElement().match( key, walkedPath ) != null ) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private Object readValue( JsonParser parser ) throws IOException {
+        return objectMapper.readValue( parser, Object.class );
+    }
+}
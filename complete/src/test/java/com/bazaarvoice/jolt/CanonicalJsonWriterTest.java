@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class CanonicalJsonWriterTest {
+
+    private static final String INPUT = "{ 'zeta' : [ { 'b' : 1, 'a' : 2.5 }, 'x', null, true ], '~tilde' : 'first', " +
+            "'alpha' : { 'c' : { 'z' : [], 'y' : {} }, 'B' : 12345678901 }, '' : 'empty' }";
+
+    @Test
+    public void writesWhatSortrWouldHaveSerialized() throws Exception {
+
+        Object input = JsonUtils.jsonToObject( INPUT.replace( '\'', '"' ) );
+        Object snapshot = JsonUtils.cloneJson( input );
+
+        Assert.assertEquals( CanonicalJsonWriter.toJsonString( input ), JsonUtils.toJsonString( Sortr.sortJson( input ) ) );
+        Assert.assertEquals( CanonicalJsonWriter.toPrettyJsonString( input ), JsonUtils.toPrettyJsonString( Sortr.sortJson( input ) ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CanonicalJsonWriter.write( input, out );
+        Assert.assertEquals( new String( out.toByteArray(), StandardCharsets.UTF_8 ), CanonicalJsonWriter.toJsonString( input ) );
+
+        // and the input is left in its original order
+        Assert.assertEquals( JsonUtils.toJsonString( input ), JsonUtils.toJsonString( snapshot ) );
+    }
+}
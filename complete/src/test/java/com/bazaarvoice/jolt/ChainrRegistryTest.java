@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ChainrRegistryTest {
+
+    private static final String SPEC = "[ { 'operation' : 'shift', 'spec' : { 'a' : '%s' } } ]";
+
+    @Test
+    public void classPathSpecsAreCompiledOnce() throws IOException {
+        try ( ChainrRegistry registry = new ChainrRegistry() ) {
+            Chainr first = registry.fromClassPath( "/json/wellformed-input.json" );
+            Assert.assertSame( registry.fromClassPath( "/json/wellformed-input.json" ), first );
+        }
+    }
+
+    @Test
+    public void fileSpecsAreRecompiledOnlyWhenTheirContentChanges() throws IOException {
+        File spec = writeSpec( Files.createTempDirectory( "chainr-registry" ).resolve( "spec.json" ), "b" );
+
+        try ( ChainrRegistry registry = new ChainrRegistry() ) {
+            Chainr first = registry.fromFile( spec );
+            Assert.assertSame( registry.fromFileSystem( spec.getPath() ), first );
+            Assert.assertEquals( first.transform( JsonUtils.javason( "{ 'a' : 1 }" ) ), JsonUtils.javason( "{ 'b' : 1 }" ) );
+
+            // same bytes, so the same Chainr
+            writeSpec( spec.toPath(), "b" );
+            registry.refresh();
+            Assert.assertSame( registry.fromFile( spec ), first );
+
+            writeSpec( spec.toPath(), "c" );
+            registry.refresh();
+            Chainr second = registry.fromFile( spec );
+            Assert.assertNotSame( second, first );
+            Assert.assertEquals( second.transform( JsonUtils.javason( "{ 'a' : 1 }" ) ), JsonUtils.javason( "{ 'c' : 1 }" ) );
+
+            // a broken spec leaves the last good one in place
+            Files.write( spec.toPath(), "[ { 'operation'".getBytes( StandardCharsets.UTF_8 ) );
+            registry.refresh();
+            Assert.assertSame( registry.fromFile( spec ), second );
+            Assert.assertNotNull( registry.getReloadFailure( spec ) );
+        }
+    }
+
+    @Test
+    public void fileSpecsAreReloadedInTheBackground() throws Exception {
+        File spec = writeSpec( Files.createTempDirectory( "chainr-registry" ).resolve( "spec.json" ), "b" );
+
+        try ( ChainrRegistry registry = new ChainrRegistry() ) {
+            Chainr first = registry.fromFile( spec );
+            writeSpec( spec.toPath(), "c" );
+
+            // some WatchService implementations poll, so give it a while
+            long deadline = System.currentTimeMillis() + 30000;
+            while ( registry.fromFile( spec ) == first && System.currentTimeMillis() < deadline ) {
+                Thread.sleep( 50 );
+            }
+            Assert.assertEquals( registry.fromFile( spec ).transform( JsonUtils.javason( "{ 'a' : 1 }" ) ), JsonUtils.javason( "{ 'c' : 1 }" ) );
+        }
+    }
+
+    private static File writeSpec( Path path, String outputKey ) throws IOException {
+        String json = String.format( SPEC, outputKey ).replace( '\'', '"' );
+        Files.write( path, json.getBytes( StandardCharsets.UTF_8 ) );
+        return path.toFile();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.bazaarvoice.jolt.exception.TransformException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChainrStreamTest {
+
+    private static final Object SPEC = JsonUtils.jsonToObject(
+            "[ { \"operation\" : \"shift\", \"spec\" : { \"id\" : \"Id\", \"rating\" : { \"value\" : \"Rating\" } } } ]" );
+
+    @Test
+    public void transformsEachRecordInOrder() throws Exception {
+
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for ( int id = 0; id < 500; id++ ) {
+            input.append( "{ \"id\" : " ).append( id ).append( ", \"rating\" : { \"value\" : " ).append( id % 5 ).append( " } }\n" );
+            expected.append( "{\"Id\":" ).append( id ).append( ",\"Rating\":" ).append( id % 5 ).append( "}\n" );
+        }
+
+        // sequentially
+        Assert.assertEquals( run( new ChainrStream( Chainr.fromSpec( SPEC ) ), input.toString() ), expected.toString() );
+
+        // concurrently, with fewer slots than records so the window has to keep moving
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try {
+            ChainrStream stream = new ChainrStream( Chainr.fromSpec( SPEC ) ).executor( executor ).maxInFlight( 8 );
+            Assert.assertEquals( run( stream, input.toString() ), expected.toString() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void nullOutputsKeepTheRecordsLinedUp() throws Exception {
+        String input = "{ \"id\" : 1 }  { \"other\" : 2 }\n\n{ \"id\" : 3 }";
+        Assert.assertEquals( run( new ChainrStream( Chainr.fromSpec( SPEC ) ), input ), "{\"Id\":1}\nnull\n{\"Id\":3}\n" );
+    }
+
+    @Test( expectedExceptions = TransformException.class, expectedExceptionsMessageRegExp = ".*record 1\\..*" )
+    public void failingRecordsSayWhichRecordFailed() throws Exception {
+        Chainr exploding = Chainr.fromSpec( JsonUtils.jsonToObject(
+                "[ { \"operation\" : \"com.bazaarvoice.jolt.ChainrStreamTest$ExplodesOnTwo\" } ]" ) );
+        run( new ChainrStream( exploding ), "1\n2\n3\n" );
+    }
+
+    @Test
+    public void aFailingRecordCancelsTheRecordsStillInFlight() throws Exception {
+        Chainr exploding = Chainr.fromSpec( JsonUtils.jsonToObject(
+                "[ { \"operation\" : \"com.bazaarvoice.jolt.ChainrStreamTest$ExplodesOnTwoBlocksOnThree\" } ]" ) );
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            run( new ChainrStream( exploding ).executor( executor ).maxInFlight( 8 ), "1\n2\n3\n4\n5\n6\n" );
+            Assert.fail( "expected record 1 to fail" );
+        }
+        catch ( TransformException e ) {
+            Assert.assertTrue( e.getMessage().contains( "record 1." ), e.getMessage() );
+        }
+        finally {
+            // 3 is still running, and 4 to 6 are queued behind it on the single thread
+            ExplodesOnTwoBlocksOnThree.release.countDown();
+            executor.shutdown();
+        }
+        Assert.assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+        Assert.assertEquals( ExplodesOnTwoBlocksOnThree.afterThree.get(), 0 );
+    }
+
+    public static class ExplodesOnTwoBlocksOnThree implements Transform {
+
+        static final CountDownLatch release = new CountDownLatch( 1 );
+        static final AtomicInteger afterThree = new AtomicInteger();
+
+        @Override
+        public Object transform( Object input ) {
+            int value = (Integer) input;
+            if ( value == 2 ) {
+                throw new IllegalStateException( "two" );
+            }
+            if ( value == 3 ) {
+                try {
+                    release.await();
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if ( value > 3 ) {
+                afterThree.incrementAndGet();
+            }
+            return input;
+        }
+    }
+
+    public static class ExplodesOnTwo implements Transform {
+        @Override
+        public Object transform( Object input ) {
+            if ( Integer.valueOf( 2 ).equals( input ) ) {
+                throw new IllegalStateException( "two" );
+            }
+            return input;
+        }
+    }
+
+    private static String run( ChainrStream stream, String input ) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.transform( new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) ), out );
+        return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+}
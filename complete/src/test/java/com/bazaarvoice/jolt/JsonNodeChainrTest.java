@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class JsonNodeChainrTest {
+
+    private static final String SPEC = "[" +
+            "{ 'operation' : 'shift', 'spec' : { 'rating' : { '*' : { 'value' : 'Ratings[].Value', '$' : 'Ratings[].Name' } }, 'id' : 'Id', 'tags' : 'Tags' } }," +
+            "{ 'operation' : 'default', 'spec' : { 'Id' : 'none', 'Extra' : { 'Flag' : true } } }," +
+            "{ 'operation' : 'remove', 'spec' : { 'Tags' : { '0' : '' } } }," +
+            "{ 'operation' : 'modify-overwrite-beta', 'spec' : { 'Count' : '=size(@(1,Ratings))' } }," +
+            "{ 'operation' : 'cardinality', 'spec' : { 'Tags' : 'MANY' } }," +
+            "{ 'operation' : 'sort' }" +
+            "]";
+
+    private static final String INPUT = "{ 'id' : 7, 'tags' : [ 'a', 'b', 'c' ], 'rating' : { 'primary' : { 'value' : 3 }, 'quality' : { 'value' : 4.5 } } }";
+
+    @Test
+    public void matchesTheMapBasedChainr() throws Exception {
+
+        Object spec = JsonUtils.jsonToObject( SPEC.replace( '\'', '"' ) );
+        String input = INPUT.replace( '\'', '"' );
+
+        Object expected = Chainr.fromSpec( spec ).transform( JsonUtils.jsonToObject( input ) );
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode actual = JsonNodeChainr.fromSpec( spec ).transform( mapper.readTree( input ) );
+
+        Assert.assertEquals( actual, mapper.readTree( JsonUtils.toJsonString( expected ) ) );
+    }
+
+    @Test
+    public void modifiersFillTheContainersTheyCreate() throws Exception {
+
+        Object spec = JsonUtils.jsonToObject( ( "[" +
+                "{ 'operation' : 'modify-default-beta', 'spec' : { 'New' : { 'x' : 'v' } } }," +
+                "{ 'operation' : 'modify-overwrite-beta', 'spec' : { 'Deep' : { 'Er' : { 'y' : '=toUpper(@(3,New.x))' } }, 'List' : { '[1]' : 'w' } } }" +
+                "]" ).replace( '\'', '"' ) );
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode expected = mapper.readTree( "{ 'a' : 1, 'New' : { 'x' : 'v' }, 'Deep' : { 'Er' : { 'y' : 'V' } }, 'List' : [ null, 'w' ] }".replace( '\'', '"' ) );
+
+        Assert.assertEquals( JsonNodeChainr.fromSpec( spec ).transform( mapper.readTree( "{ \"a\" : 1 }" ) ), expected );
+        // a plain Chainr creates LinkedHashMaps and ArrayLists, which the JsonNode views store as copies
+        Assert.assertEquals( new JsonNodeChainr( Chainr.fromSpec( spec ) ).transform( mapper.readTree( "{ \"a\" : 1 }" ) ), expected );
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+public class StreamingShiftrTest {
+
+    @DataProvider
+    public Object[][] streamingCases() {
+        return new Object[][] {
+            {
+                // key only levels all the way down, including [#2], $ and implicit lists
+                "{ 'records' : { '*' : { 'id' : 'ids[]', 'rating' : { '*' : 'ratings[#3].&' }, '$' : 'indexes[]' } } }",
+                "{ 'records' : [ { 'id' : 1, 'rating' : { 'value' : 3, 'max' : 5 } }, { 'id' : 2 }, { 'rating' : { 'value' : 1 } } ], 'other' : [ 1, 2 ] }"
+            },
+            {
+                // literals apply in spec order, whatever order they come in
+                "{ 'b' : 'out[]', 'a' : 'out[]', 'c' : { '*' : 'out[]' } }",
+                "{ 'c' : { 'x' : 1, 'y' : 2 }, 'a' : 'A', 'z' : 0, 'b' : 'B' }"
+            },
+            {
+                // literals first, then computed keys in input order
+                "{ 'rating-*' : 'r.&(0,1)', 'id' : 'Id', '*' : 'rest.&' }",
+                "{ 'rating-2' : 2, 'x' : { 'deep' : true }, 'id' : 7, 'rating-1' : 1 }"
+            },
+            {
+                // "@" needs the data of its level, the levels around it still stream
+                "{ 'records' : { '*' : { '@' : 'copies[]', 'id' : 'ids[]' } } }",
+                "{ 'records' : [ { 'id' : 1, 'a' : 'b' }, { 'id' : 2 } ] }"
+            },
+            {
+                // RHS transposes read the data up the tree
+                "{ 'records' : { '*' : { 'value' : 'byId.@(1,id)' } } }",
+                "{ 'records' : [ { 'id' : 'x', 'value' : 1 }, { 'id' : 'y', 'value' : 2 } ] }"
+            },
+            {
+                // top level array, and primitive inputs which are never streamed
+                "{ '*' : { 'name' : 'names[&1]' } }",
+                "[ { 'name' : 'a' }, 'oops', { 'name' : 'c' } ]"
+            },
+            {
+                "{ '*' : 'out' }",
+                "'just a string'"
+            }
+        };
+    }
+
+    @Test( dataProvider = "streamingCases" )
+    public void streamingMatchesShiftr( String specJson, String inputJson ) {
+
+        Object spec = JsonUtils.jsonToObject( specJson.replace( '\'', '"' ) );
+        String input = inputJson.replace( '\'', '"' );
+
+        Object expected = new Shiftr( spec ).transform( JsonUtils.jsonToObject( input ) );
+        Object actual = new StreamingShiftr( spec ).transform( new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) ) );
+
+        Assert.assertEquals( JsonUtils.toJsonString( actual ), JsonUtils.toJsonString( expected ) );
+    }
+
+    @Test
+    public void streamsLargeTopLevelArrays() {
+
+        Object spec = JsonUtils.jsonToObject( "{ \"records\" : { \"*\" : { \"id\" : \"ids[]\" } } }" );
+
+        StringBuilder input = new StringBuilder( "{ \"records\" : [" );
+        for ( int id = 0; id < 10000; id++ ) {
+            input.append( id == 0 ? "" : "," ).append( "{ \"id\" : " ).append( id ).append( ", \"payload\" : [ 1, 2, 3 ] }" );
+        }
+        input.append( "] }" );
+
+        Object expected = new Shiftr( spec ).transform( JsonUtils.jsonToObject( input.toString() ) );
+        Object actual = new StreamingShiftr( spec ).transform( new ByteArrayInputStream( input.toString().getBytes( StandardCharsets.UTF_8 ) ) );
+
+        Assert.assertEquals( actual, expected );
+    }
+}
@@ -16,6 +16,7 @@
 package com.bazaarvoice.jolt;
 
 import com.bazaarvoice.jolt.cardinality.CardinalityCompositeSpec;
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 import com.bazaarvoice.jolt.exception.SpecException;
@@ -199,6 +200,7 @@ public class CardinalityTransform implements SpecDriven, Transform {
 
     protected static final String ROOT_KEY = "root";
     private final CardinalityCompositeSpec rootSpec;
+    private final int walkedPathDepth;
 
     /**
      * Initialize a Cardinality transform with a CardinalityCompositeSpec.
@@ -207,6 +209,15 @@ public class CardinalityTransform implements SpecDriven, Transform {
      */
     @Inject
     public CardinalityTransform( Object spec ) {
+        this( spec, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * Initialize a Cardinality transform that creates the Lists for MANY with the given factory.
+     *
+     * @throws com.bazaarvoice.jolt.exception.SpecException for a malformed spec
+     */
+    public CardinalityTransform( Object spec, ContainerFactory containerFactory ) {
 
         if ( spec == null ){
             throw new SpecException( "CardinalityTransform expected a spec of Map type, got 'null'." );
@@ -215,7 +226,8 @@ public class CardinalityTransform implements SpecDriven, Transform {
             throw new SpecException( "CardinalityTransform expected a spec of Map type, got " + spec.getClass().getSimpleName() );
         }
 
-        rootSpec = new CardinalityCompositeSpec( ROOT_KEY, (Map<String, Object>) spec );
+        rootSpec = new CardinalityCompositeSpec( ROOT_KEY, (Map<String, Object>) spec, containerFactory );
+        walkedPathDepth = WalkedPath.requiredDepth( spec );
     }
 
 
@@ -230,7 +242,7 @@ public class CardinalityTransform implements SpecDriven, Transform {
     @Override
     public Object transform( Object input ) {
 
-        rootSpec.apply( ROOT_KEY, Optional.of( input ), new WalkedPath(), null, null );
+        rootSpec.apply( ROOT_KEY, Optional.of( input ), new WalkedPath( walkedPathDepth ), null, null );
 
         return input;
     }
@@ -15,16 +15,22 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.chainr.BatchResult;
 import com.bazaarvoice.jolt.chainr.ChainrBuilder;
 import com.bazaarvoice.jolt.chainr.instantiator.ChainrInstantiator;
 import com.bazaarvoice.jolt.exception.SpecException;
 import com.bazaarvoice.jolt.exception.TransformException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Chainr is the JOLT mechanism for chaining {@link JoltTransform}s together. Any of the built-in JOLT
@@ -78,6 +84,14 @@ import java.util.Map;
  *     },
  *     ...
  * ]
+ *
+ * Thread safety : a Chainr built from the stock transforms is immutable once built, and one instance can be
+ *  shared by any number of threads, including the compiled and fused Shiftr variants, and the adaptive size hints
+ *  which are updated racily on purpose.  Custom Java transforms have to be thread safe themselves to keep that true.
+ *  What can not be shared is the data : Defaultr, Removr, CardinalityTransform and Modifier change their input in
+ *  place, so a given input document should only be transformed by one thread at a time, unless each thread wraps
+ *  it with {@link com.bazaarvoice.jolt.common.CopyOnWrite#wrap(Object)}.  The same context Map is
+ *  passed to every transform, so it should not be modified while transforms are running.
  */
 public class Chainr implements Transform, ContextualTransform {
 
@@ -180,6 +194,95 @@ public class Chainr implements Transform, ContextualTransform {
         return doTransform( transformsList, input, null );
     }
 
+    /**
+     * Transform a batch of independent documents in parallel, on the ForkJoinPool common pool.
+     *
+     * @param inputs the documents to transform, none of which should appear twice in the batch
+     * @param context optional tweaks that the consumer of the transform would like, shared by every document
+     * @return one BatchResult per input, in the order of the inputs
+     */
+    public List<BatchResult> transformAll( List<?> inputs, Map<String, Object> context ) {
+        return transformAll( inputs, context, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Transform a batch of independent documents in parallel, on the given Executor.
+     *
+     * The batch is split into a few contiguous slices per processor, each of which runs as one task, so any Executor
+     *  works, from a fixed thread pool to a virtual thread per task executor on JVMs that have them.
+     *
+     * A document that fails does not stop the rest of the batch : its BatchResult holds the exception instead.
+     *
+     * @param inputs the documents to transform, none of which should appear twice in the batch
+     * @param context optional tweaks that the consumer of the transform would like, shared by every document
+     * @param executor where to run the transforms
+     * @return one BatchResult per input, in the order of the inputs
+     */
+    public List<BatchResult> transformAll( final List<?> inputs, final Map<String, Object> context, Executor executor ) {
+
+        if ( inputs == null ) {
+            throw new IllegalArgumentException( "Chainr transformAll requires a non-null list of inputs." );
+        }
+        if ( executor == null ) {
+            throw new IllegalArgumentException( "Chainr transformAll requires a non-null executor." );
+        }
+
+        final BatchResult[] results = new BatchResult[ inputs.size() ];
+
+        // A few slices per processor keeps them all busy when some documents are slower than others,
+        //  without paying for a task per document
+        int sliceSize = Math.max( 1, inputs.size() / ( 4 * Runtime.getRuntime().availableProcessors() ) );
+
+        List<CompletableFuture<Void>> slices = new ArrayList<>( inputs.size() / sliceSize + 1 );
+        for ( int start = 0; start < inputs.size(); start += sliceSize ) {
+            final int from = start;
+            final int to = Math.min( inputs.size(), start + sliceSize );
+
+            slices.add( CompletableFuture.runAsync( () -> {
+                for ( int index = from; index < to; index++ ) {
+                    results[index] = transformOne( inputs.get( index ), context );
+                }
+            }, executor ) );
+        }
+
+        // join makes the writes to results visible to this thread
+        CompletableFuture.allOf( slices.toArray( new CompletableFuture<?>[0] ) ).join();
+
+        return Collections.unmodifiableList( Arrays.asList( results ) );
+    }
+
+    /**
+     * Lazily transform a stream of independent documents.
+     *
+     * The transforms run on whatever threads the Stream runs on, so a parallel() input Stream runs them on the
+     *  ForkJoinPool common pool.  Either way the results are in the encounter order of the inputs.
+     *
+     * @param inputs the documents to transform, none of which should appear twice in the stream
+     * @param context optional tweaks that the consumer of the transform would like, shared by every document
+     * @return a Stream of one BatchResult per input
+     */
+    public Stream<BatchResult> transformAll( Stream<?> inputs, final Map<String, Object> context ) {
+
+        if ( inputs == null ) {
+            throw new IllegalArgumentException( "Chainr transformAll requires a non-null stream of inputs." );
+        }
+
+        return inputs.map( input -> transformOne( input, context ) );
+    }
+
+    private BatchResult transformOne( Object input, Map<String, Object> context ) {
+        try {
+            return BatchResult.success( transform( input, context ) );
+        }
+        catch ( RuntimeException re ) {
+            return BatchResult.failure( re );
+        }
+        catch ( Throwable t ) {
+            // eg a StackOverflowError on one very deep document; that should not take the rest of the batch down with it
+            return BatchResult.failure( new TransformException( "Chainr transform failed with " + t, t ) );
+        }
+    }
+
     /**
      * Have Chainr run a subset of the transforms in it's spec.
      *
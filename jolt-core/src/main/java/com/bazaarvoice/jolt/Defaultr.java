@@ -15,12 +15,12 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.defaultr.Key;
 import com.bazaarvoice.jolt.exception.SpecException;
 import com.bazaarvoice.jolt.exception.TransformException;
 
 import javax.inject.Inject;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -179,6 +179,7 @@ public class Defaultr implements SpecDriven, Transform {
 
     private final Key mapRoot;
     private final Key arrayRoot;
+    private final ContainerFactory containerFactory;
 
     /**
      * Configure an instance of Defaultr with a spec.
@@ -187,6 +188,17 @@ public class Defaultr implements SpecDriven, Transform {
      */
     @Inject
     public Defaultr( Object spec ) {
+        this( spec, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * Configure an instance of Defaultr with a spec, that creates missing containers with the given factory.
+     *
+     * @throws SpecException for a malformed spec or if there are issues
+     */
+    public Defaultr( Object spec, ContainerFactory containerFactory ) {
+
+        this.containerFactory = containerFactory;
 
         String rootString = "root";
 
@@ -198,7 +210,7 @@ public class Defaultr implements SpecDriven, Transform {
         {
             Map<String, Object> rootSpec = new LinkedHashMap<>();
             rootSpec.put( rootString, spec );
-            mapRoot = Key.parseSpec( rootSpec ).iterator().next();
+            mapRoot = Key.parseSpec( rootSpec, containerFactory ).iterator().next();
         }
 
         //  Thus we check the top level type of the input.
@@ -207,7 +219,7 @@ public class Defaultr implements SpecDriven, Transform {
             rootSpec.put( rootString + WildCards.ARRAY, spec );
             Key tempKey = null;
             try {
-                tempKey = Key.parseSpec( rootSpec ).iterator().next();
+                tempKey = Key.parseSpec( rootSpec, containerFactory ).iterator().next();
             }
             catch ( NumberFormatException nfe ) {
                 // this is fine, it means the top level spec has non numeric keys
@@ -227,8 +239,8 @@ public class Defaultr implements SpecDriven, Transform {
     public Object transform( Object input ) {
 
         if ( input == null ) {
-            // if null, assume HashMap
-            input = new HashMap();
+            // if null, assume Map
+            input = containerFactory.newMap( 0 );
         }
 
         // TODO : Make copy of the defaultee or like shiftr create a new output object
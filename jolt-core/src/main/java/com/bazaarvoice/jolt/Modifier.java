@@ -16,6 +16,7 @@
 
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
 import com.bazaarvoice.jolt.common.tree.MatchedElement;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
@@ -88,9 +89,10 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
     }
 
     private final ModifierCompositeSpec rootSpec;
+    private final int walkedPathDepth;
 
     @SuppressWarnings( "unchecked" )
-    private Modifier( Object spec, OpMode opMode, Map<String, Function> functionsMap ) {
+    private Modifier( Object spec, OpMode opMode, Map<String, Function> functionsMap, ContainerFactory containerFactory ) {
         if ( spec == null ){
             throw new SpecException( opMode.name() + " expected a spec of Map type, got 'null'." );
         }
@@ -103,8 +105,9 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
         }
 
         functionsMap = Collections.unmodifiableMap( functionsMap );
-        TemplatrSpecBuilder templatrSpecBuilder = new TemplatrSpecBuilder( opMode, functionsMap );
+        TemplatrSpecBuilder templatrSpecBuilder = new TemplatrSpecBuilder( opMode, functionsMap, containerFactory );
         rootSpec = new ModifierCompositeSpec( ROOT_KEY, (Map<String, Object>) spec, opMode, templatrSpecBuilder );
+        walkedPathDepth = WalkedPath.requiredDepth( spec );
     }
 
     @Override
@@ -114,7 +117,7 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
         contextWrapper.put( ROOT_KEY, context );
 
         MatchedElement rootLpe = new MatchedElement( ROOT_KEY );
-        WalkedPath walkedPath = new WalkedPath();
+        WalkedPath walkedPath = new WalkedPath( walkedPathDepth );
         walkedPath.add( input, rootLpe );
 
         rootSpec.apply( ROOT_KEY, Optional.of( input), walkedPath, null, contextWrapper );
@@ -132,7 +135,18 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
         }
 
         public Overwritr( Object spec, Map<String, Function> functionsMap ) {
-            super( spec, OpMode.OVERWRITR, functionsMap );
+            this( spec, functionsMap, ContainerFactory.DEFAULT );
+        }
+
+        /**
+         * Creates missing maps and lists with the given factory
+         */
+        public Overwritr( Object spec, ContainerFactory containerFactory ) {
+            this( spec, STOCK_FUNCTIONS, containerFactory );
+        }
+
+        public Overwritr( Object spec, Map<String, Function> functionsMap, ContainerFactory containerFactory ) {
+            super( spec, OpMode.OVERWRITR, functionsMap, containerFactory );
         }
     }
 
@@ -146,7 +160,18 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
         }
 
         public Definr( Object spec, Map<String, Function> functionsMap ) {
-            super( spec, OpMode.DEFINER, functionsMap );
+            this( spec, functionsMap, ContainerFactory.DEFAULT );
+        }
+
+        /**
+         * Creates missing maps and lists with the given factory
+         */
+        public Definr( Object spec, ContainerFactory containerFactory ) {
+            this( spec, STOCK_FUNCTIONS, containerFactory );
+        }
+
+        public Definr( Object spec, Map<String, Function> functionsMap, ContainerFactory containerFactory ) {
+            super( spec, OpMode.DEFINER, functionsMap, containerFactory );
         }
     }
 
@@ -160,7 +185,18 @@ public abstract class Modifier implements SpecDriven, ContextualTransform {
         }
 
         public Defaultr( Object spec, Map<String, Function> functionsMap ) {
-            super( spec, OpMode.DEFAULTR, functionsMap );
+            this( spec, functionsMap, ContainerFactory.DEFAULT );
+        }
+
+        /**
+         * Creates missing maps and lists with the given factory
+         */
+        public Defaultr( Object spec, ContainerFactory containerFactory ) {
+            this( spec, STOCK_FUNCTIONS, containerFactory );
+        }
+
+        public Defaultr( Object spec, Map<String, Function> functionsMap, ContainerFactory containerFactory ) {
+            super( spec, OpMode.DEFAULTR, functionsMap, containerFactory );
         }
     }
 }
@@ -19,6 +19,7 @@ import com.bazaarvoice.jolt.exception.SpecException;
 import com.bazaarvoice.jolt.removr.spec.RemovrCompositeSpec;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -208,7 +209,7 @@ public class Removr implements SpecDriven, Transform {
         // Wrap the input in a map to fool the CompositeSpec to recurse itself.
         Map<String,Object> wrappedMap = new HashMap<>();
         wrappedMap.put(ROOT_KEY, input);
-        rootSpec.applyToMap( wrappedMap );
+        rootSpec.applyToMap( wrappedMap, new ArrayList<String>( 0 ) );
         return input;
     }
 }
@@ -15,14 +15,18 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.common.spec.BaseSpec;
 import com.bazaarvoice.jolt.common.tree.MatchedElement;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 import com.bazaarvoice.jolt.exception.SpecException;
+import com.bazaarvoice.jolt.shiftr.ShiftrSpecBuilder;
 import com.bazaarvoice.jolt.shiftr.spec.ShiftrCompositeSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrSpecCompiler;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
 
 import javax.inject.Inject;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -463,7 +467,9 @@ import java.util.Map;
  */
 public class Shiftr implements SpecDriven, Transform {
 
-    private final ShiftrCompositeSpec rootSpec;
+    private final BaseSpec rootSpec;
+    private final int walkedPathDepth;
+    private final ContainerFactory containerFactory;
 
     /**
      * Initialize a Shiftr transform with a Spec.
@@ -472,6 +478,45 @@ public class Shiftr implements SpecDriven, Transform {
      */
     @Inject
     public Shiftr( Object spec ) {
+        this( spec, false );
+    }
+
+    /**
+     * Initialize a Shiftr transform with a Spec, that pre-sizes the Maps and Lists it creates in its output,
+     *  based on the sizes it saw at the same output paths in its previous transforms.
+     *
+     * Meant for long lived Shiftr instances that see similarly shaped inputs, like the ones in a Chainr
+     *  built with ChainrBuilder.adaptiveContainerSizing().
+     *
+     * @param sizeHints registry to record the observed sizes in, usually one per Shiftr instance
+     * @throws com.bazaarvoice.jolt.exception.SpecException for a malformed spec
+     */
+    public Shiftr( Object spec, ContainerSizeHints sizeHints ) {
+        this( spec, false, sizeHints, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * Initialize a Shiftr transform with a Spec, that builds its output from the containers of the given factory.
+     *
+     * @param sizeHints registry to record the observed output sizes in, or null to not pre-size the output
+     * @param containerFactory creates the Maps and Lists of the output
+     * @throws com.bazaarvoice.jolt.exception.SpecException for a malformed spec
+     */
+    public Shiftr( Object spec, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        this( spec, false, sizeHints, containerFactory );
+    }
+
+    /**
+     * Initialize a Shiftr transform with a Spec, optionally compiling the parsed spec.
+     *
+     * @param compiled if true, the parsed spec tree is run through the ShiftrSpecCompiler
+     * @throws com.bazaarvoice.jolt.exception.SpecException for a malformed spec
+     */
+    protected Shiftr( Object spec, boolean compiled ) {
+        this( spec, compiled, null, ContainerFactory.DEFAULT );
+    }
+
+    private Shiftr( Object spec, boolean compiled, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
 
         if ( spec == null ){
             throw new SpecException( "Shiftr expected a spec of Map type, got 'null'." );
@@ -480,7 +525,11 @@ public class Shiftr implements SpecDriven, Transform {
             throw new SpecException( "Shiftr expected a spec of Map type, got " + spec.getClass().getSimpleName() );
         }
 
-        rootSpec = new ShiftrCompositeSpec( ROOT_KEY, (Map<String, Object>) spec );
+        ShiftrSpecBuilder specBuilder = new ShiftrSpecBuilder( sizeHints, containerFactory );
+        ShiftrCompositeSpec interpreted = (ShiftrCompositeSpec) specBuilder.createSpec( ROOT_KEY, spec );
+        rootSpec = compiled ? ShiftrSpecCompiler.compile( interpreted, specBuilder.isInterning() ) : interpreted;
+        walkedPathDepth = WalkedPath.requiredDepth( spec );
+        this.containerFactory = containerFactory;
     }
 
 
@@ -495,15 +544,33 @@ public class Shiftr implements SpecDriven, Transform {
     @Override
     public Object transform( Object input ) {
 
-        Map<String,Object> output = new HashMap<>();
+        Map<String,Object> output = containerFactory.newMap( 1 );
 
         // Create a root LiteralPathElement so that # is useful at the root level
         MatchedElement rootLpe = new MatchedElement( ROOT_KEY );
-        WalkedPath walkedPath = new WalkedPath();
+        WalkedPath walkedPath = new WalkedPath( walkedPathDepth );
         walkedPath.add( input, rootLpe );
 
         rootSpec.apply( ROOT_KEY, Optional.of( input ), walkedPath, output, null );
 
         return output.get( ROOT_KEY );
     }
+
+    /**
+     * This variant of Shiftr compiles its spec into specialized node objects, that do literal lookups
+     *  and writes without the per key dispatch of the interpreted spec tree.
+     *
+     * Output is identical to the plain Shiftr.
+     */
+    public static final class Compiled extends Shiftr {
+
+        @Inject
+        public Compiled( Object spec ) {
+            super( spec, true );
+        }
+
+        public Compiled( Object spec, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+            super( spec, true, sizeHints, containerFactory );
+        }
+    }
 }
@@ -76,6 +76,13 @@ public class Sortr implements Transform {
 
     private final static JsonKeyComparator jsonKeyComparator = new JsonKeyComparator();
 
+    /**
+     * @return the Comparator Sortr orders Map keys with, for anything that needs to produce the same order
+     */
+    public static Comparator<String> keyComparator() {
+        return jsonKeyComparator;
+    }
+
     /**
      * Standard alphabetical sort, with a special case for keys beginning with "~".
      */
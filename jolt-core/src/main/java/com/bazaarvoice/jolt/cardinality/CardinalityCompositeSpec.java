@@ -16,6 +16,7 @@
 package com.bazaarvoice.jolt.cardinality;
 
 import com.bazaarvoice.jolt.common.ComputedKeysComparator;
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.pathelement.AmpPathElement;
 import com.bazaarvoice.jolt.common.pathelement.AtPathElement;
 import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
@@ -52,6 +53,10 @@ public class CardinalityCompositeSpec extends CardinalitySpec {
     private final List<CardinalitySpec> computedChildren;        // children that are regex matches against the input data
 
     public CardinalityCompositeSpec( String rawKey, Map<String, Object> spec ) {
+        this( rawKey, spec, ContainerFactory.DEFAULT );
+    }
+
+    public CardinalityCompositeSpec( String rawKey, Map<String, Object> spec, ContainerFactory containerFactory ) {
         super( rawKey );
 
         Map<String, CardinalitySpec> literals = new HashMap<>();
@@ -64,7 +69,7 @@ public class CardinalityCompositeSpec extends CardinalitySpec {
             throw new SpecException( "@ CardinalityTransform key, can not have children." );
         }
 
-        List<CardinalitySpec> children = createChildren( spec );
+        List<CardinalitySpec> children = createChildren( spec, containerFactory );
 
         if ( children.isEmpty() ) {
             throw new SpecException( "Shift CardinalitySpec format error : CardinalitySpec line with empty {} as value is not valid." );
@@ -100,7 +105,7 @@ public class CardinalityCompositeSpec extends CardinalitySpec {
     /**
      * Recursively walk the spec input tree.
      */
-    private static List<CardinalitySpec> createChildren( Map<String, Object> rawSpec ) {
+    private static List<CardinalitySpec> createChildren( Map<String, Object> rawSpec, ContainerFactory containerFactory ) {
 
         List<CardinalitySpec> children = new ArrayList<>();
         Set<String> actualKeys = new HashSet<>();
@@ -111,9 +116,9 @@ public class CardinalityCompositeSpec extends CardinalitySpec {
 
             CardinalitySpec childSpec;
             if ( rawRhs instanceof Map ) {
-                childSpec = new CardinalityCompositeSpec( keyString, (Map<String, Object>) rawRhs );
+                childSpec = new CardinalityCompositeSpec( keyString, (Map<String, Object>) rawRhs, containerFactory );
             } else {
-                childSpec = new CardinalityLeafSpec( keyString, rawRhs );
+                childSpec = new CardinalityLeafSpec( keyString, rawRhs, containerFactory );
             }
 
             String childCanonicalString = childSpec.pathElement.getCanonicalForm();
@@ -15,11 +15,11 @@
  */
 package com.bazaarvoice.jolt.cardinality;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.tree.MatchedElement;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 import com.bazaarvoice.jolt.exception.SpecException;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -38,9 +38,15 @@ public class CardinalityLeafSpec extends CardinalitySpec {
     }
 
     private CardinalityRelationship cardinalityRelationship;
+    private final ContainerFactory containerFactory;
 
     public CardinalityLeafSpec( String rawKey, Object rhs ) {
+        this( rawKey, rhs, ContainerFactory.DEFAULT );
+    }
+
+    public CardinalityLeafSpec( String rawKey, Object rhs, ContainerFactory containerFactory ) {
         super( rawKey );
+        this.containerFactory = containerFactory;
 
         try {
             cardinalityRelationship = CardinalityRelationship.valueOf( rhs.toString() );
@@ -96,7 +102,7 @@ public class CardinalityLeafSpec extends CardinalitySpec {
             }
             else if ( input instanceof Map || input instanceof String || input instanceof Number || input instanceof Boolean ) {
                 Object one = parentContainer.remove( inputKey );
-                List<Object> tempList =  new ArrayList<>();
+                List<Object> tempList = containerFactory.newList( 1 );
                 tempList.add( one );
                 returnValue = tempList;
 
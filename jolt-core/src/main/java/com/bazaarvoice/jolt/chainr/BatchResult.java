@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.chainr;
+
+/**
+ * Outcome of transforming one document of a batch, see Chainr.transformAll.
+ *
+ * Either the transform produced an output, which may legitimately be null, or it failed with the exception
+ *  it threw, in which case the rest of the batch still ran.
+ */
+public final class BatchResult {
+
+    private final Object output;
+    private final RuntimeException failure;
+
+    private BatchResult( Object output, RuntimeException failure ) {
+        this.output = output;
+        this.failure = failure;
+    }
+
+    public static BatchResult success( Object output ) {
+        return new BatchResult( output, null );
+    }
+
+    public static BatchResult failure( RuntimeException failure ) {
+        return new BatchResult( null, failure );
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * @return the transformed document, or null if the transform failed
+     */
+    public Object getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the exception the transform threw, usually a TransformException, or null if it succeeded.
+     *  An Error, like a StackOverflowError, is reported as the cause of a TransformException.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "success : " + output : "failure : " + failure;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.chainr;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JoltTransform;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chainr that remembers the outputs of its recent transforms, so that transforming a document it has already seen,
+ *  with the same context, returns the remembered output instead of running the transforms again.
+ *
+ * Entries are keyed by the content of the input and the context, not their identity : two documents match if they
+ *  have the same keys in the same order with equal values.  The cache keeps a copy of each input to check that, and
+ *  a copy of each output, and hands out a fresh copy of the output on every hit, so neither the caller changing its
+ *  input afterwards, nor changing the output it got, affects what the cache returns later.  The copies are
+ *  LinkedHashMaps and ArrayLists, whatever kind of Maps and Lists the input and output were made of.
+ *
+ * The cache holds at most maxEntries entries, evicting the least recently used one when it is full.  Only the two
+ *  full transform(...) calls and transformAll go through the cache, the partial transform( from, to, ... ) calls do not.
+ *
+ * Caching only makes sense if the transforms are pure functions of the input and the context, which the stock ones
+ *  are.  Only plain JSON, Maps with String keys, Lists, Strings, Numbers, Booleans and nulls, is cached : a call
+ *  whose input, context or output holds anything else, like a service object in the context, just runs the
+ *  transforms, and counts as neither a hit nor a miss.
+ *
+ * Thread safe, like Chainr itself.  Build one with ChainrBuilder.cacheResults( maxEntries ).
+ */
+public class CachingChainr extends Chainr {
+
+    private final int maxEntries;
+    private final LinkedHashMap<CacheKey, Object> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    // stands in for a null output, so that a null from the cache can mean "not cached"
+    private static final Object NULL_OUTPUT = new Object();
+
+    public CachingChainr( List<JoltTransform> joltTransforms, int maxEntries ) {
+        super( joltTransforms );
+
+        if ( maxEntries <= 0 ) {
+            throw new IllegalArgumentException( "CachingChainr requires a positive maxEntries, got " + maxEntries );
+        }
+        this.maxEntries = maxEntries;
+
+        // access ordered, so the eldest entry is the least recently used one
+        this.cache = new LinkedHashMap<CacheKey, Object>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<CacheKey, Object> eldest ) {
+                if ( size() > CachingChainr.this.maxEntries ) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Object transform( Object input ) {
+        return transform( input, null );
+    }
+
+    @Override
+    public Object transform( Object input, Map<String, Object> context ) {
+
+        // anything else may not be copyable, and its equals is usually identity, so it could never hit anyway
+        if ( ! isPlainJson( input ) || ! isPlainJson( context ) ) {
+            return super.transform( input, context );
+        }
+
+        CacheKey key = new CacheKey( input, context );
+
+        Object cached;
+        synchronized ( cache ) {
+            cached = cache.get( key );
+        }
+        if ( cached != null ) {
+            hitCount.incrementAndGet();
+            return cached == NULL_OUTPUT ? null : jsonCopy( cached );
+        }
+        missCount.incrementAndGet();
+
+        // copy the input before the transforms get a chance to change it in place
+        CacheKey storedKey = key.copy();
+        Object output = super.transform( input, context );
+        if ( ! isPlainJson( output ) ) {
+            return output;
+        }
+        Object storedOutput = output == null ? NULL_OUTPUT : jsonCopy( output );
+
+        synchronized ( cache ) {
+            cache.put( storedKey, storedOutput );
+        }
+        return output;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return how many outputs are currently cached
+     */
+    public int size() {
+        synchronized ( cache ) {
+            return cache.size();
+        }
+    }
+
+    public void clear() {
+        synchronized ( cache ) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Input and context, compared by content, with Map key order counting.
+     */
+    private static final class CacheKey {
+
+        private final Object input;
+        private final Map<String, Object> context;
+        private final int hash;
+
+        private CacheKey( Object input, Map<String, Object> context ) {
+            this( input, context, 31 * orderedHash( input ) + orderedHash( context ) );
+        }
+
+        private CacheKey( Object input, Map<String, Object> context, int hash ) {
+            this.input = input;
+            this.context = context;
+            this.hash = hash;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private CacheKey copy() {
+            return new CacheKey( jsonCopy( input ), (Map<String, Object>) jsonCopy( context ), hash );
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if ( ! ( o instanceof CacheKey ) ) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return hash == other.hash && orderedEquals( input, other.input ) && orderedEquals( context, other.context );
+        }
+    }
+
+    private static boolean isPlainJson( Object json ) {
+        if ( json instanceof Map ) {
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) json ).entrySet() ) {
+                if ( ! ( entry.getKey() instanceof String ) || ! isPlainJson( entry.getValue() ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if ( json instanceof List ) {
+            for ( Object element : (List<?>) json ) {
+                if ( ! isPlainJson( element ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return json == null || json instanceof String || json instanceof Boolean ||
+               json instanceof Integer || json instanceof Long || json instanceof Double || json instanceof Float ||
+               json instanceof Short || json instanceof Byte || json instanceof BigInteger || json instanceof BigDecimal;
+    }
+
+    /**
+     * Copies plain JSON structurally, rather than with DeepCopy, as the Maps and Lists may be views, eg of a JsonNode
+     *  or CopyOnWrite tree, that can not be serialized, or that would be shared rather than copied.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static Object jsonCopy( Object json ) {
+        if ( json instanceof Map ) {
+            Map<String, Object> map = (Map<String, Object>) json;
+            Map<String, Object> copy = new LinkedHashMap<>( map.size() < 3 ? map.size() + 1 : (int) ( map.size() / 0.75f + 1.0f ) );
+            for ( Map.Entry<String, Object> entry : map.entrySet() ) {
+                copy.put( entry.getKey(), jsonCopy( entry.getValue() ) );
+            }
+            return copy;
+        }
+        if ( json instanceof List ) {
+            List<?> list = (List<?>) json;
+            List<Object> copy = new ArrayList<>( list.size() );
+            for ( Object element : list ) {
+                copy.add( jsonCopy( element ) );
+            }
+            return copy;
+        }
+        // isPlainJson has made sure everything else is immutable
+        return json;
+    }
+
+    private static int orderedHash( Object json ) {
+        if ( json instanceof Map ) {
+            int hash = 1;
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) json ).entrySet() ) {
+                hash = 31 * hash + ( orderedHash( entry.getKey() ) ^ orderedHash( entry.getValue() ) );
+            }
+            return hash;
+        }
+        if ( json instanceof List ) {
+            int hash = 7;
+            for ( Object element : (List<?>) json ) {
+                hash = 31 * hash + orderedHash( element );
+            }
+            return hash;
+        }
+        return json == null ? 0 : json.hashCode();
+    }
+
+    private static boolean orderedEquals( Object a, Object b ) {
+        if ( a == b ) {
+            return true;
+        }
+        if ( a instanceof Map && b instanceof Map ) {
+            Map<?, ?> mapA = (Map<?, ?>) a;
+            Map<?, ?> mapB = (Map<?, ?>) b;
+            if ( mapA.size() != mapB.size() ) {
+                return false;
+            }
+            Iterator<? extends Map.Entry<?, ?>> iterB = mapB.entrySet().iterator();
+            for ( Map.Entry<?, ?> entryA : mapA.entrySet() ) {
+                Map.Entry<?, ?> entryB = iterB.next();
+                if ( ! orderedEquals( entryA.getKey(), entryB.getKey() ) || ! orderedEquals( entryA.getValue(), entryB.getValue() ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if ( a instanceof List && b instanceof List ) {
+            List<?> listA = (List<?>) a;
+            List<?> listB = (List<?>) b;
+            if ( listA.size() != listB.size() ) {
+                return false;
+            }
+            Iterator<?> iterB = listB.iterator();
+            for ( Object elementA : listA ) {
+                if ( ! orderedEquals( elementA, iterB.next() ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if ( a instanceof Map || a instanceof List || b instanceof Map || b instanceof List ) {
+            return false;
+        }
+        return a != null && a.equals( b );
+    }
+}
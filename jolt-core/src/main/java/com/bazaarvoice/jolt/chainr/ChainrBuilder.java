@@ -15,14 +15,22 @@
  */
 package com.bazaarvoice.jolt.chainr;
 
+import com.bazaarvoice.jolt.CardinalityTransform;
 import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.Defaultr;
 import com.bazaarvoice.jolt.JoltTransform;
+import com.bazaarvoice.jolt.Modifier;
+import com.bazaarvoice.jolt.Removr;
+import com.bazaarvoice.jolt.Shiftr;
 import com.bazaarvoice.jolt.chainr.instantiator.ChainrInstantiator;
 import com.bazaarvoice.jolt.chainr.instantiator.DefaultChainrInstantiator;
 import com.bazaarvoice.jolt.chainr.spec.ChainrEntry;
 import com.bazaarvoice.jolt.chainr.spec.ChainrSpec;
+import com.bazaarvoice.jolt.common.ContainerFactory;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ChainrBuilder {
@@ -30,6 +38,12 @@ public class ChainrBuilder {
     private final Object chainrSpecObj;
     protected ChainrInstantiator chainrInstantiator = new DefaultChainrInstantiator();
     private ClassLoader classLoader = ChainrBuilder.class.getClassLoader();
+    private boolean adaptiveContainerSizing = false;
+    private ContainerFactory containerFactory = ContainerFactory.DEFAULT;
+    private boolean fuseShifts = false;
+    private boolean fuseRemoves = false;
+    private int cacheMaxEntries = 0;
+    private List<FusionDecision> fusionReport = Collections.emptyList();
 
     /**
      * Initialize a Chainr to run a list of Transforms.
@@ -65,15 +79,187 @@ public class ChainrBuilder {
         return this;
     }
 
+    /**
+     * Have the stock Shiftr transforms of the Chainr record the sizes of the output Maps and Lists they build,
+     *  and pre-size them on later transforms.
+     *
+     * Worth it for a long lived Chainr that sees similarly shaped inputs, with large fan-in outputs.
+     * Custom transforms, and transforms created by a custom loader, are not affected.
+     */
+    public ChainrBuilder adaptiveContainerSizing( boolean adaptiveContainerSizing ) {
+        this.adaptiveContainerSizing = adaptiveContainerSizing;
+        return this;
+    }
+
+    /**
+     * Set the ContainerFactory the stock Shiftr, Defaultr, modify-* and Cardinality transforms of the Chainr create
+     *  their output Maps and Lists with.  If one is not set, defaults to ContainerFactory.DEFAULT.
+     *
+     * Custom transforms, and transforms created by a custom loader, are not affected.
+     */
+    public ChainrBuilder containerFactory( ContainerFactory containerFactory ) {
+        if ( containerFactory == null ) {
+            throw new IllegalArgumentException( "ChainrBuilder requires a non-null containerFactory." );
+        }
+        this.containerFactory = containerFactory;
+        return this;
+    }
+
+    /**
+     * Have adjacent stock Shiftr entries of the chainr spec fused into a single Shiftr where that can be done
+     *  statically, so the data is only walked once.  See ShiftrFusion for when that is possible.
+     *
+     * Entries that can not be fused run as they would have otherwise.  After build(), getFusionReport() says
+     *  which entries were fused and why the others were not.
+     */
+    public ChainrBuilder fuseShifts( boolean fuseShifts ) {
+        this.fuseShifts = fuseShifts;
+        return this;
+    }
+
+    /**
+     * Have adjacent stock Removr entries of the chainr spec merged into a single Removr, so the data is only walked
+     *  once.  See RemovrFusion for when that is possible.
+     *
+     * Like fuseShifts, entries that can not be fused run as they would have otherwise, and show up in getFusionReport().
+     */
+    public ChainrBuilder fuseRemoves( boolean fuseRemoves ) {
+        this.fuseRemoves = fuseRemoves;
+        return this;
+    }
+
+    /**
+     * Have the built Chainr remember the outputs of its last maxEntries transforms, and return those again for inputs
+     *  and contexts it has already seen, see CachingChainr.  0, the default, turns caching off.
+     */
+    public ChainrBuilder cacheResults( int maxEntries ) {
+        if ( maxEntries < 0 ) {
+            throw new IllegalArgumentException( "ChainrBuilder requires a non-negative cache size, got " + maxEntries );
+        }
+        this.cacheMaxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * @return what the last build() decided for each pair of adjacent fusable entries, empty if no fusion is turned on
+     */
+    public List<FusionDecision> getFusionReport() {
+        return fusionReport;
+    }
+
     public Chainr build() {
         ChainrSpec chainrSpec = new ChainrSpec( chainrSpecObj, classLoader );
-        List<JoltTransform> transforms = new ArrayList<>( chainrSpec.getChainrEntries().size() );
-        for ( ChainrEntry entry : chainrSpec.getChainrEntries() ) {
+        List<ChainrEntry> entries = chainrSpec.getChainrEntries();
+        List<JoltTransform> transforms = new ArrayList<>( entries.size() );
+        List<FusionDecision> report = new ArrayList<>();
+
+        int index = 0;
+        while ( index < entries.size() ) {
+            ChainrEntry entry = entries.get( index );
+
+            Class<? extends JoltTransform> fusionKind = fusionKind( entry );
+            if ( fusionKind != null ) {
+                // fuse as many of the following entries of the same kind into this one as possible
+                Object spec = entry.getSpec();
+                int next = index + 1;
+                while ( next < entries.size() && fusionKind == fusionKind( entries.get( next ) ) ) {
+                    try {
+                        spec = fuse( fusionKind, spec, entries.get( next ).getSpec() );
+                        report.add( new FusionDecision( index, next, null ) );
+                        next++;
+                    }
+                    catch ( NotFusableException nfe ) {
+                        report.add( new FusionDecision( index, next, nfe.getMessage() ) );
+                        break;
+                    }
+                }
 
-            JoltTransform transform = chainrInstantiator.hydrateTransform( entry );
+                if ( next > index + 1 ) {
+                    transforms.add( fusionKind == Removr.class ? new Removr( spec ) : hydrateShiftr( entry.getJoltTransformClass(), spec ) );
+                    index = next;
+                    continue;
+                }
+            }
+
+            JoltTransform transform = hydrateStockTransform( entry );
+            if ( transform == null ) {
+                transform = chainrInstantiator.hydrateTransform( entry );
+            }
             transforms.add( transform );
+            index++;
         }
 
+        fusionReport = Collections.unmodifiableList( report );
+        if ( cacheMaxEntries > 0 ) {
+            return new CachingChainr( transforms, cacheMaxEntries );
+        }
         return new Chainr( transforms );
     }
+
+    /**
+     * @return Shiftr.class or Removr.class if the entry can be fused with neighbours of the same kind, otherwise null
+     */
+    private Class<? extends JoltTransform> fusionKind( ChainrEntry entry ) {
+
+        if ( chainrInstantiator.getClass() != DefaultChainrInstantiator.class ) {
+            return null;
+        }
+
+        Class<? extends JoltTransform> transformClass = entry.getJoltTransformClass();
+        if ( fuseShifts && ( transformClass == Shiftr.class || transformClass == Shiftr.Compiled.class ) ) {
+            return Shiftr.class;
+        }
+        if ( fuseRemoves && transformClass == Removr.class ) {
+            return Removr.class;
+        }
+        return null;
+    }
+
+    private static Object fuse( Class<? extends JoltTransform> fusionKind, Object firstSpec, Object secondSpec ) throws NotFusableException {
+        return fusionKind == Removr.class ? RemovrFusion.fuse( firstSpec, secondSpec ) : ShiftrFusion.fuse( firstSpec, secondSpec );
+    }
+
+    private JoltTransform hydrateShiftr( Class<? extends JoltTransform> transformClass, Object spec ) {
+        ContainerSizeHints sizeHints = adaptiveContainerSizing ? new ContainerSizeHints() : null;
+        if ( transformClass == Shiftr.Compiled.class ) {
+            return new Shiftr.Compiled( spec, sizeHints, containerFactory );
+        }
+        return new Shiftr( spec, sizeHints, containerFactory );
+    }
+
+    /**
+     * @return a stock transform configured with this builder's options, or null to use the chainrInstantiator
+     */
+    private JoltTransform hydrateStockTransform( ChainrEntry entry ) {
+
+        boolean customContainers = containerFactory != ContainerFactory.DEFAULT;
+        if ( ! ( adaptiveContainerSizing || customContainers ) || chainrInstantiator.getClass() != DefaultChainrInstantiator.class ) {
+            return null;
+        }
+
+        Class<? extends JoltTransform> transformClass = entry.getJoltTransformClass();
+
+        if ( transformClass == Shiftr.class || transformClass == Shiftr.Compiled.class ) {
+            return hydrateShiftr( transformClass, entry.getSpec() );
+        }
+        if ( ! customContainers ) {
+            return null;
+        }
+        if ( transformClass == Defaultr.class ) {
+            return new Defaultr( entry.getSpec(), containerFactory );
+        }
+        if ( transformClass == Modifier.Overwritr.class ) {
+            return new Modifier.Overwritr( entry.getSpec(), containerFactory );
+        }
+        if ( transformClass == Modifier.Defaultr.class ) {
+            return new Modifier.Defaultr( entry.getSpec(), containerFactory );
+        }
+        if ( transformClass == Modifier.Definr.class ) {
+            return new Modifier.Definr( entry.getSpec(), containerFactory );
+        }
+        if ( transformClass == CardinalityTransform.class ) {
+            return new CardinalityTransform( entry.getSpec(), containerFactory );
+        }
+        return null;
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.chainr;
+
+/**
+ * What ChainrBuilder decided for one pair of adjacent, fusable entries of a chainr spec.
+ */
+public final class FusionDecision {
+
+    private final int firstEntry;
+    private final int secondEntry;
+    private final String reason;
+
+    FusionDecision( int firstEntry, int secondEntry, String reason ) {
+        this.firstEntry = firstEntry;
+        this.secondEntry = secondEntry;
+        this.reason = reason;
+    }
+
+    /**
+     * @return index in the chainr spec of the first entry of the fused run this decision is about
+     */
+    public int getFirstEntry() {
+        return firstEntry;
+    }
+
+    /**
+     * @return index in the chainr spec of the entry that was or was not fused into that run
+     */
+    public int getSecondEntry() {
+        return secondEntry;
+    }
+
+    public boolean isFused() {
+        return reason == null;
+    }
+
+    /**
+     * @return why the entries were not fused, or null if they were
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "entries " + firstEntry + " and " + secondEntry + ( isFused() ? " : fused" : " : not fused, " + reason );
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.chainr;
+
+import com.bazaarvoice.jolt.Removr;
+import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
+import com.bazaarvoice.jolt.exception.SpecException;
+import com.bazaarvoice.jolt.removr.spec.RemovrSpec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Merges two adjacent Removr specs into one spec, so that a Chainr walks the data once instead of twice.
+ *
+ * A Removr composite applies every child that matches a key, not just the first one, and only ever takes keys away.
+ *  So for Maps, removing with one spec and then the other removes exactly what a spec holding the children of both
+ *  removes.  Where both specs have the same key, the children are merged, and a leaf wins over a composite, as
+ *  there is nothing left to walk into once the key is gone.
+ *
+ * Lists are the exception : removing an index shifts every later index, so a literal index like "1" in one spec
+ *  means something different depending on whether the other spec ran first.  Specs with keys that could be list
+ *  indexes are therefore not fused.
+ */
+public final class RemovrFusion {
+
+    private RemovrFusion() {}
+
+    /**
+     * @param firstSpec the spec of the Removr that runs first
+     * @param secondSpec the spec of the Removr that runs on the output of the first one
+     * @return a Removr spec that does the work of both
+     * @throws NotFusableException if the two specs can not be fused
+     * @throws SpecException if either spec is not a valid Removr spec, exactly like building the Removr would
+     */
+    static Map<String, Object> fuse( Object firstSpec, Object secondSpec ) throws NotFusableException {
+
+        // Fail on bad specs the same way the unfused Removrs would
+        new Removr( firstSpec );
+        new Removr( secondSpec );
+
+        @SuppressWarnings( "unchecked" )
+        Map<String, Object> first = (Map<String, Object>) firstSpec;
+        @SuppressWarnings( "unchecked" )
+        Map<String, Object> second = (Map<String, Object>) secondSpec;
+
+        verifyNoIndexKeys( first );
+        verifyNoIndexKeys( second );
+
+        return merge( first, second );
+    }
+
+    private static void verifyNoIndexKeys( Map<String, Object> rawSpec ) throws NotFusableException {
+
+        for ( Map.Entry<String, Object> entry : rawSpec.entrySet() ) {
+
+            for ( String key : entry.getKey().split( "\\|" ) ) {
+                if ( RemovrSpec.parse( key ) instanceof LiteralPathElement && isNonNegativeInteger( key ) ) {
+                    throw new NotFusableException( "the key '" + key + "' can be a list index, which the other spec may shift" );
+                }
+            }
+
+            if ( entry.getValue() instanceof Map ) {
+                @SuppressWarnings( "unchecked" )
+                Map<String, Object> childSpec = (Map<String, Object>) entry.getValue();
+                verifyNoIndexKeys( childSpec );
+            }
+        }
+    }
+
+    private static boolean isNonNegativeInteger( String key ) {
+        try {
+            return Integer.parseInt( key ) >= 0;
+        }
+        catch ( NumberFormatException nfe ) {
+            return false;
+        }
+    }
+
+    private static Map<String, Object> merge( Map<String, Object> first, Map<String, Object> second ) {
+
+        Map<String, Object> merged = new LinkedHashMap<>( first );
+
+        for ( Map.Entry<String, Object> entry : second.entrySet() ) {
+
+            Object firstChild = merged.get( entry.getKey() );
+            Object secondChild = entry.getValue();
+
+            if ( firstChild == null ) {
+                merged.put( entry.getKey(), secondChild );
+            }
+            else if ( firstChild instanceof Map && secondChild instanceof Map ) {
+                @SuppressWarnings( "unchecked" )
+                Map<String, Object> mergedChild = merge( (Map<String, Object>) firstChild, (Map<String, Object>) secondChild );
+                merged.put( entry.getKey(), mergedChild );
+            }
+            else {
+                // at least one of them removes the whole key
+                merged.put( entry.getKey(), "" );
+            }
+        }
+
+        return merged;
+    }
+}
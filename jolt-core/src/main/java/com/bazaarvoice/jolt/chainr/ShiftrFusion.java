@@ -0,0 +1,324 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.chainr;
+
+import com.bazaarvoice.jolt.Shiftr;
+import com.bazaarvoice.jolt.common.PathElementBuilder;
+import com.bazaarvoice.jolt.common.pathelement.AmpPathElement;
+import com.bazaarvoice.jolt.common.pathelement.ArrayPathElement;
+import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
+import com.bazaarvoice.jolt.common.pathelement.PathElement;
+import com.bazaarvoice.jolt.common.reference.AmpReference;
+import com.bazaarvoice.jolt.exception.SpecException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static com.bazaarvoice.jolt.common.SpecStringParser.fixLeadingBracketSugar;
+import static com.bazaarvoice.jolt.common.SpecStringParser.parseDotNotation;
+import static com.bazaarvoice.jolt.common.SpecStringParser.stringIterator;
+
+/**
+ * Statically composes two adjacent Shiftr specs into one spec, so that a Chainr walks the data once instead of twice.
+ *
+ * This only works when the second spec is "plain" :
+ *  - all of its LHS keys are literals, no "*", "&", "@", "$", "#" or transposes
+ *  - its output paths are literals, explicit array indexes like "[2]", and & references to its own literal keys
+ *  - no two of its output paths overlap, so every output location is fed by exactly one of its leaves
+ *
+ * Then the second spec is just a lookup table from "where the first spec wrote something" to "where it ends up",
+ *  and every output path of the first spec can be rewritten ahead of time :
+ *  - the first spec writes to "rating.value.x", and the second spec has "rating" : { "value" : "Rating.Value" }
+ *     then the fused spec writes to "Rating.Value.x"
+ *  - the first spec writes somewhere the second spec never reads, then the fused spec does not write it at all
+ *
+ * The part of a first spec output path that the second spec reads has to be literal keys, and has to end on a
+ *  leaf of the second spec.  Anything past that, including &, [#2], [] and @() references, is carried over as is.
+ *
+ * The fused spec produces the same output as running the two specs one after the other, except that the key order
+ *  of the output Maps can be different.  If the specs can not be fused, a NotFusableException says why.
+ */
+public final class ShiftrFusion {
+
+    private ShiftrFusion() {}
+
+    /**
+     * @param firstSpec the spec of the Shiftr that runs first
+     * @param secondSpec the spec of the Shiftr that runs on the output of the first one
+     * @return a Shiftr spec that does the work of both
+     * @throws NotFusableException if the two specs can not be fused
+     * @throws SpecException if either spec is not a valid Shiftr spec, exactly like building the Shiftr would
+     */
+    static Map<String, Object> fuse( Object firstSpec, Object secondSpec ) throws NotFusableException {
+
+        // Fail on bad specs the same way the unfused Shiftrs would, rather than fusing away part of the problem
+        new Shiftr( firstSpec );
+        new Shiftr( secondSpec );
+
+        List<List<String>> allOutputs = new ArrayList<>();
+        @SuppressWarnings( "unchecked" )
+        Node secondRoot = buildNode( (Map<String, Object>) secondSpec, new ArrayList<String>(), allOutputs );
+        verifyNoOverlap( allOutputs );
+
+        @SuppressWarnings( "unchecked" )
+        Map<String, Object> fused = rewriteSpec( (Map<String, Object>) firstSpec, secondRoot );
+        return fused;
+    }
+
+    /**
+     * One level of the second spec : either a composite with literal children, or a leaf with resolved output paths.
+     */
+    private static final class Node {
+
+        private final Map<String, Node> children;
+        private final List<List<String>> outputs;
+
+        private Node( Map<String, Node> children, List<List<String>> outputs ) {
+            this.children = children;
+            this.outputs = outputs;
+        }
+
+        private boolean isLeaf() {
+            return outputs != null;
+        }
+    }
+
+    private static Node buildNode( Map<String, Object> rawSpec, List<String> lhsPath, List<List<String>> allOutputs ) throws NotFusableException {
+
+        Map<String, Node> children = new LinkedHashMap<>();
+
+        for ( Map.Entry<String, Object> entry : rawSpec.entrySet() ) {
+            verifyNoEscapes( entry.getKey() );
+
+            // unwrap the syntactic sugar of the OR, the same way the SpecBuilder does
+            for ( String key : entry.getKey().split( "\\|" ) ) {
+
+                if ( ! ( PathElementBuilder.parseSingleKeyLHS( key ) instanceof LiteralPathElement ) ) {
+                    throw new NotFusableException( "the second spec has the non literal key '" + key + "'" );
+                }
+
+                lhsPath.add( key );
+
+                Node child;
+                if ( entry.getValue() instanceof Map ) {
+                    @SuppressWarnings( "unchecked" )
+                    Map<String, Object> childSpec = (Map<String, Object>) entry.getValue();
+                    child = buildNode( childSpec, lhsPath, allOutputs );
+                }
+                else {
+                    List<List<String>> outputs = resolveOutputs( entry.getValue(), lhsPath );
+                    allOutputs.addAll( outputs );
+                    child = new Node( null, outputs );
+                }
+
+                lhsPath.remove( lhsPath.size() - 1 );
+                children.put( key, child );
+            }
+        }
+
+        return new Node( children, null );
+    }
+
+    private static List<List<String>> resolveOutputs( Object rhs, List<String> lhsPath ) throws NotFusableException {
+
+        if ( rhs == null ) {
+            return Collections.emptyList();
+        }
+        if ( rhs instanceof String ) {
+            return Collections.singletonList( resolveOutput( (String) rhs, lhsPath ) );
+        }
+
+        List<List<String>> outputs = new ArrayList<>();
+        for ( Object dotNotation : (List<?>) rhs ) {
+            outputs.add( resolveOutput( (String) dotNotation, lhsPath ) );
+        }
+        return outputs;
+    }
+
+    /**
+     * Evaluate an output path of the second spec, which only depends on the literal keys above it.
+     */
+    private static List<String> resolveOutput( String dotNotation, List<String> lhsPath ) throws NotFusableException {
+
+        verifyNoEscapes( dotNotation );
+
+        List<String> resolved = new ArrayList<>();
+        for ( String key : splitPath( dotNotation ) ) {
+
+            PathElement pathElement = PathElementBuilder.parseSingleKeyLHS( key );
+
+            if ( pathElement instanceof LiteralPathElement ) {
+                resolved.add( key );
+            }
+            else if ( pathElement instanceof ArrayPathElement && ( (ArrayPathElement) pathElement ).isExplicitArrayIndex() ) {
+                resolved.add( key );
+            }
+            else if ( pathElement instanceof AmpPathElement ) {
+                resolved.add( resolveAmp( (AmpPathElement) pathElement, lhsPath, dotNotation ) );
+            }
+            else {
+                throw new NotFusableException( "the second spec writes to '" + dotNotation + "', which has the dynamic key '" + key + "'" );
+            }
+        }
+
+        if ( resolved.isEmpty() ) {
+            throw new NotFusableException( "the second spec writes to its output root" );
+        }
+        return resolved;
+    }
+
+    private static String resolveAmp( AmpPathElement pathElement, List<String> lhsPath, String dotNotation ) throws NotFusableException {
+
+        StringBuilder sb = new StringBuilder();
+        for ( Object token : pathElement.getTokens() ) {
+            if ( token instanceof String ) {
+                sb.append( token );
+                continue;
+            }
+
+            // at a leaf, &0 is the leaf's own key
+            AmpReference ref = (AmpReference) token;
+            int lhsIndex = lhsPath.size() - 1 - ref.getPathIndex();
+            if ( ref.getKeyGroup() != 0 || lhsIndex < 0 ) {
+                throw new NotFusableException( "the second spec writes to '" + dotNotation + "', which references " + ref.getCanonicalForm() );
+            }
+            sb.append( lhsPath.get( lhsIndex ) );
+        }
+
+        // the key has to stay one plain key once it is written out as part of a dot notation path
+        String key = sb.toString();
+        if ( key.isEmpty() || key.indexOf( '.' ) >= 0 || ! ( PathElementBuilder.parseSingleKeyLHS( key ) instanceof LiteralPathElement ) ) {
+            throw new NotFusableException( "the second spec writes to '" + dotNotation + "', which resolves to the key '" + key + "'" );
+        }
+        return key;
+    }
+
+    private static void verifyNoOverlap( List<List<String>> allOutputs ) throws NotFusableException {
+        for ( int i = 0; i < allOutputs.size(); i++ ) {
+            for ( int j = i + 1; j < allOutputs.size(); j++ ) {
+                List<String> a = allOutputs.get( i );
+                List<String> b = allOutputs.get( j );
+                List<String> shorter = a.size() <= b.size() ? a : b;
+                List<String> longer = shorter == a ? b : a;
+                if ( longer.subList( 0, shorter.size() ).equals( shorter ) ) {
+                    throw new NotFusableException( "the second spec writes to both '" + join( a ) + "' and '" + join( b ) + "'" );
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> rewriteSpec( Map<String, Object> firstSpec, Node secondRoot ) throws NotFusableException {
+
+        Map<String, Object> fused = new LinkedHashMap<>();
+        for ( Map.Entry<String, Object> entry : firstSpec.entrySet() ) {
+            if ( entry.getValue() instanceof Map ) {
+                @SuppressWarnings( "unchecked" )
+                Map<String, Object> childSpec = (Map<String, Object>) entry.getValue();
+                fused.put( entry.getKey(), rewriteSpec( childSpec, secondRoot ) );
+            }
+            else {
+                fused.put( entry.getKey(), rewriteRhs( entry.getValue(), secondRoot ) );
+            }
+        }
+        return fused;
+    }
+
+    private static Object rewriteRhs( Object rhs, Node secondRoot ) throws NotFusableException {
+
+        if ( rhs == null ) {
+            return null;
+        }
+
+        List<String> rewritten = new ArrayList<>();
+        if ( rhs instanceof String ) {
+            rewritten.addAll( rewriteOutput( (String) rhs, secondRoot ) );
+        }
+        else {
+            for ( Object dotNotation : (List<?>) rhs ) {
+                rewritten.addAll( rewriteOutput( (String) dotNotation, secondRoot ) );
+            }
+        }
+
+        // no outputs left means "match, but do not write", which is what a null RHS does
+        if ( rewritten.isEmpty() ) {
+            return null;
+        }
+        return rewritten.size() == 1 ? rewritten.get( 0 ) : rewritten;
+    }
+
+    /**
+     * @return the output paths of the second spec that the data written to the given path of the first spec ends up at
+     */
+    private static List<String> rewriteOutput( String dotNotation, Node secondRoot ) throws NotFusableException {
+
+        verifyNoEscapes( dotNotation );
+        List<String> keys = splitPath( dotNotation );
+
+        Node node = secondRoot;
+        for ( int index = 0; index < keys.size(); index++ ) {
+
+            String key = keys.get( index );
+            if ( ! ( PathElementBuilder.parseSingleKeyLHS( key ) instanceof LiteralPathElement ) ) {
+                throw new NotFusableException( "the first spec writes to '" + dotNotation + "', which has the dynamic key '" + key +
+                                               "' where the second spec reads" );
+            }
+
+            node = node.children.get( key );
+            if ( node == null ) {
+                // the second spec never reads this data
+                return Collections.emptyList();
+            }
+
+            if ( node.isLeaf() ) {
+                List<String> rest = keys.subList( index + 1, keys.size() );
+                List<String> rewritten = new ArrayList<>( node.outputs.size() );
+                for ( List<String> output : node.outputs ) {
+                    List<String> path = new ArrayList<>( output );
+                    path.addAll( rest );
+                    rewritten.add( join( path ) );
+                }
+                return rewritten;
+            }
+        }
+
+        throw new NotFusableException( "the first spec writes to '" + dotNotation + "', which the second spec walks into" );
+    }
+
+    private static List<String> splitPath( String dotNotation ) {
+        return parseDotNotation( new LinkedList<String>(), stringIterator( fixLeadingBracketSugar( dotNotation ) ), dotNotation );
+    }
+
+    private static String join( List<String> keys ) {
+        StringBuilder sb = new StringBuilder();
+        for ( String key : keys ) {
+            if ( sb.length() > 0 ) {
+                sb.append( '.' );
+            }
+            sb.append( key );
+        }
+        return sb.toString();
+    }
+
+    private static void verifyNoEscapes( String key ) throws NotFusableException {
+        if ( key.indexOf( '\\' ) >= 0 ) {
+            throw new NotFusableException( "'" + key + "' has escaped characters" );
+        }
+    }
+}
@@ -49,6 +49,7 @@ public class ChainrEntry {
     static {
         HashMap<String, String> temp = new HashMap<>();
         temp.put( "shift", Shiftr.class.getName() );
+        temp.put( "shift-compiled-beta", Shiftr.Compiled.class.getName() );
         temp.put( "default", Defaultr.class.getName() );
         temp.put( "modify-overwrite-beta", Modifier.Overwritr.class.getName() );
         temp.put( "modify-default-beta", Modifier.Defaultr.class.getName() );
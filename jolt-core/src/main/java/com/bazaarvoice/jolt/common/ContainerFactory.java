@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the Maps and Lists that transforms build their output from.
+ *
+ * The stock transforms use DEFAULT unless configured otherwise, eg via ChainrBuilder.containerFactory(...).
+ *  Shiftr, Defaultr, the modify-* Modifiers and CardinalityTransform take one.  Removr only removes, and Sortr
+ *  always builds LinkedHashMaps, as its output order is the whole point.
+ *  Plugging in a different factory lets a workload use compact small Maps, sorted Maps, pre-sized Maps, etc.
+ *
+ * Whatever is returned has to be mutable, and the Maps have to accept any String key.
+ * Implementations are shared by every transform that uses them, so they have to be thread safe.
+ */
+public interface ContainerFactory {
+
+    /**
+     * Stock behavior : insertion ordered LinkedHashMaps and ArrayLists.
+     */
+    ContainerFactory DEFAULT = new ContainerFactory() {
+
+        @Override
+        public Map<String, Object> newMap( int expectedSize ) {
+            if ( expectedSize <= 0 ) {
+                return new LinkedHashMap<>();
+            }
+            return new LinkedHashMap<>( expectedSize < 3 ? expectedSize + 1 : (int) ( expectedSize / 0.75f + 1.0f ) );
+        }
+
+        @Override
+        public List<Object> newList( int expectedSize ) {
+            return expectedSize <= 0 ? new ArrayList<>() : new ArrayList<>( expectedSize );
+        }
+    };
+
+    /**
+     * @param expectedSize how many entries the Map is expected to hold, or 0 if unknown
+     * @return new mutable Map
+     */
+    Map<String, Object> newMap( int expectedSize );
+
+    /**
+     * @param expectedSize how many elements the List is expected to hold, or 0 if unknown
+     * @return new mutable List
+     */
+    List<Object> newList( int expectedSize );
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Copy-on-write views of Map / List JSON trees, so that the transforms that change their input in place, like
+ *  Defaultr, Removr, CardinalityTransform and Modifier, can be run on a shared document without cloning it first.
+ *
+ * A view reads through to the container it wraps, until the first time it is changed.  Then it makes a shallow
+ *  copy of that one container and works on the copy from there on.  Containers read out of a view are themselves
+ *  wrapped in views, so a transform only ever copies the containers it actually changes, and every subtree it does
+ *  not change stays shared with the original.
+ *
+ * <pre>
+ *   Object output = defaultr.transform( CopyOnWrite.wrap( cachedDocument ) );   // cachedDocument is left as it was
+ * </pre>
+ *
+ * The output is a tree of views, which behaves like any other Map / List tree, as long as the original is not
+ *  changed while the views are in use.  Like the LinkedHashMaps and ArrayLists they stand in for, views are not
+ *  thread safe, but any number of threads can each wrap the same original.
+ */
+public final class CopyOnWrite {
+
+    private CopyOnWrite() {}
+
+    /**
+     * @param json a Map / List JSON tree, or a scalar
+     * @return a copy-on-write view of the tree, or the scalar itself
+     */
+    @SuppressWarnings( "unchecked" )
+    public static Object wrap( Object json ) {
+        if ( json instanceof CowMap || json instanceof CowList ) {
+            return json;
+        }
+        if ( json instanceof Map ) {
+            return new CowMap( (Map<String, Object>) json );
+        }
+        if ( json instanceof List ) {
+            return new CowList( (List<Object>) json );
+        }
+        return json;
+    }
+
+    /**
+     * Map view that reads from the original until it is changed.
+     */
+    private static final class CowMap extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> original;
+
+        // views handed out for the containers of the original, so that changes made through them stick
+        private Map<String, Object> views;
+
+        // once this level has been changed, the copy, whose containers are all views
+        private Map<String, Object> copy;
+
+        private CowMap( Map<String, Object> original ) {
+            this.original = original;
+        }
+
+        private Object viewOf( String key, Object value ) {
+            if ( ! ( value instanceof Map || value instanceof List ) ) {
+                return value;
+            }
+            if ( views == null ) {
+                views = new HashMap<>();
+            }
+            Object view = views.get( key );
+            if ( view == null ) {
+                view = wrap( value );
+                views.put( key, view );
+            }
+            return view;
+        }
+
+        private Map<String, Object> copy() {
+            if ( copy == null ) {
+                Map<String, Object> newCopy = new LinkedHashMap<>( original.size() < 3 ? original.size() + 1 : (int) ( original.size() / 0.75f + 1.0f ) );
+                for ( Map.Entry<String, Object> entry : original.entrySet() ) {
+                    newCopy.put( entry.getKey(), viewOf( entry.getKey(), entry.getValue() ) );
+                }
+                // the views are kept, so that entries already handed out by an iterator stay the ones in the copy
+                copy = newCopy;
+            }
+            return copy;
+        }
+
+        @Override
+        public int size() {
+            return copy != null ? copy.size() : original.size();
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return copy != null ? copy.containsKey( key ) : original.containsKey( key );
+        }
+
+        @Override
+        public Object get( Object key ) {
+            if ( copy != null ) {
+                return copy.get( key );
+            }
+            Object value = original.get( key );
+            return key instanceof String ? viewOf( (String) key, value ) : value;
+        }
+
+        @Override
+        public Object put( String key, Object value ) {
+            return copy().put( key, value );
+        }
+
+        @Override
+        public Object remove( Object key ) {
+            if ( copy == null && ! original.containsKey( key ) ) {
+                return null;
+            }
+            return copy().remove( key );
+        }
+
+        @Override
+        public void clear() {
+            copy().clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public int size() {
+                    return CowMap.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    if ( copy != null ) {
+                        return copy.entrySet().iterator();
+                    }
+
+                    // the original is never changed, so it can be walked while the entries are copied out from under it
+                    final Iterator<Entry<String, Object>> source = original.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        private String lastKey;
+
+                        @Override
+                        public boolean hasNext() {
+                            return source.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = source.next();
+                            lastKey = entry.getKey();
+                            // if an earlier entry changed this map, the copy has the current value
+                            Object value = copy != null && copy.containsKey( lastKey ) ? copy.get( lastKey ) : viewOf( lastKey, entry.getValue() );
+                            return new SimpleEntry<String, Object>( lastKey, value ) {
+                                @Override
+                                public Object setValue( Object value ) {
+                                    super.setValue( value );
+                                    return copy().put( getKey(), value );
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            if ( lastKey == null ) {
+                                throw new IllegalStateException();
+                            }
+                            copy().remove( lastKey );
+                            lastKey = null;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * List view that reads from the original until it is changed.
+     */
+    private static final class CowList extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> original;
+
+        // views handed out for the containers of the original, by index
+        private Map<Integer, Object> views;
+
+        // once this level has been changed, the copy, whose containers are all views
+        private List<Object> copy;
+
+        private CowList( List<Object> original ) {
+            this.original = original;
+        }
+
+        private Object viewOf( int index, Object value ) {
+            if ( ! ( value instanceof Map || value instanceof List ) ) {
+                return value;
+            }
+            if ( views == null ) {
+                views = new HashMap<>();
+            }
+            Object view = views.get( index );
+            if ( view == null ) {
+                view = wrap( value );
+                views.put( index, view );
+            }
+            return view;
+        }
+
+        private List<Object> copy() {
+            if ( copy == null ) {
+                List<Object> newCopy = new ArrayList<>( original.size() + 1 );
+                for ( Object element : original ) {
+                    newCopy.add( viewOf( newCopy.size(), element ) );
+                }
+                copy = newCopy;
+            }
+            return copy;
+        }
+
+        @Override
+        public int size() {
+            return copy != null ? copy.size() : original.size();
+        }
+
+        @Override
+        public Object get( int index ) {
+            return copy != null ? copy.get( index ) : viewOf( index, original.get( index ) );
+        }
+
+        @Override
+        public Object set( int index, Object element ) {
+            return copy().set( index, element );
+        }
+
+        @Override
+        public void add( int index, Object element ) {
+            copy().add( index, element );
+            modCount++;
+        }
+
+        @Override
+        public Object remove( int index ) {
+            Object removed = copy().remove( index );
+            modCount++;
+            return removed;
+        }
+    }
+}
@@ -20,9 +20,123 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class DeepCopy {
 
+    /**
+     * Deep copy of a JSON style tree.
+     *
+     * LinkedHashMaps, HashMaps, TreeMaps and ArrayLists are copied structurally into pre-sized containers of the
+     *  same class, and Strings, boxed primitives, BigIntegers, BigDecimals and enums are shared, as they are immutable.
+     *  Anything else is copied with Java Serialization, the way this method always used to copy everything.
+     *
+     * The walk is iterative, so very deep trees do not blow the stack, and like Serialization it keeps the shape of
+     *  the object graph : a container referenced twice is copied once, and cycles are copied as cycles.
+     *
+     * @param object object to deep copy
+     * @return deep copy of the object
+     */
+    @SuppressWarnings( "unchecked" )
+    public static Object simpleDeepCopy( Object object ) {
+
+        if ( ! isContainer( object ) ) {
+            return isImmutable( object ) ? object : serializationCopy( object );
+        }
+
+        Map<Object, Object> copies = new IdentityHashMap<>();
+        Deque<Object[]> pending = new ArrayDeque<>();
+
+        Object root = newContainer( object );
+        copies.put( object, root );
+        pending.push( new Object[] { object, root } );
+
+        while ( ! pending.isEmpty() ) {
+            Object[] pair = pending.pop();
+
+            if ( pair[0] instanceof Map ) {
+                Map<Object, Object> copy = (Map<Object, Object>) pair[1];
+                for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) pair[0] ).entrySet() ) {
+                    copy.put( entry.getKey(), copyChild( entry.getValue(), copies, pending ) );
+                }
+            }
+            else {
+                List<Object> copy = (List<Object>) pair[1];
+                for ( Object element : (List<?>) pair[0] ) {
+                    copy.add( copyChild( element, copies, pending ) );
+                }
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * @return the copy of the child, which if it is a container is still empty, and queued to be filled in
+     */
+    private static Object copyChild( Object child, Map<Object, Object> copies, Deque<Object[]> pending ) {
+
+        if ( isImmutable( child ) ) {
+            return child;
+        }
+        if ( ! isContainer( child ) ) {
+            return serializationCopy( child );
+        }
+
+        Object copy = copies.get( child );
+        if ( copy == null ) {
+            copy = newContainer( child );
+            copies.put( child, copy );
+            pending.push( new Object[] { child, copy } );
+        }
+        return copy;
+    }
+
+    private static boolean isContainer( Object object ) {
+        Class<?> clazz = object == null ? null : object.getClass();
+        return clazz == LinkedHashMap.class || clazz == HashMap.class || clazz == TreeMap.class || clazz == ArrayList.class;
+    }
+
+    private static Object newContainer( Object original ) {
+        if ( original instanceof ArrayList ) {
+            return new ArrayList<>( ( (List<?>) original ).size() );
+        }
+        if ( original instanceof TreeMap ) {
+            return new TreeMap<>( ( (TreeMap<?, ?>) original ).comparator() );
+        }
+
+        int size = ( (Map<?, ?>) original ).size();
+        int capacity = size < 3 ? size + 1 : (int) ( size / 0.75f + 1.0f );
+        return original instanceof LinkedHashMap ? new LinkedHashMap<>( capacity ) : new HashMap<>( capacity );
+    }
+
+    private static boolean isImmutable( Object object ) {
+        return object == null ||
+               object instanceof String ||
+               object instanceof Integer ||
+               object instanceof Long ||
+               object instanceof Double ||
+               object instanceof Boolean ||
+               object instanceof Float ||
+               object instanceof Short ||
+               object instanceof Byte ||
+               object instanceof Character ||
+               object instanceof Enum ||
+               object.getClass() == BigInteger.class ||
+               object.getClass() == BigDecimal.class;
+    }
+
     /**
      * Simple deep copy, that leverages Java Serialization.
      * Supplied object is serialized to an in memory buffer (byte array),
@@ -30,11 +144,8 @@ public class DeepCopy {
      *
      * This is meant for copying small objects or object graphs, and will
      *  probably do nasty things if asked to copy a large graph.
-     *
-     * @param object object to deep copy
-     * @return deep copy of the object
      */
-    public static Object simpleDeepCopy( Object object ) {
+    private static Object serializationCopy( Object object ) {
 
         try {
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
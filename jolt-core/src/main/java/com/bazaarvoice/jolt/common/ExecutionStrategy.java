@@ -17,31 +17,78 @@
 package com.bazaarvoice.jolt.common;
 
 import com.bazaarvoice.jolt.common.spec.BaseSpec;
+import com.bazaarvoice.jolt.common.spec.LiteralChildIndex;
 import com.bazaarvoice.jolt.common.spec.OrderedCompositeSpec;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public enum ExecutionStrategy {
 
     /**
-     * The performance assumption built into this code is that the literal values in the spec, are generally smaller
-     *  than the number of potential keys to check in the input.
+     * Applies the literal children whose keys are present in the input.
      *
-     *  More specifically, the assumption here is that the set of literalChildren is smaller than the input "keyset".
+     * For Map input, this iterates whichever side is smaller : the spec's literal keys (checking the input with
+     *  containsKey) or the input's keys (looking them up in the spec's literal children).  Either way the matching
+     *  children are applied in spec order, so the output does not depend on which side was iterated.
      */
     AVAILABLE_LITERALS {
         @Override
         void processMap( OrderedCompositeSpec spec, Map<String, Object> inputMap, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
 
-            for( String key : spec.getLiteralChildren().keySet() ) {
+            LiteralChildIndex<?> literals = spec.getLiteralChildIndex();
 
-                // Do not work if the value is missing in the input map
-                if ( inputMap.containsKey( key ) ) {
+            if ( literals.size() <= inputMap.size() ) {
+                if ( countIterations ) {
+                    LITERAL_SIDE_ITERATIONS.increment();
+                }
+
+                for( int ordinal = 0; ordinal < literals.size(); ordinal++ ) {
+
+                    // Do not work if the value is missing in the input map
+                    if ( inputMap.containsKey( literals.getKey( ordinal ) ) ) {
+                        applyLiteral( literals, ordinal, inputMap, walkedPath, output, context );
+                    }
+                }
+            }
+            else if ( literals.size() <= Long.SIZE ) {
+                if ( countIterations ) {
+                    INPUT_SIDE_ITERATIONS.increment();
+                }
+
+                // Mark the matching literals in a single long, and then apply them in ordinal order
+                long matched = 0L;
+                for( String key : inputMap.keySet() ) {
+                    int ordinal = literals.ordinalOf( key );
+                    if ( ordinal >= 0 ) {
+                        matched |= 1L << ordinal;
+                    }
+                }
 
-                    Optional<Object> subInputOptional = Optional.of( inputMap.get( key ) );
-                    spec.getLiteralChildren().get( key ).apply( key, subInputOptional, walkedPath, output, context );
+                while ( matched != 0L ) {
+                    int ordinal = Long.numberOfTrailingZeros( matched );
+                    matched &= matched - 1;
+                    applyLiteral( literals, ordinal, inputMap, walkedPath, output, context );
+                }
+            }
+            else {
+                if ( countIterations ) {
+                    INPUT_SIDE_ITERATIONS.increment();
+                }
+
+                BitSet matched = new BitSet( literals.size() );
+                for( String key : inputMap.keySet() ) {
+                    int ordinal = literals.ordinalOf( key );
+                    if ( ordinal >= 0 ) {
+                        matched.set( ordinal );
+                    }
+                }
+
+                for ( int ordinal = matched.nextSetBit( 0 ); ordinal >= 0; ordinal = matched.nextSetBit( ordinal + 1 ) ) {
+                    applyLiteral( literals, ordinal, inputMap, walkedPath, output, context );
                 }
             }
         }
@@ -50,18 +97,11 @@ public enum ExecutionStrategy {
         void processList( OrderedCompositeSpec spec, List<Object> inputList, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
 
             Integer originalSize = walkedPath.lastElement().getOrigSize().get();
-            for( String key : spec.getLiteralChildren().keySet() ) {
-
-                int keyInt = Integer.MAX_VALUE;
+            LiteralChildIndex<?> literals = spec.getLiteralChildIndex();
+            for( int ordinal = 0; ordinal < literals.size(); ordinal++ ) {
 
-                try {
-                    keyInt = Integer.parseInt( key );
-                }
-                catch( NumberFormatException nfe ) {
-                    // If the data is an Array, but the spec keys are Non-Integer Strings,
-                    //  we are annoyed, but we don't stop the whole transform.
-                    // Just this part of the Transform won't work.
-                }
+                // non index keys are NOT_AN_INDEX, which is never inside of the input list
+                int keyInt = literals.getArrayIndex( ordinal );
 
                 // Do not work if the index is outside of the input list
                 if ( keyInt < inputList.size() ) {
@@ -75,8 +115,7 @@ public enum ExecutionStrategy {
                         subInputOptional = Optional.of( subInput );
                     }
 
-                    // we know the .get(key) will not return null, because we are iterating over its keys
-                    spec.getLiteralChildren().get( key ).apply( key, subInputOptional, walkedPath, output, context );
+                    literals.getChild( ordinal ).apply( literals.getKey( ordinal ), subInputOptional, walkedPath, output, context );
                 }
             }
         }
@@ -117,18 +156,11 @@ public enum ExecutionStrategy {
         void processList( OrderedCompositeSpec spec, List<Object> inputList, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
 
             Integer originalSize = walkedPath.lastElement().getOrigSize().get();
-            for( String key : spec.getLiteralChildren().keySet() ) {
+            LiteralChildIndex<?> literals = spec.getLiteralChildIndex();
+            for( int ordinal = 0; ordinal < literals.size(); ordinal++ ) {
 
-                int keyInt = Integer.MAX_VALUE;
-
-                try {
-                    keyInt = Integer.parseInt( key );
-                }
-                catch( NumberFormatException nfe ) {
-                    // If the data is an Array, but the spec keys are Non-Integer Strings,
-                    //  we are annoyed, but we don't stop the whole transform.
-                    // Just this part of the Transform won't work.
-                }
+                // non index keys are NOT_AN_INDEX, which is never inside of the input list
+                int keyInt = literals.getArrayIndex( ordinal );
 
                 // if the input in not available in the list use null or else get value,
                 // then lookup and place a default value as defined in spec there
@@ -139,8 +171,7 @@ public enum ExecutionStrategy {
                         subInputOptional = Optional.of( subInput );
                     }
                 }
-                // we know the .get(key) will not return null, because we are iterating over its keys
-                spec.getLiteralChildren().get( key ).apply( key, subInputOptional, walkedPath, output, context );
+                literals.getChild( ordinal ).apply( literals.getKey( ordinal ), subInputOptional, walkedPath, output, context );
             }
         }
 
@@ -161,7 +192,7 @@ public enum ExecutionStrategy {
 
             // Iterate over the whole entrySet rather than the keyset with follow on gets of the values
             for( Map.Entry<String, Object> inputEntry : inputMap.entrySet() ) {
-                applyKeyToComputed( spec.getComputedChildren(), walkedPath, output, inputEntry.getKey(), Optional.of( inputEntry.getValue() ), context );
+                applyKeyToComputed( spec, walkedPath, output, inputEntry.getKey(), Optional.of( inputEntry.getValue() ), context );
             }
         }
 
@@ -180,13 +211,13 @@ public enum ExecutionStrategy {
                     subInputOptional = Optional.of( subInput );
                 }
 
-                applyKeyToComputed( spec.getComputedChildren(), walkedPath, output, subKeyStr, subInputOptional, context );
+                applyKeyToComputed( spec, walkedPath, output, subKeyStr, subInputOptional, context );
             }
         }
 
         @Override
         void processScalar( OrderedCompositeSpec spec, String scalarInput, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
-            applyKeyToComputed( spec.getComputedChildren(), walkedPath, output, scalarInput, Optional.empty(), context );
+            applyKeyToComputed( spec, walkedPath, output, scalarInput, Optional.empty(), context );
         }
     },
 
@@ -274,6 +305,40 @@ public enum ExecutionStrategy {
         }
     };
 
+    // Diagnostics only, so off by default : the hot path then just reads the flag, rather than every thread
+    //  writing to the same counters on every Map it visits
+    private static volatile boolean countIterations = false;
+    private static final LongAdder LITERAL_SIDE_ITERATIONS = new LongAdder();
+    private static final LongAdder INPUT_SIDE_ITERATIONS = new LongAdder();
+
+    /**
+     * Turn on or off counting which side AVAILABLE_LITERALS iterates, for every spec in the JVM.  Off by default.
+     */
+    public static void setIterationCounting( boolean enabled ) {
+        countIterations = enabled;
+    }
+
+    /**
+     * @return how many times AVAILABLE_LITERALS walked a Map input by iterating the spec's literal keys,
+     *  while iteration counting was on
+     */
+    public static long getLiteralSideIterationCount() {
+        return LITERAL_SIDE_ITERATIONS.sum();
+    }
+
+    /**
+     * @return how many times AVAILABLE_LITERALS walked a Map input by iterating the input's keys,
+     *  while iteration counting was on
+     */
+    public static long getInputSideIterationCount() {
+        return INPUT_SIDE_ITERATIONS.sum();
+    }
+
+    public static void resetIterationCounts() {
+        LITERAL_SIDE_ITERATIONS.reset();
+        INPUT_SIDE_ITERATIONS.reset();
+    }
+
     @SuppressWarnings( "unchecked" )
     public void process( OrderedCompositeSpec spec, Optional<Object> inputOptional, WalkedPath walkedPath, Map<String,Object> output, Map<String, Object> context ) {
         Object input = inputOptional.get();
@@ -294,6 +359,12 @@ public enum ExecutionStrategy {
     abstract void processScalar( OrderedCompositeSpec spec, String scalarInput          , WalkedPath walkedPath, Map<String,Object> output, Map<String, Object> context );
 
 
+    private static void applyLiteral( LiteralChildIndex<?> literals, int ordinal, Map<String, Object> inputMap, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
+        String key = literals.getKey( ordinal );
+        Optional<Object> subInputOptional = Optional.of( inputMap.get( key ) );
+        literals.getChild( ordinal ).apply( key, subInputOptional, walkedPath, output, context );
+    }
+
     /**
      * This is the method we are trying to avoid calling.  It implements the matching behavior
      *  when we have both literal and computed children.
@@ -314,19 +385,15 @@ public enum ExecutionStrategy {
         }
         else {
             // If no literal spec key matched, iterate through all the getComputedChildren()
-            applyKeyToComputed( spec.getComputedChildren(), walkedPath, output, subKeyStr, subInputOptional, context );
+            applyKeyToComputed( spec, walkedPath, output, subKeyStr, subInputOptional, context );
         }
     }
 
-    private static <T extends BaseSpec> void applyKeyToComputed( List<T> computedChildren, WalkedPath walkedPath, Map<String, Object> output, String subKeyStr, Optional<Object> subInputOptional, Map<String, Object> context ) {
+    private static <T extends OrderedCompositeSpec> void applyKeyToComputed( T spec, WalkedPath walkedPath, Map<String, Object> output, String subKeyStr, Optional<Object> subInputOptional, Map<String, Object> context ) {
 
-        // Iterate through all the getComputedChildren() until we find a match
-        // This relies upon the getComputedChildren() having already been sorted in priority order
-        for ( BaseSpec computedChild : computedChildren ) {
-            // if the computed key does not match it will quickly return false
-            if ( computedChild.apply( subKeyStr, subInputOptional, walkedPath, output, context ) ) {
-                break;
-            }
-        }
+        // Try the getComputedChildren() until we find a match
+        // This relies upon the getComputedChildren() having already been sorted in priority order, and the
+        //  matcher skips the children that can not possibly match the key
+        spec.getComputedChildMatcher().apply( subKeyStr, subInputOptional, walkedPath, output, context );
     }
 }
@@ -15,18 +15,23 @@
  */
 package com.bazaarvoice.jolt.common;
 
+import com.bazaarvoice.jolt.common.pathelement.ArrayPathElement;
 import com.bazaarvoice.jolt.common.pathelement.EvaluatablePathElement;
+import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
 import com.bazaarvoice.jolt.common.pathelement.PathElement;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 import com.bazaarvoice.jolt.exception.SpecException;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
 import com.bazaarvoice.jolt.traversr.Traversr;
 import com.bazaarvoice.jolt.utils.StringTools;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import static com.bazaarvoice.jolt.common.PathElementBuilder.parseDotNotationRHS;
 
@@ -44,7 +49,34 @@ public abstract class PathEvaluatingTraversal {
     private final List<EvaluatablePathElement> elements;
     private final Traversr traversr;
 
+    // The keys that are known at spec build time, with null entries for the ones that have to be
+    //  evaluated against the WalkedPath.  If every key is known, constantKeys holds the full path.
+    // Keys for array steps are Integers, so the Traversr does not have to parse them, and map keys are Strings.
+    private final Object[] partialKeys;
+    private final List<Object> constantKeys;
+
+    // The elements that evaluate to an array index, null for all the others
+    private final ArrayPathElement[] arrayIndexElements;
+
+    // Per thread scratch Lists, shared by every instance, that writes and reads fill the keys of their path into,
+    //  instead of building a new List for every write.  Each thread only ever holds as many as evaluations it has
+    //  nested, eg a write whose key is a @(1,x) lookup, however many PathEvaluatingTraversals there are.
+    private static final ThreadLocal<ScratchKeys> SCRATCH_KEYS = new ThreadLocal<ScratchKeys>() {
+        @Override
+        protected ScratchKeys initialValue() {
+            return new ScratchKeys();
+        }
+    };
+
     public PathEvaluatingTraversal( String dotNotation ) {
+        this( dotNotation, null, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * @param sizeHints if not null, the Traversr pre-sizes the containers it creates based on previous writes
+     * @param containerFactory creates the containers the Traversr adds to the tree
+     */
+    public PathEvaluatingTraversal( String dotNotation, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
 
         if ( ( dotNotation.contains("*") && ! dotNotation.contains( "\\*" ) ) ||
              ( dotNotation.contains("$") && ! dotNotation.contains( "\\$" ) ) ) {
@@ -64,11 +96,11 @@ public abstract class PathEvaluatingTraversal {
             for ( PathElement pe : paths ) {
                 traversrPaths.add( pe.getCanonicalForm() );
             }
-            trav = createTraversr( traversrPaths );
+            trav = createTraversr( traversrPaths, sizeHints, containerFactory );
         }
         else {
             paths = Collections.emptyList();
-            trav = createTraversr( Arrays.asList( "" ) );
+            trav = createTraversr( Arrays.asList( "" ), sizeHints, containerFactory );
         }
 
         List<EvaluatablePathElement> evalPaths = new ArrayList<>( paths.size() );
@@ -82,10 +114,54 @@ public abstract class PathEvaluatingTraversal {
 
         this.elements = Collections.unmodifiableList( evalPaths );
         this.traversr = trav;
+
+        boolean allConstant = true;
+        partialKeys = new Object[ evalPaths.size() ];
+        arrayIndexElements = new ArrayPathElement[ evalPaths.size() ];
+        for ( int index = 0; index < partialKeys.length; index++ ) {
+            EvaluatablePathElement pathElement = evalPaths.get( index );
+            partialKeys[index] = constantKey( pathElement );
+            allConstant &= partialKeys[index] != null;
+
+            if ( pathElement instanceof ArrayPathElement &&
+                 ( (ArrayPathElement) pathElement ).getArrayPathType() != ArrayPathElement.ArrayPathType.AUTO_EXPAND ) {
+                arrayIndexElements[index] = (ArrayPathElement) pathElement;
+            }
+        }
+        constantKeys = allConstant ? Collections.unmodifiableList( Arrays.asList( partialKeys ) ) : null;
+    }
+
+    /**
+     * @return the key the PathElement will always evaluate to, or null if it depends on the WalkedPath
+     */
+    private static Object constantKey( EvaluatablePathElement pathElement ) {
+        if ( pathElement instanceof LiteralPathElement ) {
+            // the same output keys show up in lots of writers, so let them all share one String
+            return pathElement.getRawKey().intern();
+        }
+        if ( pathElement instanceof ArrayPathElement ) {
+            ArrayPathElement arrayPathElement = (ArrayPathElement) pathElement;
+            switch ( arrayPathElement.getArrayPathType() ) {
+                case EXPLICIT_INDEX:
+                    return arrayPathElement.evaluateArrayIndex( null );
+                case AUTO_EXPAND:
+                    return arrayPathElement.evaluate( null );
+                default:
+                    return null;
+            }
+        }
+        return null;
     }
 
     protected abstract Traversr createTraversr(List<String> paths);
 
+    /**
+     * Subclasses that support ContainerSizeHints and ContainerFactories override this, the rest ignore them.
+     */
+    protected Traversr createTraversr( List<String> paths, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        return createTraversr( paths );
+    }
+
     /**
      * Use the supplied WalkedPath, in the evaluation of each of our PathElements to
      *  build a concrete output path.  Then use that output path to write the given
@@ -96,19 +172,39 @@ public abstract class PathEvaluatingTraversal {
      * @param walkedPath reference used to lookup reference values like "&1(2)"
      */
     public void write( Object data, Map<String, Object> output, WalkedPath walkedPath ) {
-        List<String> evaledPaths = evaluate( walkedPath );
-        if ( evaledPaths != null ) {
-            traversr.set( output, evaledPaths, data );
+        if ( constantKeys != null ) {
+            traversr.set( output, constantKeys, data );
+            return;
+        }
+
+        ScratchKeys scratchKeys = SCRATCH_KEYS.get();
+        KeyBuffer keys = scratchKeys.acquire( partialKeys.length );
+        try {
+            if ( evaluateKeys( walkedPath, keys ) ) {
+                traversr.set( output, keys, data );
+            }
+        }
+        finally {
+            scratchKeys.release();
         }
     }
 
     public Optional<Object> read( Object data, WalkedPath walkedPath ) {
-        List<String> evaledPaths = evaluate( walkedPath );
-        if ( evaledPaths == null ) {
-            return Optional.empty();
+        if ( constantKeys != null ) {
+            return traversr.get( data, constantKeys );
         }
 
-        return traversr.get( data, evaledPaths );
+        ScratchKeys scratchKeys = SCRATCH_KEYS.get();
+        KeyBuffer keys = scratchKeys.acquire( partialKeys.length );
+        try {
+            if ( ! evaluateKeys( walkedPath, keys ) ) {
+                return Optional.empty();
+            }
+            return traversr.get( data, keys );
+        }
+        finally {
+            scratchKeys.release();
+        }
     }
 
     /**
@@ -137,6 +233,33 @@ public abstract class PathEvaluatingTraversal {
         return strings;
     }
 
+    /**
+     * Same as evaluate, but without allocating : the keys are written into the given scratch List, the ones known
+     *  at spec build time straight from partialKeys, and array indexes evaluated straight to Integers.
+     *
+     * @return false if a TransposePathElement evaluated to null, in which case the keys are incomplete
+     */
+    private boolean evaluateKeys( WalkedPath walkedPath, KeyBuffer keys ) {
+
+        Object[] buffer = keys.buffer;
+        System.arraycopy( partialKeys, 0, buffer, 0, partialKeys.length );
+        for ( int index = 0; index < partialKeys.length; index++ ) {
+            if ( partialKeys[index] == null ) {
+
+                // may itself use a KeyBuffer, eg for a @(1,x) lookup, which is why it can not share ours
+                Object evaledLeafOutput = arrayIndexElements[index] != null ?
+                        arrayIndexElements[index].evaluateArrayIndex( walkedPath ) :
+                        elements.get( index ).evaluate( walkedPath );
+                if ( evaledLeafOutput == null ) {
+                    return false;
+                }
+                buffer[index] = evaledLeafOutput;
+            }
+        }
+
+        return true;
+    }
+
     public int size() {
         return elements.size();
     }
@@ -157,4 +280,53 @@ public abstract class PathEvaluatingTraversal {
 
         return buf.substring( 1 ); // strip the leading "."
     }
+
+    /**
+     * Fixed size List view of the front of a reusable array, grown to the longest path it has been used for.
+     */
+    private static final class KeyBuffer extends AbstractList<Object> implements RandomAccess {
+
+        private Object[] buffer = new Object[8];
+        private int size;
+
+        @Override
+        public Object get( int index ) {
+            if ( index >= size ) {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+            }
+            return buffer[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * One thread's KeyBuffers, handed out stack wise, so that nested evaluations each get their own.
+     */
+    private static final class ScratchKeys {
+
+        private final List<KeyBuffer> buffers = new ArrayList<>();
+        private int depth = 0;
+
+        private KeyBuffer acquire( int size ) {
+            if ( depth == buffers.size() ) {
+                buffers.add( new KeyBuffer() );
+            }
+            KeyBuffer keys = buffers.get( depth++ );
+            if ( keys.buffer.length < size ) {
+                keys.buffer = new Object[ Math.max( size, keys.buffer.length * 2 ) ];
+            }
+            keys.size = size;
+            return keys;
+        }
+
+        private void release() {
+            // do not keep the last evaluated keys, or the data they came from, reachable from the thread
+            KeyBuffer keys = buffers.get( --depth );
+            Arrays.fill( keys.buffer, 0, keys.size, null );
+        }
+    }
 }
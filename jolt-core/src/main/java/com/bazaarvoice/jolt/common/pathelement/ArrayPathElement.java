@@ -35,6 +35,7 @@ public class ArrayPathElement extends BasePathElement implements MatchablePathEl
 
     private final String canonicalForm;
     private final String arrayIndex;
+    private final Integer explicitArrayIndex;
 
     public ArrayPathElement( String key ) {
         super(key);
@@ -89,6 +90,7 @@ public class ArrayPathElement extends BasePathElement implements MatchablePathEl
         arrayPathType = apt;
         ref = r;
         arrayIndex = aI;
+        explicitArrayIndex = apt == ArrayPathType.EXPLICIT_INDEX ? Integer.valueOf( aI ) : null;
     }
 
 
@@ -117,22 +119,66 @@ public class ArrayPathElement extends BasePathElement implements MatchablePathEl
                 return verifyStringIsNonNegativeInteger( key );
 
             case REFERENCE:
-                MatchedElement lpe = walkedPath.elementFromEnd( ref.getPathIndex() ).getMatchedElement();
-                String keyPart;
+                return verifyStringIsNonNegativeInteger( referencedKey( walkedPath ) );
+            default:
+                throw new IllegalStateException( "ArrayPathType enum added two without updating this switch statement." );
+        }
+    }
 
-                if ( ref instanceof PathAndGroupReference ) {
-                    keyPart = lpe.getSubKeyRef( ( (PathAndGroupReference) ref).getKeyGroup() );
-                }
-                else {
-                    keyPart = lpe.getSubKeyRef( 0 );
-                }
+    private String referencedKey( WalkedPath walkedPath ) {
+        MatchedElement lpe = walkedPath.elementFromEnd( ref.getPathIndex() ).getMatchedElement();
+
+        if ( ref instanceof PathAndGroupReference ) {
+            return lpe.getSubKeyRef( ( (PathAndGroupReference) ref).getKeyGroup() );
+        }
+        else {
+            return lpe.getSubKeyRef( 0 );
+        }
+    }
+
+    /**
+     * Same as evaluate, but returns the array index as an Integer, so that it can be handed to an
+     *  ArrayTraversalStep without being formatted and parsed again.
+     *
+     * @return the array index, or null if this is an AUTO_EXPAND "[]" or the evaluated key is not a non-negative integer
+     */
+    public Integer evaluateArrayIndex( WalkedPath walkedPath ) {
+
+        switch ( arrayPathType ) {
+            case AUTO_EXPAND:
+                return null;
+
+            case EXPLICIT_INDEX:
+                return explicitArrayIndex;
+
+            case HASH:
+                MatchedElement element = walkedPath.elementFromEnd( ref.getPathIndex() ).getMatchedElement();
+                return element.getHashCount();
+
+            case TRANSPOSE:
+                return parseNonNegativeInteger( transposePathElement.evaluate( walkedPath ) );
+
+            case REFERENCE:
+                return parseNonNegativeInteger( referencedKey( walkedPath ) );
 
-                return verifyStringIsNonNegativeInteger( keyPart );
             default:
                 throw new IllegalStateException( "ArrayPathType enum added two without updating this switch statement." );
         }
     }
 
+    private static Integer parseNonNegativeInteger( String key ) {
+        if ( key == null ) {
+            return null;
+        }
+        try {
+            int number = Integer.parseInt( key );
+            return number >= 0 ? number : null;
+        }
+        catch ( NumberFormatException nfe ) {
+            return null;
+        }
+    }
+
     /**
      * @return the String version of a non-Negative integer, else null
      */
@@ -163,6 +209,17 @@ public class ArrayPathElement extends BasePathElement implements MatchablePathEl
         }
     }
 
+    public ArrayPathType getArrayPathType() {
+        return arrayPathType;
+    }
+
+    /**
+     * @return the transpose that computes the index, if this is a TRANSPOSE ArrayPathElement, otherwise null
+     */
+    public TransposePathElement getTransposePathElement() {
+        return transposePathElement;
+    }
+
     public boolean isExplicitArrayIndex() {
         return arrayPathType.equals( ArrayPathType.EXPLICIT_INDEX );
     }
@@ -19,129 +19,164 @@ import com.bazaarvoice.jolt.common.tree.MatchedElement;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Non-greedy * based Path Element.
+ *
+ * Keys like "rating-*-*" used to be turned into the reluctant regex "^rating-(.+?)-(.+?)$", which can backtrack
+ *  badly on long or adversarial input keys.  Instead the key is split on its '*'s into literal segments, and
+ *  matched in a single left to right pass :
+ *  - the first segment has to be a prefix of the data key, and the last segment a suffix
+ *  - each segment in between is matched at its earliest occurrence (KMP), leaving at least one character for
+ *     the '*' in front of it
+ *
+ * Taking the earliest occurrence of each segment gives every '*' the shortest capture that still lets the rest
+ *  of the key match, which is exactly what the reluctant regex captured.  The whole match is linear in the
+ *  length of the data key plus the length of the spec key.
  */
 public class StarRegexPathElement extends BasePathElement implements StarPathElement {
 
-    private final Pattern pattern;
+    private final String prefix;
+    private final String suffix;
+    private final String[] middles;         // the literal segments between the stars, may be empty strings
+    private final int[][] middleFailures;   // KMP failure tables of the middles
+    private final int starCount;
 
     public StarRegexPathElement( String key ) {
         super(key);
 
-        pattern = makePattern( key );
-    }
+        // "rating-*-*"  ->  prefix "rating-", middles [ "-" ], suffix ""
+        String[] segments = key.split( "\\*", -1 );
 
+        starCount = segments.length - 1;
+        prefix = segments[0];
+        suffix = segments[ segments.length - 1 ];
 
-    private static Pattern makePattern( String key ) {
+        middles = new String[ Math.max( 0, segments.length - 2 ) ];
+        middleFailures = new int[ middles.length ][];
+        for ( int index = 0; index < middles.length; index++ ) {
+            middles[index] = segments[ index + 1 ];
+            middleFailures[index] = failureTable( middles[index] );
+        }
+    }
 
-        // "rating-*-*"  ->  "^rating-(.+?)-(.+?)$"   aka the '*' must match something in a non-greedy way
-        key = escapeMetacharsIfAny(key);
-        String regex = "^" + key.replace("*", "(.+?)")  + "$";
+    /**
+     * @param literal test to see if the provided string will match this Element's key
+     * @return true if the provided literal will match this Element's key
+     */
+    @Override
+    public boolean stringMatch( String literal ) {
+        return findStarBounds( literal ) != null;
+    }
 
-        /*
-            wtf does "(.+?)" mean
-            .  : match any character
-            +  : match one or more of the previous thing
-            ?  : match zero of one of the previous thing
-            +? : reluctantly match
+    @Override
+    public MatchedElement match( String dataKey, WalkedPath walkedPath ) {
 
-            See http://docs.oracle.com/javase/tutorial/essential/regex/quant.html
-              Differences Among Greedy, Reluctant, and Possessive Quantifiers section
-        */
+        int[] bounds = findStarBounds( dataKey );
+        if ( bounds == null ) {
+            return null;
+        }
 
-        return Pattern.compile( regex);
+        List<String> subKeys = new ArrayList<>( starCount );
+        for ( int star = 0; star < starCount; star++ ) {
+            subKeys.add( dataKey.substring( bounds[ 2 * star ], bounds[ 2 * star + 1 ] ) );
+        }
+
+        return new MatchedElement(dataKey, subKeys);
     }
 
-    // Metachars to escape .^$|*+?()[{\ in a regex
+    @Override
+    public String getCanonicalForm() {
+        return getRawKey();
+    }
 
-    /** +
-     *
-     * @param key : String key that needs to be escaped before compiling into regex.
-     * @return : Metachar escaped key.
-     *
-     * Regex has some special meaning for the metachars [ .^$|*+?()[{\ ].If any of these metachars is present in the pattern key that was passed, it needs to be escaped so that
-     * it can be matched against literal.
+    /**
+     * @return start and end index of the text each '*' captured, flattened into one array, or null if the
+     *  data key does not match
      */
-    private static String escapeMetacharsIfAny(String key){
-
-        char[] keyChars = key.toCharArray();
-
-        // String.replace replaces all instances of the char sequence. So, it would try to escape the occurrence as many times as the occurrence frequency.
-        // For ex: if a key as 2 '5star.rating.1', it would escape it twice resulting in 5star//.rating//.1.
-        // So, we keep an list of already seen characters.
+    private int[] findStarBounds( String dataKey ) {
 
-        Set<Character> charsAlreadySeen = new HashSet<>();
+        int length = dataKey.length();
 
-        for(char keychar: keyChars) {
+        // every star has to capture at least one character
+        if ( length < prefix.length() + suffix.length() + starCount || ! dataKey.startsWith( prefix ) ) {
+            return null;
+        }
+        int suffixStart = length - suffix.length();
+        if ( ! dataKey.startsWith( suffix, suffixStart ) ) {
+            return null;
+        }
 
-            switch (keychar) {
+        int[] bounds = new int[ 2 * starCount ];
+        int position = prefix.length();
 
-                case '(':
-                case '[':
-                case '{':
-                case '\\':
-                case '^':
-                case '$':
-                case '|':
-                case ')':
-                case '?':
-                case '+':
-                case '.':
+        for ( int index = 0; index < middles.length; index++ ) {
 
-                    if(!charsAlreadySeen.contains( keychar )){
+            // the middle can start no earlier than one character in, and has to leave one character for the last star
+            int earliest = position + 1;
+            int latestEnd = suffixStart - 1;
 
-                        key = key.replace(String.valueOf(keychar), "\\" + keychar);
+            int found = indexOf( dataKey, middles[index], middleFailures[index], earliest, latestEnd );
+            if ( found < 0 ) {
+                return null;
+            }
 
-                        charsAlreadySeen.add(keychar);
-                    }
-                    break;
+            bounds[ 2 * index ] = position;
+            bounds[ 2 * index + 1 ] = found;
+            position = found + middles[index].length();
+        }
 
-                default:
-                    break;
-            }
+        if ( suffixStart - position < 1 ) {
+            return null;
         }
-        return key;
+        bounds[ 2 * middles.length ] = position;
+        bounds[ 2 * middles.length + 1 ] = suffixStart;
+
+        return bounds;
     }
 
     /**
-     * @param literal test to see if the provided string will match this Element's regex
-     * @return true if the provided literal will match this Element's regex
+     * KMP search for the first occurrence of the needle in text[from, to).
+     *
+     * @return the start index of the occurrence, or -1 if there is none
      */
-    @Override
-    public boolean stringMatch( String literal ) {
-
-        Matcher matcher = pattern.matcher( literal );
-
-        return matcher.find();
-    }
-
-    @Override
-    public MatchedElement match( String dataKey, WalkedPath walkedPath ) {
+    private static int indexOf( String text, String needle, int[] failure, int from, int to ) {
 
-        Matcher matcher = pattern.matcher( dataKey );
-        if ( ! matcher.find() ) {
-            return null;
+        int needleLength = needle.length();
+        if ( needleLength == 0 ) {
+            return from <= to ? from : -1;
         }
 
-        int groupCount = matcher.groupCount();
-
-        List<String> subKeys = new ArrayList<>(groupCount);
-        for ( int index = 1; index <= groupCount; index++) {
-            subKeys.add( matcher.group( index ) );
+        int matched = 0;
+        for ( int index = from; index < to; index++ ) {
+            char c = text.charAt( index );
+            while ( matched > 0 && needle.charAt( matched ) != c ) {
+                matched = failure[ matched - 1 ];
+            }
+            if ( needle.charAt( matched ) == c ) {
+                matched++;
+            }
+            if ( matched == needleLength ) {
+                return index - needleLength + 1;
+            }
         }
-
-        return new MatchedElement(dataKey, subKeys);
+        return -1;
     }
 
-    @Override
-    public String getCanonicalForm() {
-        return getRawKey();
+    private static int[] failureTable( String needle ) {
+
+        int[] failure = new int[ needle.length() ];
+        int matched = 0;
+        for ( int index = 1; index < needle.length(); index++ ) {
+            while ( matched > 0 && needle.charAt( index ) != needle.charAt( matched ) ) {
+                matched = failure[ matched - 1 ];
+            }
+            if ( needle.charAt( index ) == needle.charAt( matched ) ) {
+                matched++;
+            }
+            failure[index] = matched;
+        }
+        return failure;
     }
 }
@@ -176,6 +176,13 @@ public class TransposePathElement extends BasePathElement implements MatchablePa
         }
     }
 
+    /**
+     * @return how many levels up the walked path this transpose reads its data from
+     */
+    public int getUpLevel() {
+        return upLevel;
+    }
+
     /**
      * This method is used when the TransposePathElement is used on the LFH as data.
      *
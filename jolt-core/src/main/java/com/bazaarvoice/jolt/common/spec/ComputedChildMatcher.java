@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.spec;
+
+import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.common.pathelement.MatchablePathElement;
+import com.bazaarvoice.jolt.common.pathelement.StarDoublePathElement;
+import com.bazaarvoice.jolt.common.pathelement.StarRegexPathElement;
+import com.bazaarvoice.jolt.common.pathelement.StarSinglePathElement;
+import com.bazaarvoice.jolt.common.tree.WalkedPath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Applies an input key to the first computed child, in precedence order, that accepts it.
+ *
+ * Calling apply on each computed child in turn means running every child's match against the key.  For
+ *  composites with many "prefix*suffix" style children, this instead combines the children into one matcher :
+ *  - a character trie of the literal prefixes of the star children (the text before their first '*')
+ *  - a suffix and minimum length check for each of them
+ *
+ * A single pass over the start of the key through the trie gives the set of star children whose prefix
+ *  matches.  Only those, plus the children that can not be pre-filtered (like "*" and "&" keys), are then
+ *  tried in precedence order.  Children that are filtered out could not have matched, so the result is the
+ *  same as trying them all.
+ */
+public final class ComputedChildMatcher {
+
+    // Below this many children the plain loop is cheap enough, and above it the candidates don't fit in a long
+    private static final int MIN_CHILDREN = 4;
+    private static final int MAX_CHILDREN = Long.SIZE;
+
+    private final BaseSpec[] children;
+
+    // null if this matcher just does the plain loop
+    private final TrieNode prefixTrie;
+    private final long alwaysCandidates;
+    private final String[] suffixes;
+    private final int[] minLengths;
+
+    public ComputedChildMatcher( List<? extends BaseSpec> computedChildren ) {
+
+        children = computedChildren.toArray( new BaseSpec[ computedChildren.size() ] );
+
+        if ( children.length < MIN_CHILDREN || children.length > MAX_CHILDREN ) {
+            prefixTrie = null;
+            alwaysCandidates = 0L;
+            suffixes = null;
+            minLengths = null;
+            return;
+        }
+
+        TrieBuilder trieBuilder = new TrieBuilder();
+        long always = 0L;
+        suffixes = new String[ children.length ];
+        minLengths = new int[ children.length ];
+
+        for ( int ordinal = 0; ordinal < children.length; ordinal++ ) {
+
+            MatchablePathElement pathElement = children[ordinal].getPathElement();
+
+            if ( pathElement instanceof StarSinglePathElement ||
+                 pathElement instanceof StarDoublePathElement ||
+                 pathElement instanceof StarRegexPathElement ) {
+
+                // Every '*' has to capture at least one character, and everything else in the key is literal text
+                String rawKey = pathElement.getRawKey();
+                trieBuilder.add( rawKey.substring( 0, rawKey.indexOf( '*' ) ), ordinal );
+                suffixes[ordinal] = rawKey.substring( rawKey.lastIndexOf( '*' ) + 1 );
+                minLengths[ordinal] = rawKey.length();
+            }
+            else {
+                // "*", "&" and friends depend on more than the key text, so always try them
+                always |= 1L << ordinal;
+            }
+        }
+
+        prefixTrie = trieBuilder.build();
+        alwaysCandidates = always;
+    }
+
+    /**
+     * Try the computed children in precedence order, until one of them applies itself.
+     *
+     * @return true if a child "handled" the key
+     */
+    public boolean apply( String key, Optional<Object> inputOptional, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
+
+        if ( prefixTrie == null ) {
+            for ( BaseSpec child : children ) {
+                // if the computed key does not match it will quickly return false
+                if ( child.apply( key, inputOptional, walkedPath, output, context ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long candidates = alwaysCandidates | prefixTrie.matchPrefixes( key );
+
+        while ( candidates != 0L ) {
+            int ordinal = Long.numberOfTrailingZeros( candidates );
+            candidates &= candidates - 1;
+
+            String suffix = suffixes[ordinal];
+            if ( suffix != null && ( key.length() < minLengths[ordinal] || ! key.endsWith( suffix ) ) ) {
+                continue;
+            }
+
+            if ( children[ordinal].apply( key, inputOptional, walkedPath, output, context ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Immutable trie node, with its outgoing edges sorted by character for binary search.
+     */
+    private static final class TrieNode {
+
+        private final long terminals;       // children whose prefix ends at this node
+        private final char[] edgeChars;
+        private final TrieNode[] edgeNodes;
+
+        private TrieNode( long terminals, char[] edgeChars, TrieNode[] edgeNodes ) {
+            this.terminals = terminals;
+            this.edgeChars = edgeChars;
+            this.edgeNodes = edgeNodes;
+        }
+
+        /**
+         * @return bit set of the children whose prefix is a prefix of the key
+         */
+        private long matchPrefixes( String key ) {
+            long matched = 0L;
+            TrieNode node = this;
+            int index = 0;
+
+            while ( node != null ) {
+                matched |= node.terminals;
+
+                if ( index == key.length() ) {
+                    break;
+                }
+
+                int edge = Arrays.binarySearch( node.edgeChars, key.charAt( index++ ) );
+                node = edge >= 0 ? node.edgeNodes[edge] : null;
+            }
+            return matched;
+        }
+    }
+
+    private static final class TrieBuilder {
+
+        private long terminals = 0L;
+        private final TreeMap<Character, TrieBuilder> edges = new TreeMap<>();
+
+        private void add( String prefix, int ordinal ) {
+            TrieBuilder node = this;
+            for ( int index = 0; index < prefix.length(); index++ ) {
+                char c = prefix.charAt( index );
+                TrieBuilder next = node.edges.get( c );
+                if ( next == null ) {
+                    next = new TrieBuilder();
+                    node.edges.put( c, next );
+                }
+                node = next;
+            }
+            node.terminals |= 1L << ordinal;
+        }
+
+        private TrieNode build() {
+            char[] edgeChars = new char[ edges.size() ];
+            List<TrieNode> edgeNodes = new ArrayList<>( edges.size() );
+
+            int index = 0;
+            for ( Map.Entry<Character, TrieBuilder> edge : edges.entrySet() ) {
+                edgeChars[index++] = edge.getKey();
+                edgeNodes.add( edge.getValue().build() );
+            }
+            return new TrieNode( terminals, edgeChars, edgeNodes.toArray( new TrieNode[ edgeNodes.size() ] ) );
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.spec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Positional view of the literal children of an OrderedCompositeSpec, built once when the spec is built.
+ *
+ * Each literal child gets an ordinal, which is its position in the spec's literal iteration order.
+ *  That lets an ExecutionStrategy find the literal children that match an input by walking the input,
+ *  and still apply them in spec order.
+ *
+ * The keys are also parsed as array indexes up front, so that applying the literal children to a List
+ *  input does not have to parse them on every transform.
+ */
+public final class LiteralChildIndex<T extends BaseSpec> {
+
+    /**
+     * Sentinel array index for keys that can not address a List element.
+     *
+     * It is larger than any List size, so a plain "index < list.size()" check skips it.
+     */
+    public static final int NOT_AN_INDEX = Integer.MAX_VALUE;
+
+    private final String[] keys;
+    private final BaseSpec[] children;
+    private final int[] arrayIndexes;
+    private final Map<String, Integer> ordinals;
+
+    public LiteralChildIndex( Map<String, T> literalChildren ) {
+
+        keys = new String[ literalChildren.size() ];
+        children = new BaseSpec[ literalChildren.size() ];
+        arrayIndexes = new int[ literalChildren.size() ];
+        ordinals = new HashMap<>( literalChildren.size() * 2 );
+
+        int ordinal = 0;
+        for ( Map.Entry<String, T> entry : literalChildren.entrySet() ) {
+            keys[ordinal] = entry.getKey();
+            children[ordinal] = entry.getValue();
+            arrayIndexes[ordinal] = parseArrayIndex( entry.getKey() );
+            ordinals.put( entry.getKey(), ordinal );
+            ordinal++;
+        }
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String getKey( int ordinal ) {
+        return keys[ordinal];
+    }
+
+    public BaseSpec getChild( int ordinal ) {
+        return children[ordinal];
+    }
+
+    /**
+     * @return the key of the literal child as a List index, or NOT_AN_INDEX if the key is not a non-negative integer
+     */
+    public int getArrayIndex( int ordinal ) {
+        return arrayIndexes[ordinal];
+    }
+
+    /**
+     * @return the ordinal of the literal child with the given key, or -1 if there is none
+     */
+    public int ordinalOf( String key ) {
+        Integer ordinal = ordinals.get( key );
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    private static int parseArrayIndex( String key ) {
+        try {
+            int index = Integer.parseInt( key );
+            return index >= 0 ? index : NOT_AN_INDEX;
+        }
+        catch( NumberFormatException nfe ) {
+            // If the data is an Array, but the spec keys are Non-Integer Strings,
+            //  we are annoyed, but we don't stop the whole transform.
+            // Just this part of the Transform won't work.
+            return NOT_AN_INDEX;
+        }
+    }
+}
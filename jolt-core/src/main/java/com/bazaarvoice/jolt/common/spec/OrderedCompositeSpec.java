@@ -35,7 +35,17 @@ public interface OrderedCompositeSpec extends BaseSpec {
 
     Map<String, ? extends BaseSpec> getLiteralChildren();
 
+    /**
+     * @return positional view of getLiteralChildren(), built once with the spec
+     */
+    LiteralChildIndex<? extends BaseSpec> getLiteralChildIndex();
+
     List<? extends BaseSpec> getComputedChildren();
 
+    /**
+     * @return combined matcher over getComputedChildren(), built once with the spec
+     */
+    ComputedChildMatcher getComputedChildMatcher();
+
     ExecutionStrategy determineExecutionStrategy();
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.spec;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonicalization table for immutable, compiled spec objects, so that structurally identical pieces of
+ *  different specs share one instance.
+ *
+ * Apps that load thousands of similar specs (eg one Chainr per tenant) would otherwise hold a separate copy
+ *  of every PathElement, writer and spec node of every spec; with the table, memory scales with the number
+ *  of distinct spec pieces instead.
+ *
+ * Values are held weakly : once no spec uses a canonical instance any more, it is collected and its entry
+ *  is dropped on the next intern or size call.
+ *
+ * Keys are held strongly until then, so whatever a key refers to outlives its value by a little.  Keys should
+ *  therefore only refer to Strings and to things the value itself holds, like its already interned children,
+ *  and never to per instance state, like the ContainerSizeHints of one Shiftr, which the static SHARED table
+ *  would otherwise keep alive.
+ *
+ * Only intern objects that are immutable and do not depend on anything outside their key.  Keys are built
+ *  with key(...), and are compared with equals, so nested specs that were themselves interned can be used
+ *  in a key as is; their identity is their structure.
+ *
+ * Thread safe.
+ */
+public final class SpecInterner {
+
+    /**
+     * The table the stock spec builders use.
+     */
+    public static final SpecInterner SHARED = new SpecInterner();
+
+    private final ConcurrentMap<Object, ValueReference> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * @param parts things that together fully determine the value, first of which should say what kind of value it is
+     * @return key with value based equals and hashCode
+     */
+    public static Object key( Object... parts ) {
+        return Arrays.asList( parts );
+    }
+
+    /**
+     * @param key built with key(...)
+     * @param value freshly built value for that key
+     * @return the canonical instance for the key : a previously interned value if one is still alive, else the passed in value
+     */
+    @SuppressWarnings( "unchecked" )
+    public <T> T intern( Object key, T value ) {
+        expungeCollected();
+
+        while ( true ) {
+            ValueReference existing = table.get( key );
+            if ( existing != null ) {
+                Object canonical = existing.get();
+                if ( canonical != null ) {
+                    return (T) canonical;
+                }
+                // collected, but not expunged yet; replace it
+                if ( table.replace( key, existing, new ValueReference( key, value, collected ) ) ) {
+                    return value;
+                }
+            }
+            else if ( table.putIfAbsent( key, new ValueReference( key, value, collected ) ) == null ) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @return number of entries, which may still include ones whose value was collected very recently
+     */
+    public int size() {
+        expungeCollected();
+        return table.size();
+    }
+
+    private void expungeCollected() {
+        ValueReference reference;
+        while ( ( reference = (ValueReference) collected.poll() ) != null ) {
+            // only if it was not already replaced by a live value
+            table.remove( reference.key, reference );
+        }
+    }
+
+    private static final class ValueReference extends WeakReference<Object> {
+
+        private final Object key;
+
+        private ValueReference( Object key, Object value, ReferenceQueue<Object> queue ) {
+            super( value, queue );
+            this.key = key;
+        }
+    }
+}
@@ -21,14 +21,20 @@ import com.bazaarvoice.jolt.common.Optional;
  * A tuple class that contains the data for one level of a
  *  tree walk, aka a reference to the input for that level, and
  *  the LiteralPathElement that was matched at that level.
+ *
+ * PathSteps are reused as frames by the WalkedPath, so only it can change them.
  */
 public final class PathStep {
 
-    private final Object treeRef;
-    private final MatchedElement matchedElement;
-    private final Optional<Integer> origSize;
+    private Object treeRef;
+    private MatchedElement matchedElement;
+    private Optional<Integer> origSize;
 
     public PathStep(Object treeRef, MatchedElement matchedElement ) {
+        set( treeRef, matchedElement );
+    }
+
+    void set( Object treeRef, MatchedElement matchedElement ) {
         this.treeRef = treeRef;
         this.matchedElement = matchedElement;
         if (matchedElement instanceof ArrayMatchedElement) {
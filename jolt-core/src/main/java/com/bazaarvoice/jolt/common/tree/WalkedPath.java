@@ -15,8 +15,9 @@
  */
 package com.bazaarvoice.jolt.common.tree;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * DataStructure used by a SpecTransform during it's parallel tree walk.
@@ -31,31 +32,103 @@ import java.util.Collection;
  *
  * It is expected that as the SpecTransform navigates down the tree, MatchedElements will be added and then
  *  removed when that subtree has been walked.
+ *
+ * The PathStep frames of the stack are reused in place, so walking a tree does not allocate a PathStep per
+ *  visited node.  As a consequence, a PathStep returned by this class is only valid until its level is
+ *  removed, and should not be held on to.
  */
-public class WalkedPath extends ArrayList<PathStep> {
+public class WalkedPath {
+
+    private static final int DEFAULT_DEPTH = 8;
+
+    private PathStep[] steps;
+    private int size;
 
     public WalkedPath() {
-        super();
+        this( DEFAULT_DEPTH );
+    }
+
+    /**
+     * @param expectedDepth number of levels to preallocate frames for, see requiredDepth
+     */
+    public WalkedPath( int expectedDepth ) {
+        steps = new PathStep[ Math.max( expectedDepth, 1 ) ];
     }
 
-    public WalkedPath(Collection<PathStep> c) {
-        super(c);
+    public WalkedPath( Collection<PathStep> c ) {
+        this( c.size() );
+        for ( PathStep pathStep : c ) {
+            add( pathStep.getTreeRef(), pathStep.getMatchedElement() );
+        }
     }
 
     public WalkedPath( Object treeRef, MatchedElement matchedElement ) {
-        super();
-        this.add( new PathStep( treeRef, matchedElement ) );
+        this();
+        add( treeRef, matchedElement );
+    }
+
+    /**
+     * Compute how deep a WalkedPath will get when walking a spec, so that the stack never has to grow.
+     *
+     * That is one level for the transform's own root element, plus one per level of nested spec Maps,
+     *  plus one for the leaves.
+     */
+    public static int requiredDepth( Object spec ) {
+        return 1 + specDepth( spec );
+    }
+
+    private static int specDepth( Object spec ) {
+        int maxChildDepth = 0;
+        if ( spec instanceof Map ) {
+            for ( Object child : ( (Map<?, ?>) spec ).values() ) {
+                maxChildDepth = Math.max( maxChildDepth, specDepth( child ) );
+            }
+        }
+        return 1 + maxChildDepth;
     }
 
     /**
-     * Convenience method
+     * Push a level onto the stack, reusing the PathStep frame of a previously removed level if there is one.
      */
     public boolean add( Object treeRef, MatchedElement matchedElement ) {
-        return super.add( new PathStep( treeRef, matchedElement ) );
+        if ( size == steps.length ) {
+            steps = Arrays.copyOf( steps, size * 2 );
+        }
+
+        PathStep step = steps[size];
+        if ( step == null ) {
+            steps[size] = new PathStep( treeRef, matchedElement );
+        }
+        else {
+            step.set( treeRef, matchedElement );
+        }
+        size++;
+        return true;
     }
 
     public void removeLast() {
-        remove(size() - 1);
+        if ( size == 0 ) {
+            throw new IndexOutOfBoundsException( "removeLast called on an empty WalkedPath" );
+        }
+        size--;
+
+        // don't hang on to the input data after the walk has left it
+        steps[size].set( null, null );
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public PathStep get( int index ) {
+        if ( index < 0 || index >= size ) {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+        }
+        return steps[index];
     }
 
     /**
@@ -65,10 +138,10 @@ public class WalkedPath extends ArrayList<PathStep> {
         if (isEmpty()) {
             return null;
         }
-        return get(size() - 1 - idxFromEnd);
+        return get(size - 1 - idxFromEnd);
     }
 
     public PathStep lastElement() {
-        return get(size() - 1);
+        return get(size - 1);
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.bazaarvoice.jolt.defaultr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.DeepCopy;
 
 import java.util.ArrayList;
@@ -29,7 +30,11 @@ public class ArrayKey extends Key {
     private int keyInt = -1;
 
     public ArrayKey( String jsonKey, Object spec ) {
-        super( jsonKey, spec );
+        this( jsonKey, spec, ContainerFactory.DEFAULT );
+    }
+
+    public ArrayKey( String jsonKey, Object spec, ContainerFactory containerFactory ) {
+        super( jsonKey, spec, containerFactory );
 
         // Handle ArrayKey specific stuff
         switch( getOp() ){
@@ -65,15 +70,35 @@ public class ArrayKey extends Key {
             List<Object> defaultList = (List<Object>) container;
 
             // Find all defaultee keys that match the childKey spec.  Simple for Literal keys, more work for * and |.
-            for ( Integer literalKey : determineMatchingContainerKeys( defaultList ) ) {
-                applyLiteralKeyToContainer( literalKey, defaultList );
+            switch ( getOp() ) {
+                case LITERAL:
+                    // Container it should get this literal value added to it
+                    applyLiteralKeyToContainer( keyInt, defaultList );
+                    break;
+                case STAR:
+                    // Identify all its keys
+                    // this assumes the container list has already been expanded to the right size
+                    for ( int index = 0; index < defaultList.size(); index++ ) {
+                        applyLiteralKeyToContainer( index, defaultList );
+                    }
+                    break;
+                case OR:
+                    // Identify the intersection between the container "keys" and the OR values
+                    for ( Integer orValue : keyInts ) {
+                        if ( orValue < defaultList.size() ) {
+                            applyLiteralKeyToContainer( orValue, defaultList );
+                        }
+                    }
+                    break;
+                default :
+                    throw new IllegalStateException( "Someone has added an op type without changing this method." );
             }
         }
         // Else there is disagreement (with respect to Array vs Map) between the data in
         //  the Container vs the Defaultr Spec type for this key.  Container wins, so do nothing.
     }
 
-    private void applyLiteralKeyToContainer( Integer literalIndex, List<Object> container ) {
+    private void applyLiteralKeyToContainer( int literalIndex, List<Object> container ) {
 
         Object defaulteeValue = container.get( literalIndex );
 
@@ -92,35 +117,4 @@ public class ArrayKey extends Key {
             applyChildren( defaulteeValue );
         }
     }
-
-    private Collection<Integer> determineMatchingContainerKeys( List<Object> container ) {
-
-        switch ( getOp() ) {
-            case LITERAL:
-                // Container it should get these literal values added to it
-                return keyInts;
-            case STAR:
-                // Identify all its keys
-                // this assumes the container list has already been expanded to the right size
-                List defaultList = (List) container;
-                List<Integer> allIndexes = new ArrayList<>( defaultList.size() );
-                for ( int index = 0; index < defaultList.size(); index++ ) {
-                    allIndexes.add( index );
-                }
-
-                return allIndexes;
-            case OR:
-                // Identify the intersection between the container "keys" and the OR values
-                List<Integer> indexesInRange = new ArrayList<>();
-
-                for ( Integer orValue : keyInts ) {
-                    if ( orValue < ((List) container ).size() ) {
-                        indexesInRange.add( orValue );
-                    }
-                }
-                return indexesInRange;
-            default :
-                throw new IllegalStateException( "Someone has added an op type without changing this method." );
-        }
-    }
 }
@@ -16,14 +16,13 @@
 package com.bazaarvoice.jolt.defaultr;
 
 import com.bazaarvoice.jolt.Defaultr;
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.exception.TransformException;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,26 +38,32 @@ public abstract class Key {
      * @return Set of Keys from this level in the spec
      */
     public static Set<Key> parseSpec( Map<String, Object> spec ) {
-        return processSpec( false, spec );
+        return parseSpec( spec, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * @param containerFactory creates the Maps and Lists the Keys add to the defaultee
+     */
+    public static Set<Key> parseSpec( Map<String, Object> spec, ContainerFactory containerFactory ) {
+        return processSpec( false, spec, containerFactory );
     }
 
     /**
      * Recursively walk the spec input tree.  Handle arrays by telling DefaultrKeys if they need to be ArrayKeys, and
      *  to find the max default array length.
      */
-    private static Set<Key> processSpec( boolean parentIsArray, Map<String, Object> spec ) {
-
-        // TODO switch to List<Key> and sort before returning
+    private static Set<Key> processSpec( boolean parentIsArray, Map<String, Object> spec, ContainerFactory containerFactory ) {
 
-        Set<Key> result = new HashSet<>();
+        // spec order, so that Keys of the same precedence are always applied in the same order
+        Set<Key> result = new LinkedHashSet<>();
 
         for ( String key : spec.keySet() ) {
             Object subSpec = spec.get( key );
             if ( parentIsArray ) {
-                result.add( new ArrayKey( key, subSpec ) ); // this will recursively call processSpec if needed
+                result.add( new ArrayKey( key, subSpec, containerFactory ) ); // this will recursively call processSpec if needed
             }
             else {
-                result.add( new MapKey( key, subSpec ) ); // this will recursively call processSpec if needed
+                result.add( new MapKey( key, subSpec, containerFactory ) ); // this will recursively call processSpec if needed
             }
         }
 
@@ -80,10 +85,21 @@ public abstract class Key {
     protected Set<Key> children = null;
     protected Object literalValue = null;
 
+    // the children, sorted by precedence once up front : literals, |, then *
+    private Key[] orderedChildren = null;
+
     protected String rawKey;
     protected List<String> keyStrings;
 
+    protected final ContainerFactory containerFactory;
+
     public Key( String rawJsonKey, Object spec ) {
+        this( rawJsonKey, spec, ContainerFactory.DEFAULT );
+    }
+
+    public Key( String rawJsonKey, Object spec, ContainerFactory containerFactory ) {
+
+        this.containerFactory = containerFactory;
 
         rawKey = rawJsonKey;
         if ( rawJsonKey.endsWith( Defaultr.WildCards.ARRAY ) ) {
@@ -110,7 +126,10 @@ public abstract class Key {
 
         // Spec is String -> Map   or   String -> Literal only
         if ( spec instanceof Map ) {
-            children = processSpec( isArrayOutput(), (Map<String, Object>) spec );
+            children = processSpec( isArrayOutput(), (Map<String, Object>) spec, containerFactory );
+
+            orderedChildren = children.toArray( new Key[ children.size() ] );
+            Arrays.sort( orderedChildren, keyComparator );
 
             if ( isArrayOutput() ) {
                 // loop over children and find the max literal value
@@ -153,12 +172,8 @@ public abstract class Key {
             }
         }
 
-        // Find and sort the children DefaultrKeys by precedence: literals, |, then *
-        ArrayList<Key> sortedChildren = new ArrayList<>();
-        sortedChildren.addAll( children );
-        Collections.sort( sortedChildren, keyComparator );
-
-        for ( Key childKey : sortedChildren ) {
+        // Apply the children DefaultrKeys by precedence: literals, |, then *
+        for ( Key childKey : orderedChildren ) {
             childKey.applyChild( defaultee );
         }
     }
@@ -190,9 +205,9 @@ public abstract class Key {
 
     public Object createOutputContainerObject() {
         if ( isArrayOutput() ) {
-            return new ArrayList<>();
+            return containerFactory.newList( getOutputArraySize() + 1 );
         } else {
-            return new LinkedHashMap<String, Object>();
+            return containerFactory.newMap( children == null ? 0 : children.size() );
         }
     }
 
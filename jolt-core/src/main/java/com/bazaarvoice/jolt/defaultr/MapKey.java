@@ -15,17 +15,22 @@
  */
 package com.bazaarvoice.jolt.defaultr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.DeepCopy;
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 public class MapKey extends Key {
 
+    private final String literalKey;
+
     public MapKey( String jsonKey, Object spec ) {
-        super( jsonKey, spec );
+        this( jsonKey, spec, ContainerFactory.DEFAULT );
+    }
+
+    public MapKey( String jsonKey, Object spec, ContainerFactory containerFactory ) {
+        super( jsonKey, spec, containerFactory );
+        literalKey = getOp() == OPS.LITERAL ? keyStrings.get( 0 ) : null;
     }
 
     @Override
@@ -40,8 +45,27 @@ public class MapKey extends Key {
             Map<String, Object> defaulteeMap = (Map<String, Object>) container;
 
             // Find all defaultee keys that match the childKey spec.  Simple for Literal keys, more work for * and |.
-            for ( String literalKey : determineMatchingContainerKeys( defaulteeMap ) ) {
-                applyLiteralKeyToContainer( literalKey, defaulteeMap );
+            switch ( getOp() ) {
+                case LITERAL:
+                    // the container should get this literal value added to it
+                    applyLiteralKeyToContainer( literalKey, defaulteeMap );
+                    break;
+                case STAR:
+                    // Identify all its keys
+                    for ( String key : defaulteeMap.keySet() ) {
+                        applyLiteralKeyToContainer( key, defaulteeMap );
+                    }
+                    break;
+                case OR:
+                    // Identify the intersection between its keys and the OR values
+                    for ( String key : keyStrings ) {
+                        if ( defaulteeMap.containsKey( key ) ) {
+                            applyLiteralKeyToContainer( key, defaulteeMap );
+                        }
+                    }
+                    break;
+                default :
+                    throw new IllegalStateException( "Someone has added an op type without changing this method." );
             }
         }
         // Else there is disagreement (with respect to Array vs Map) between the data in
@@ -67,23 +91,4 @@ public class MapKey extends Key {
             applyChildren( defaulteeValue );
         }
     }
-
-    private Collection<String> determineMatchingContainerKeys( Map<String, Object> container ) {
-
-        switch ( getOp() ) {
-            case LITERAL:
-                // the container should get these literal values added to it
-                return keyStrings;
-            case STAR:
-                // Identify all its keys
-                return container.keySet();
-            case OR:
-                // Identify the intersection between its keys and the OR values
-                Set<String> intersection = new HashSet<>( container.keySet() );
-                intersection.retainAll( keyStrings );
-                return intersection;
-            default :
-                throw new IllegalStateException( "Someone has added an op type without changing this method." );
-        }
-    }
 }
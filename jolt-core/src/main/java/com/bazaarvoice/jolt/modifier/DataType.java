@@ -16,11 +16,10 @@
 
 package com.bazaarvoice.jolt.modifier;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
 import com.bazaarvoice.jolt.common.tree.WalkedPath;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -66,8 +65,8 @@ public abstract class DataType {
         }
 
         @Override
-        protected Object createValue() {
-            return new ArrayList<>();
+        protected Object createValue( ContainerFactory containerFactory ) {
+            return containerFactory.newList( 0 );
         }
 
         @Override
@@ -96,8 +95,8 @@ public abstract class DataType {
      */
     public static final class MAP extends DataType {
         @Override
-        protected Object createValue() {
-            return new LinkedHashMap<>();
+        protected Object createValue( ContainerFactory containerFactory ) {
+            return containerFactory.newMap( 0 );
         }
 
         @Override
@@ -116,7 +115,7 @@ public abstract class DataType {
         }
 
         @Override
-        protected Object createValue() {
+        protected Object createValue( ContainerFactory containerFactory ) {
             throw new RuntimeException( "Cannot create for RUNTIME Type" );
         }
     }
@@ -127,9 +126,9 @@ public abstract class DataType {
     public abstract boolean isCompatible(Object input);
 
     /**
-     * MAP and LIST types overrides this method to return appropriate new map or list
+     * MAP and LIST types overrides this method to return appropriate new map or list, built by the given factory
      */
-    protected abstract Object createValue();
+    protected abstract Object createValue( ContainerFactory containerFactory );
 
     /**
      * LIST overrides this method to expand the source (list) such that in can support
@@ -141,15 +140,28 @@ public abstract class DataType {
     }
 
     /**
-     * Creates an empty map/list, as required by spec, in the parent map/list at given key/index
+     * Creates an empty LinkedHashMap/ArrayList, as required by spec, in the parent map/list at given key/index
      *
      * @param keyOrIndex of the parent object to create
      * @param walkedPath containing the parent object
      * @param opMode     to determine if this write operation is allowed
      * @return newly created object
      */
-    @SuppressWarnings( "unchecked" )
     public Object create( String keyOrIndex, WalkedPath walkedPath, OpMode opMode ) {
+        return create( keyOrIndex, walkedPath, opMode, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * Creates an empty map/list, as required by spec, in the parent map/list at given key/index
+     *
+     * @param keyOrIndex       of the parent object to create
+     * @param walkedPath       containing the parent object
+     * @param opMode           to determine if this write operation is allowed
+     * @param containerFactory to build the new map/list with
+     * @return newly created object, as held by the parent
+     */
+    @SuppressWarnings( "unchecked" )
+    public Object create( String keyOrIndex, WalkedPath walkedPath, OpMode opMode, ContainerFactory containerFactory ) {
         Object parent = walkedPath.lastElement().getTreeRef();
         Optional<Integer> origSizeOptional = walkedPath.lastElement().getOrigSize();
         int index = -1;
@@ -158,14 +170,16 @@ public abstract class DataType {
         }
         catch ( Exception ignored ) {
         }
+        // read the value back rather than returning the one we built, as some parents, eg JsonNode views,
+        //  store a converted copy of it, and the children have to be written into whatever the parent holds
         Object value = null;
         if ( parent instanceof Map && opMode.isApplicable( (Map) parent, keyOrIndex ) ) {
-            value = createValue();
-            ( (Map) parent ).put( keyOrIndex, value );
+            ( (Map) parent ).put( keyOrIndex, createValue( containerFactory ) );
+            value = ( (Map) parent ).get( keyOrIndex );
         }
         else if ( parent instanceof List && opMode.isApplicable( (List) parent, index, origSizeOptional.get() ) ) {
-            value = createValue();
-            ( (List) parent ).set( index, value );
+            ( (List) parent ).set( index, createValue( containerFactory ) );
+            value = ( (List) parent ).get( index );
         }
         return value;
     }
@@ -16,6 +16,7 @@
 
 package com.bazaarvoice.jolt.modifier;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.spec.SpecBuilder;
 import com.bazaarvoice.jolt.modifier.function.Function;
 import com.bazaarvoice.jolt.modifier.spec.ModifierCompositeSpec;
@@ -32,11 +33,24 @@ public class TemplatrSpecBuilder extends SpecBuilder<ModifierSpec> {
 
     private final OpMode opMode;
     private final Map<String, Function> functionsMap;
+    private final ContainerFactory containerFactory;
 
 
     public TemplatrSpecBuilder( OpMode opMode, Map<String, Function> functionsMap ) {
+        this( opMode, functionsMap, ContainerFactory.DEFAULT );
+    }
+
+    public TemplatrSpecBuilder( OpMode opMode, Map<String, Function> functionsMap, ContainerFactory containerFactory ) {
         this.opMode = opMode;
         this.functionsMap = functionsMap;
+        this.containerFactory = containerFactory;
+    }
+
+    /**
+     * @return the factory the specs create missing maps and lists with
+     */
+    public ContainerFactory getContainerFactory() {
+        return containerFactory;
     }
 
     @Override
@@ -17,6 +17,7 @@
 package com.bazaarvoice.jolt.modifier.spec;
 
 import com.bazaarvoice.jolt.common.ComputedKeysComparator;
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.ExecutionStrategy;
 import com.bazaarvoice.jolt.common.Optional;
 import com.bazaarvoice.jolt.common.pathelement.ArrayPathElement;
@@ -27,6 +28,8 @@ import com.bazaarvoice.jolt.common.pathelement.StarDoublePathElement;
 import com.bazaarvoice.jolt.common.pathelement.StarRegexPathElement;
 import com.bazaarvoice.jolt.common.pathelement.StarSinglePathElement;
 import com.bazaarvoice.jolt.common.spec.BaseSpec;
+import com.bazaarvoice.jolt.common.spec.ComputedChildMatcher;
+import com.bazaarvoice.jolt.common.spec.LiteralChildIndex;
 import com.bazaarvoice.jolt.common.spec.OrderedCompositeSpec;
 import com.bazaarvoice.jolt.common.tree.ArrayMatchedElement;
 import com.bazaarvoice.jolt.common.tree.MatchedElement;
@@ -62,9 +65,12 @@ public class ModifierCompositeSpec extends ModifierSpec implements OrderedCompos
     }
 
     private final Map<String, ModifierSpec> literalChildren;
+    private final LiteralChildIndex<ModifierSpec> literalChildIndex;
     private final List<ModifierSpec> computedChildren;
+    private final ComputedChildMatcher computedChildMatcher;
     private final ExecutionStrategy executionStrategy;
     private final DataType specDataType;
+    private final ContainerFactory containerFactory;
 
     public ModifierCompositeSpec( final String key, final Map<String, Object> spec, final OpMode opMode, TemplatrSpecBuilder specBuilder ) {
         super(key, opMode);
@@ -124,6 +130,7 @@ public class ModifierCompositeSpec extends ModifierSpec implements OrderedCompos
 
         // set the dataType from calculated indexes
         specDataType = DataType.determineDataType( confirmedArrayAtIndex, confirmedMapAtIndex, maxExplicitIndexFromSpec );
+        containerFactory = specBuilder.getContainerFactory();
 
         // Only the computed children need to be sorted
         Collections.sort( computed, computedKeysComparator );
@@ -131,7 +138,9 @@ public class ModifierCompositeSpec extends ModifierSpec implements OrderedCompos
         computed.trimToSize();
 
         literalChildren = Collections.unmodifiableMap( literals );
+        literalChildIndex = new LiteralChildIndex<>( literalChildren );
         computedChildren = Collections.unmodifiableList( computed );
+        computedChildMatcher = new ComputedChildMatcher( computedChildren );
 
         // extract generic execution strategy
         executionStrategy = determineExecutionStrategy();
@@ -150,7 +159,7 @@ public class ModifierCompositeSpec extends ModifierSpec implements OrderedCompos
 
         // create input if it is null
         if( input == null ) {
-            input = specDataType.create( inputKey, walkedPath, opMode );
+            input = specDataType.create( inputKey, walkedPath, opMode, containerFactory );
             // if input has changed, wrap
             if ( input != null ) {
                 inputOptional = Optional.of( input );
@@ -183,11 +192,21 @@ public class ModifierCompositeSpec extends ModifierSpec implements OrderedCompos
         return literalChildren;
     }
 
+    @Override
+    public LiteralChildIndex<ModifierSpec> getLiteralChildIndex() {
+        return literalChildIndex;
+    }
+
     @Override
     public List<? extends BaseSpec> getComputedChildren() {
         return computedChildren;
     }
 
+    @Override
+    public ComputedChildMatcher getComputedChildMatcher() {
+        return computedChildMatcher;
+    }
+
     @Override
     public ExecutionStrategy determineExecutionStrategy() {
 
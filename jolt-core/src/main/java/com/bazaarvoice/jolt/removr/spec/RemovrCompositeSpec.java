@@ -20,13 +20,12 @@ import com.bazaarvoice.jolt.common.pathelement.StarPathElement;
 import com.bazaarvoice.jolt.exception.SpecException;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.RandomAccess;
 
 /*
     Sample Spec
@@ -80,7 +79,7 @@ public class RemovrCompositeSpec extends RemovrSpec {
     }
 
     @Override
-    public List<String> applyToMap( Map<String, Object> inputMap ) {
+    public void applyToMap( Map<String, Object> inputMap, List<String> keysToRemove ) {
 
         if ( pathElement instanceof LiteralPathElement ) {
             Object subInput = inputMap.get( pathElement.getRawKey() );
@@ -100,12 +99,11 @@ public class RemovrCompositeSpec extends RemovrSpec {
             }
         }
 
-        // Composite Nodes always return an empty list, as they dont actually remove anything.
-        return Collections.emptyList();
+        // Composite Nodes never mark anything, as they dont actually remove anything.
     }
 
     @Override
-    public List<Integer> applyToList( List<Object> inputList ) {
+    public void applyToList( List<Object> inputList, BitSet indexesToRemove ) {
 
         // IF the input is a List, the only thing that will match is a Literal or a "*"
         if ( pathElement instanceof LiteralPathElement ) {
@@ -123,12 +121,11 @@ public class RemovrCompositeSpec extends RemovrSpec {
             }
         }
 
-        // Composite Nodes always return an empty list, as they dont actually remove anything.
-        return Collections.emptyList();
+        // Composite Nodes never mark anything, as they dont actually remove anything.
     }
 
     /**
-     * Call our child nodes, build up the set of keys or indices to actually remove, and then
+     * Call our child nodes, mark the keys or indices to actually remove, and then
      *  remove them.
      */
     private void processChildren( List<RemovrSpec> children, Object subInput ) {
@@ -138,41 +135,69 @@ public class RemovrCompositeSpec extends RemovrSpec {
             if( subInput instanceof List ) {
 
                 List<Object> subList = (List<Object>) subInput;
-                Set<Integer> indiciesToRemove = new HashSet<>();
+                BitSet indiciesToRemove = new BitSet( subList.size() );
 
-                // build a list of all indicies to remove
+                // mark all indicies to remove
                 for(RemovrSpec childSpec : children) {
-                    indiciesToRemove.addAll( childSpec.applyToList( subList ) );
+                    childSpec.applyToList( subList, indiciesToRemove );
                 }
 
-                List<Integer> uniqueIndiciesToRemove = new ArrayList<>( indiciesToRemove );
-                // Sort the list from Biggest to Smallest, so that when we remove items from the input
-                //  list we don't muck up the order.
-                // Aka removing 0 _then_ 3 would be bad, because we would have actually removed
-                //  0 and 4 from the "original" list.
-                Collections.sort( uniqueIndiciesToRemove, new Comparator<Integer>() {
-                    @Override
-                    public int compare( Integer o1, Integer o2 ) {
-                        return o2.compareTo( o1 );
-                    }
-                } );
-
-                for ( int index : uniqueIndiciesToRemove ) {
-                    subList.remove( index );
-                }
+                removeIndicies( subList, indiciesToRemove );
             }
             else if (subInput instanceof Map ) {
 
                 Map<String,Object> subInputMap = (Map<String,Object>) subInput;
 
-                List<String> keysToRemove = new LinkedList<>();
+                List<String> keysToRemove = new ArrayList<>();
 
                 for(RemovrSpec childSpec : children) {
-                    keysToRemove.addAll( childSpec.applyToMap( subInputMap ) );
+                    childSpec.applyToMap( subInputMap, keysToRemove );
                 }
 
-                subInputMap.keySet().removeAll( keysToRemove );
+                for ( String key : keysToRemove ) {
+                    subInputMap.remove( key );
+                }
             }
         }
     }
+
+    /**
+     * Removes all the marked indicies in one pass.
+     *
+     * Removing them one at a time would shift the tail of an ArrayList once per removed index, so instead the
+     *  kept elements are slid down over the removed ones, and the leftover tail is removed from its end.
+     */
+    private static void removeIndicies( List<Object> list, BitSet indiciesToRemove ) {
+
+        int removeCount = indiciesToRemove.cardinality();
+        if ( removeCount == 0 ) {
+            return;
+        }
+        if ( removeCount == 1 ) {
+            list.remove( indiciesToRemove.nextSetBit( 0 ) );
+            return;
+        }
+
+        if ( ! ( list instanceof RandomAccess ) ) {
+            Iterator<Object> iter = list.iterator();
+            for ( int index = 0; iter.hasNext(); index++ ) {
+                iter.next();
+                if ( indiciesToRemove.get( index ) ) {
+                    iter.remove();
+                }
+            }
+            return;
+        }
+
+        int size = list.size();
+        int writeIndex = indiciesToRemove.nextSetBit( 0 );
+        for ( int readIndex = writeIndex + 1; readIndex < size; readIndex++ ) {
+            if ( ! indiciesToRemove.get( readIndex ) ) {
+                list.set( writeIndex++, list.get( readIndex ) );
+            }
+        }
+        for ( int index = size - 1; index >= writeIndex; index-- ) {
+            list.remove( index );
+        }
+    }
 }
@@ -19,9 +19,7 @@ import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
 import com.bazaarvoice.jolt.common.pathelement.StarAllPathElement;
 import com.bazaarvoice.jolt.common.pathelement.StarPathElement;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -35,24 +33,22 @@ public class RemovrLeafSpec extends RemovrSpec {
     }
 
     /**
-     * Build a list of keys to remove from the input map, using the pathElement
+     * Collect the keys to remove from the input map, using the pathElement
      *  from the Spec.
      *
      * @param inputMap : Input map from which the spec key needs to be removed.
      */
     @Override
-    public List<String> applyToMap( Map<String, Object> inputMap ) {
+    public void applyToMap( Map<String, Object> inputMap, List<String> keysToRemove ) {
         if ( inputMap == null ) {
-            return null;
+            return;
         }
 
-        List<String> keysToBeRemoved = new LinkedList<>();
-
         if ( pathElement instanceof LiteralPathElement ) {
 
             // if we are a literal, check to see if we match
             if ( inputMap.containsKey( pathElement.getRawKey() ) ) {
-                keysToBeRemoved.add( pathElement.getRawKey() );
+                keysToRemove.add( pathElement.getRawKey() );
             }
         }
         else if ( pathElement instanceof StarPathElement ) {
@@ -63,21 +59,19 @@ public class RemovrLeafSpec extends RemovrSpec {
             for( String key : inputMap.keySet() ) {
 
                 if ( star.stringMatch( key ) ) {
-                    keysToBeRemoved.add( key );
+                    keysToRemove.add( key );
                 }
             }
         }
-
-        return keysToBeRemoved;
     }
 
     /**
      * @param inputList : Input List from which the spec key needs to be removed.
      */
     @Override
-    public List<Integer> applyToList( List<Object> inputList ) {
+    public void applyToList( List<Object> inputList, BitSet indexesToRemove ) {
         if ( inputList == null ) {
-            return null;
+            return;
         }
 
         if ( pathElement instanceof LiteralPathElement ) {
@@ -85,7 +79,7 @@ public class RemovrLeafSpec extends RemovrSpec {
             Integer pathElementInt = getNonNegativeIntegerFromLiteralPathElement();
 
             if ( pathElementInt != null && pathElementInt < inputList.size() ) {
-                return Collections.singletonList( pathElementInt );
+                indexesToRemove.set( pathElementInt );
             }
         }
         else if ( pathElement instanceof StarAllPathElement ) {
@@ -93,17 +87,9 @@ public class RemovrLeafSpec extends RemovrSpec {
             // To be clear, this is kinda silly.
             // If you just wanted to remove the whole list, you could have just
             //  directly removed it, instead of stepping into it and using the "*".
-            List<Integer> toReturn = new ArrayList<>( inputList.size() );
-            for( int index = 0; index < inputList.size(); index++ ) {
-                toReturn.add( index );
-            }
-
-            return toReturn;
+            indexesToRemove.set( 0, inputList.size() );
         }
         // else the pathElement is some other kind which is not supported when running
         //  against arrays, aka "tuna*" makes no sense against a list.
-
-
-        return Collections.emptyList();
     }
 }
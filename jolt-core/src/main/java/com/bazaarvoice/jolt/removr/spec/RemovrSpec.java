@@ -25,6 +25,7 @@ import com.bazaarvoice.jolt.common.pathelement.StarSinglePathElement;
 import com.bazaarvoice.jolt.exception.SpecException;
 import com.bazaarvoice.jolt.utils.StringTools;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -86,18 +87,18 @@ public abstract class RemovrSpec {
     }
 
     /**
-     * Build a list of indices to remove from the input list, using the pathElement
+     * Mark the indices to remove from the input list, using the pathElement
      *  from the Spec.
      *
-     * @return the indicies to remove, otherwise empty List.
+     * @param indexesToRemove where to set the bits of the indices to remove
      */
-    public abstract List<Integer> applyToList( List<Object> inputList );
+    public abstract void applyToList( List<Object> inputList, BitSet indexesToRemove );
 
     /**
-     * Build a list of keys to remove from the input map, using the pathElement
+     * Collect the keys to remove from the input map, using the pathElement
      *  from the Spec.
      *
-     * @return the keys to remove, otherwise empty List.
+     * @param keysToRemove where to add the keys to remove
      */
-    public abstract List<String> applyToMap( Map<String, Object> inputMap );
+    public abstract void applyToMap( Map<String, Object> inputMap, List<String> keysToRemove );
 }
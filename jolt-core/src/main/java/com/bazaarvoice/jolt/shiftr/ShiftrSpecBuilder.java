@@ -16,22 +16,82 @@
 
 package com.bazaarvoice.jolt.shiftr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
+import com.bazaarvoice.jolt.common.PathEvaluatingTraversal;
+import com.bazaarvoice.jolt.common.TraversalBuilder;
 import com.bazaarvoice.jolt.common.spec.SpecBuilder;
+import com.bazaarvoice.jolt.common.spec.SpecInterner;
 import com.bazaarvoice.jolt.shiftr.spec.ShiftrCompositeSpec;
 import com.bazaarvoice.jolt.shiftr.spec.ShiftrLeafSpec;
 import com.bazaarvoice.jolt.shiftr.spec.ShiftrSpec;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
 
+import java.util.ArrayList;
 import java.util.Map;
 
+/**
+ * Builds ShiftrSpec trees.
+ *
+ * With the stock configuration, every writer and spec node it builds is interned in the SpecInterner.SHARED
+ *  table, so specs that repeat the same sub-specs, within one Shiftr or across many, share the objects for them.
+ *  Nodes are interned bottom up, so a node's key can use its already canonical children as is.
+ *
+ * Specs built with ContainerSizeHints or a custom ContainerFactory are not interned : the hints are per Shiftr
+ *  state, and neither should be kept alive by the static table.
+ */
 public class ShiftrSpecBuilder extends SpecBuilder<ShiftrSpec> {
+
+    // traversal builder that uses a ShifterWriter to create a PathEvaluatingTraversal
+    private final TraversalBuilder traversalBuilder;
+
+    private final boolean interning;
+
+    public ShiftrSpecBuilder() {
+        this( null, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * @param sizeHints if not null, every ShiftrWriter of the spec pre-sizes its output containers with it
+     * @param containerFactory creates the output containers of every ShiftrWriter of the spec
+     */
+    public ShiftrSpecBuilder( final ContainerSizeHints sizeHints, final ContainerFactory containerFactory ) {
+        interning = sizeHints == null && containerFactory == ContainerFactory.DEFAULT;
+        traversalBuilder = new TraversalBuilder() {
+            @Override
+            @SuppressWarnings( "unchecked" )
+            public <T extends PathEvaluatingTraversal> T buildFromPath( final String path ) {
+                ShiftrWriter writer = new ShiftrWriter( path, sizeHints, containerFactory );
+                return (T) ( interning ? SpecInterner.SHARED.intern( SpecInterner.key( ShiftrWriter.class, path ), writer ) : writer );
+            }
+        };
+    }
+
+    /**
+     * @return true if the specs this builds are interned, and so can be compiled with ShiftrSpecCompiler.compile( spec, true )
+     */
+    public boolean isInterning() {
+        return interning;
+    }
+
     @SuppressWarnings( "unchecked" )
     @Override
     public ShiftrSpec createSpec( final String keyString, final Object rawRhs ) {
         if( rawRhs instanceof Map ) {
-            return new ShiftrCompositeSpec(keyString, (Map<String, Object>) rawRhs );
+            ShiftrCompositeSpec spec = new ShiftrCompositeSpec(keyString, (Map<String, Object>) rawRhs, this );
+            if ( ! interning ) {
+                return spec;
+            }
+            // literal child order is output order, so the key keeps it
+            Object key = SpecInterner.key( ShiftrCompositeSpec.class, keyString, spec.getSpecialChildren(),
+                                           new ArrayList<>( spec.getLiteralChildren().values() ), spec.getComputedChildren() );
+            return SpecInterner.SHARED.intern( key, spec );
         }
         else {
-            return new ShiftrLeafSpec(keyString, rawRhs );
+            ShiftrLeafSpec spec = new ShiftrLeafSpec(keyString, rawRhs, traversalBuilder );
+            if ( ! interning ) {
+                return spec;
+            }
+            return SpecInterner.SHARED.intern( SpecInterner.key( ShiftrLeafSpec.class, keyString, spec.getShiftrWriters() ), spec );
         }
     }
 }
@@ -15,11 +15,13 @@
  */
 package com.bazaarvoice.jolt.shiftr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.SimpleTraversr;
 import com.bazaarvoice.jolt.traversr.traversal.TraversalStep;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,12 +29,25 @@ import java.util.List;
  */
 public class ShiftrTraversr<DataType> extends SimpleTraversr<DataType> {
 
+    // Size hint for the Lists handleFinalSet makes when more than one value lands on the same key
+    private final SizeHint implicitListHint;
+
     public ShiftrTraversr( String humanPath ) {
         super( humanPath );
+        implicitListHint = null;
     }
 
     public ShiftrTraversr( List<String> paths ) {
-        super( paths );
+        this( paths, null );
+    }
+
+    public ShiftrTraversr( List<String> paths, ContainerSizeHints sizeHints ) {
+        this( paths, sizeHints, ContainerFactory.DEFAULT );
+    }
+
+    public ShiftrTraversr( List<String> paths, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        super( paths, sizeHints, containerFactory );
+        implicitListHint = sizeHints == null ? null : sizeHints.forPath( joinPath( paths, paths.size() ) );
     }
 
     /**
@@ -42,7 +57,7 @@ public class ShiftrTraversr<DataType> extends SimpleTraversr<DataType> {
      *  3) if there something other than a list there, grab it and stuff it and the data into a list
      *     and overwrite what is there with a list.
      */
-    public Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, String key, DataType data ) {
+    public Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, Object key, DataType data ) {
 
         Optional<DataType> optSub = traversalStep.get( tree, key );
 
@@ -52,11 +67,15 @@ public class ShiftrTraversr<DataType> extends SimpleTraversr<DataType> {
         }
         else if ( optSub.get() instanceof List ) {
             // there is a list here, so we just add to it
-            ((List<Object>) optSub.get()).add( data );
+            List<Object> list = (List<Object>) optSub.get();
+            list.add( data );
+            if ( implicitListHint != null ) {
+                implicitListHint.observe( list.size() );
+            }
         }
         else {
             // take whatever is there and make it the first element in an Array
-            List<Object> temp = new ArrayList<>();
+            List<Object> temp = getContainerFactory().newList( implicitListHint == null ? 0 : implicitListHint.get() );
             temp.add( optSub.get() );
             temp.add( data );
 
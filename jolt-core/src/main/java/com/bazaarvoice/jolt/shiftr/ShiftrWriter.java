@@ -15,7 +15,9 @@
  */
 package com.bazaarvoice.jolt.shiftr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.PathEvaluatingTraversal;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
 import com.bazaarvoice.jolt.traversr.Traversr;
 
 import java.util.List;
@@ -30,8 +32,17 @@ public class ShiftrWriter extends PathEvaluatingTraversal {
         super( dotNotation );
     }
 
+    public ShiftrWriter( String dotNotation, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        super( dotNotation, sizeHints, containerFactory );
+    }
+
     @Override
     protected Traversr createTraversr( List<String> paths ) {
         return new ShiftrTraversr( paths );
     }
+
+    @Override
+    protected Traversr createTraversr( List<String> paths, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        return new ShiftrTraversr( paths, sizeHints, containerFactory );
+    }
 }
@@ -30,6 +30,8 @@ import com.bazaarvoice.jolt.common.pathelement.StarRegexPathElement;
 import com.bazaarvoice.jolt.common.pathelement.StarSinglePathElement;
 import com.bazaarvoice.jolt.common.pathelement.TransposePathElement;
 import com.bazaarvoice.jolt.common.spec.BaseSpec;
+import com.bazaarvoice.jolt.common.spec.ComputedChildMatcher;
+import com.bazaarvoice.jolt.common.spec.LiteralChildIndex;
 import com.bazaarvoice.jolt.common.spec.OrderedCompositeSpec;
 import com.bazaarvoice.jolt.common.spec.SpecBuilder;
 import com.bazaarvoice.jolt.common.tree.MatchedElement;
@@ -71,7 +73,7 @@ public class ShiftrCompositeSpec extends ShiftrSpec implements OrderedCompositeS
 
     private static final HashMap<Class, Integer> orderMap;
     private static final ComputedKeysComparator computedKeysComparator;
-    private static final SpecBuilder<ShiftrSpec> specBuilder;
+    private static final SpecBuilder<ShiftrSpec> defaultSpecBuilder;
 
     static {
         orderMap = new HashMap<>();
@@ -81,16 +83,22 @@ public class ShiftrCompositeSpec extends ShiftrSpec implements OrderedCompositeS
         orderMap.put( StarSinglePathElement.class, 4 );
         orderMap.put( StarAllPathElement.class, 5 );
         computedKeysComparator = ComputedKeysComparator.fromOrder( orderMap );
-        specBuilder = new ShiftrSpecBuilder();
+        defaultSpecBuilder = new ShiftrSpecBuilder();
     }
 
     // Three different buckets for the children of this CompositeSpec
     private final List<ShiftrSpec> specialChildren;         // children that aren't actually triggered off the input data
     private final Map<String, ShiftrSpec> literalChildren;  // children that are simple exact matches against the input data
+    private final LiteralChildIndex<ShiftrSpec> literalChildIndex;
     private final List<ShiftrSpec> computedChildren;        // children that are regex matches against the input data
+    private final ComputedChildMatcher computedChildMatcher;
     private final ExecutionStrategy executionStrategy;
 
     public ShiftrCompositeSpec(String rawKey, Map<String, Object> spec ) {
+        this( rawKey, spec, defaultSpecBuilder );
+    }
+
+    public ShiftrCompositeSpec( String rawKey, Map<String, Object> spec, SpecBuilder<ShiftrSpec> specBuilder ) {
         super( rawKey );
 
         ArrayList<ShiftrSpec> special = new ArrayList<>();
@@ -135,7 +143,9 @@ public class ShiftrCompositeSpec extends ShiftrSpec implements OrderedCompositeS
 
         specialChildren = Collections.unmodifiableList( special );
         literalChildren = Collections.unmodifiableMap( literals );
+        literalChildIndex = new LiteralChildIndex<>( literalChildren );
         computedChildren = Collections.unmodifiableList( computed );
+        computedChildMatcher = new ComputedChildMatcher( computedChildren );
 
         executionStrategy = determineExecutionStrategy();
     }
@@ -146,11 +156,29 @@ public class ShiftrCompositeSpec extends ShiftrSpec implements OrderedCompositeS
         return literalChildren;
     }
 
+    @Override
+    public LiteralChildIndex<ShiftrSpec> getLiteralChildIndex() {
+        return literalChildIndex;
+    }
+
     @Override
     public List<ShiftrSpec> getComputedChildren() {
         return computedChildren;
     }
 
+    public List<ShiftrSpec> getSpecialChildren() {
+        return specialChildren;
+    }
+
+    public ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    @Override
+    public ComputedChildMatcher getComputedChildMatcher() {
+        return computedChildMatcher;
+    }
+
     @Override
     public ExecutionStrategy determineExecutionStrategy() {
         if ( computedChildren.isEmpty() ) {
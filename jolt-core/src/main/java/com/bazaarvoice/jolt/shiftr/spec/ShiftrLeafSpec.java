@@ -54,12 +54,16 @@ public class ShiftrLeafSpec extends ShiftrSpec {
     private final List<? extends PathEvaluatingTraversal> shiftrWriters;
 
     public ShiftrLeafSpec( String rawKey, Object rhs ) {
+        this( rawKey, rhs, TRAVERSAL_BUILDER );
+    }
+
+    public ShiftrLeafSpec( String rawKey, Object rhs, TraversalBuilder traversalBuilder ) {
         super( rawKey );
 
         List<PathEvaluatingTraversal> writers;
         if ( rhs instanceof String ) {
             // leaf level so spec is an dot notation write path
-            writers = Arrays.asList( TRAVERSAL_BUILDER.build( rhs ) );
+            writers = Arrays.asList( traversalBuilder.build( rhs ) );
         }
         else if ( rhs instanceof List ) {
             // leaf level list
@@ -68,7 +72,7 @@ public class ShiftrLeafSpec extends ShiftrSpec {
             List<Object> rhsList = (List<Object>) rhs;
             writers = new ArrayList<>( rhsList.size() );
             for ( Object dotNotation : rhsList ) {
-                writers.add( TRAVERSAL_BUILDER.build( dotNotation ) );
+                writers.add( traversalBuilder.build( dotNotation ) );
             }
         }
         else if ( rhs == null ) {
@@ -82,6 +86,10 @@ public class ShiftrLeafSpec extends ShiftrSpec {
         shiftrWriters = Collections.unmodifiableList( writers );
     }
 
+    public List<? extends PathEvaluatingTraversal> getShiftrWriters() {
+        return shiftrWriters;
+    }
+
     /**
      * If this Spec matches the inputkey, then do the work of outputting data and return true.
      *
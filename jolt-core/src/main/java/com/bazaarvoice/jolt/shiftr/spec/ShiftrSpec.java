@@ -18,6 +18,7 @@ package com.bazaarvoice.jolt.shiftr.spec;
 import com.bazaarvoice.jolt.common.PathElementBuilder;
 import com.bazaarvoice.jolt.common.pathelement.MatchablePathElement;
 import com.bazaarvoice.jolt.common.spec.BaseSpec;
+import com.bazaarvoice.jolt.common.spec.SpecInterner;
 
 /**
  * A Spec Object represents a single line from the JSON Shiftr Spec.
@@ -53,7 +54,9 @@ public abstract class ShiftrSpec implements BaseSpec {
     protected final MatchablePathElement pathElement;
 
     public ShiftrSpec(String rawJsonKey) {
-        this.pathElement = PathElementBuilder.buildMatchablePathElement( rawJsonKey );
+        // PathElements are immutable and fully determined by their key, so every spec shares them
+        this.pathElement = SpecInterner.SHARED.intern( SpecInterner.key( MatchablePathElement.class, rawJsonKey ),
+                                                       PathElementBuilder.buildMatchablePathElement( rawJsonKey ) );
     }
 
     @Override
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.shiftr.spec;
+
+import com.bazaarvoice.jolt.common.ExecutionStrategy;
+import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.common.PathEvaluatingTraversal;
+import com.bazaarvoice.jolt.common.pathelement.AtPathElement;
+import com.bazaarvoice.jolt.common.pathelement.DollarPathElement;
+import com.bazaarvoice.jolt.common.pathelement.HashPathElement;
+import com.bazaarvoice.jolt.common.pathelement.LiteralPathElement;
+import com.bazaarvoice.jolt.common.pathelement.MatchablePathElement;
+import com.bazaarvoice.jolt.common.pathelement.TransposePathElement;
+import com.bazaarvoice.jolt.common.spec.BaseSpec;
+import com.bazaarvoice.jolt.common.spec.ComputedChildMatcher;
+import com.bazaarvoice.jolt.common.spec.LiteralChildIndex;
+import com.bazaarvoice.jolt.common.spec.OrderedCompositeSpec;
+import com.bazaarvoice.jolt.common.spec.SpecInterner;
+import com.bazaarvoice.jolt.common.tree.MatchedElement;
+import com.bazaarvoice.jolt.common.tree.WalkedPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns an interpreted ShiftrCompositeSpec tree into a tree of specialized, final node objects.
+ *
+ * The interpreted specs decide at every apply call what kind of PathElement they hold (instanceof chains in
+ *  ShiftrLeafSpec) and how to walk their children (ExecutionStrategy dispatch).  Those decisions only depend
+ *  on the spec, so the compiled nodes make them once, up front :
+ *  - literal keys are matched with a plain String equals, without going through the PathElement
+ *  - "real" leaves (literal, star, and & keys) write their input straight to pre-resolved writer arrays
+ *  - literal only composites walk Map input with one get per literal key, over the pre-resolved key and child
+ *    arrays of their LiteralChildIndex, rather than the containsKey and get of AVAILABLE_LITERALS
+ *  - all other composites run their ExecutionStrategy over the compiled children
+ *
+ * Anything that is not on that fast path (transposes, "@", "$" and "#") keeps its interpreted semantics by
+ *  delegating to the original spec, so the output of a compiled spec is identical to the output of the
+ *  interpreted one.
+ *
+ * Compiled nodes are immutable and therefore shareable across threads, just like the specs they came from.
+ *  Compiled nodes can be interned like the interpreted ones, keyed by their own, already canonical, parts, so
+ *  every Shiftr.Compiled with the same sub-spec shares the compiled node for it.
+ */
+public final class ShiftrSpecCompiler {
+
+    private ShiftrSpecCompiler() {}
+
+    /**
+     * Compile an interpreted Shiftr spec tree, without interning the compiled nodes.
+     *
+     * @param spec root of the interpreted spec tree
+     * @return a BaseSpec that behaves exactly like the passed in spec
+     */
+    public static BaseSpec compile( ShiftrSpec spec ) {
+        return compile( spec, false );
+    }
+
+    /**
+     * Compile an interpreted Shiftr spec tree.
+     *
+     * @param spec root of the interpreted spec tree
+     * @param intern whether to intern the compiled nodes in SpecInterner.SHARED; only pass true for a spec from a
+     *               ShiftrSpecBuilder that isInterning(), else the table would keep its per Shiftr state alive
+     * @return a BaseSpec that behaves exactly like the passed in spec
+     */
+    public static BaseSpec compile( ShiftrSpec spec, boolean intern ) {
+
+        MatchablePathElement pathElement = spec.getPathElement();
+
+        if ( spec instanceof ShiftrLeafSpec ) {
+            if ( isSpecialKey( pathElement ) ) {
+                return spec;
+            }
+            List<? extends PathEvaluatingTraversal> writers = ( (ShiftrLeafSpec) spec ).getShiftrWriters();
+            CompiledLeafSpec compiledLeaf = new CompiledLeafSpec( pathElement, writers );
+            return intern ? SpecInterner.SHARED.intern( SpecInterner.key( CompiledLeafSpec.class, pathElement, writers ), compiledLeaf ) : compiledLeaf;
+        }
+
+        if ( pathElement instanceof TransposePathElement ) {
+            // Transposes swap their input out from under themselves, leave them to the interpreter
+            return spec;
+        }
+
+        ShiftrCompositeSpec composite = (ShiftrCompositeSpec) spec;
+
+        List<BaseSpec> special = new ArrayList<>( composite.getSpecialChildren().size() );
+        for ( ShiftrSpec child : composite.getSpecialChildren() ) {
+            special.add( compile( child, intern ) );
+        }
+
+        Map<String, BaseSpec> literals = new LinkedHashMap<>();
+        for ( Map.Entry<String, ShiftrSpec> entry : composite.getLiteralChildren().entrySet() ) {
+            literals.put( entry.getKey(), compile( entry.getValue(), intern ) );
+        }
+
+        // the computed children are already sorted in precedence order, so compiling them in place keeps that order
+        List<BaseSpec> computed = new ArrayList<>( composite.getComputedChildren().size() );
+        for ( ShiftrSpec child : composite.getComputedChildren() ) {
+            computed.add( compile( child, intern ) );
+        }
+
+        CompiledCompositeSpec compiledComposite = new CompiledCompositeSpec( pathElement, special, literals, computed, composite.getExecutionStrategy() );
+        if ( ! intern ) {
+            return compiledComposite;
+        }
+        // keyed by the compiled parts rather than the interpreted spec, so the table does not keep the interpreted tree alive
+        Object key = SpecInterner.key( CompiledCompositeSpec.class, pathElement, special,
+                                       new ArrayList<>( literals.keySet() ), new ArrayList<>( literals.values() ),
+                                       computed, composite.getExecutionStrategy() );
+        return SpecInterner.SHARED.intern( key, compiledComposite );
+    }
+
+    private static boolean isSpecialKey( MatchablePathElement pathElement ) {
+        return pathElement instanceof AtPathElement ||
+               pathElement instanceof DollarPathElement ||
+               pathElement instanceof HashPathElement ||
+               pathElement instanceof TransposePathElement;
+    }
+
+    /**
+     * Literal keys can be matched without allocating anything but the MatchedElement the walkedPath needs.
+     */
+    private static MatchedElement match( String literalKey, MatchablePathElement pathElement, String inputKey, WalkedPath walkedPath ) {
+        if ( literalKey != null ) {
+            return literalKey.equals( inputKey ) ? new MatchedElement( literalKey ) : null;
+        }
+        return pathElement.match( inputKey, walkedPath );
+    }
+
+    private static String literalKeyOf( MatchablePathElement pathElement ) {
+        return pathElement instanceof LiteralPathElement ? pathElement.getRawKey() : null;
+    }
+
+    /**
+     * Compiled version of a ShiftrLeafSpec whose key is a literal, a star, or an &.
+     *
+     * Those always write their input and always block their siblings, so none of the
+     *  special key handling of ShiftrLeafSpec is needed.
+     */
+    private static final class CompiledLeafSpec implements BaseSpec {
+
+        private final MatchablePathElement pathElement;
+        private final String literalKey;
+        private final PathEvaluatingTraversal[] writers;
+
+        private CompiledLeafSpec( MatchablePathElement pathElement, List<? extends PathEvaluatingTraversal> writers ) {
+            this.pathElement = pathElement;
+            this.literalKey = literalKeyOf( pathElement );
+            this.writers = writers.toArray( new PathEvaluatingTraversal[ writers.size() ] );
+        }
+
+        @Override
+        public MatchablePathElement getPathElement() {
+            return pathElement;
+        }
+
+        @Override
+        public boolean apply( String inputKey, Optional<Object> inputOptional, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
+
+            MatchedElement thisLevel = match( literalKey, pathElement, inputKey, walkedPath );
+            if ( thisLevel == null ) {
+                return false;
+            }
+
+            Object input = inputOptional.get();
+            walkedPath.add( input, thisLevel );
+
+            for ( PathEvaluatingTraversal writer : writers ) {
+                writer.write( input, output, walkedPath );
+            }
+
+            walkedPath.removeLast();
+            walkedPath.lastElement().getMatchedElement().incrementHashCount();
+
+            return true;
+        }
+    }
+
+    /**
+     * Compiled version of a ShiftrCompositeSpec.
+     *
+     * Walks its children with the same ExecutionStrategy the interpreted spec would have used, but running
+     *  over the compiled children, except for the common case of a literal only spec level and a Map input with
+     *  at least as many keys, which is walked directly.  Those walks are not counted by the ExecutionStrategy
+     *  iteration counters.
+     */
+    private static final class CompiledCompositeSpec implements OrderedCompositeSpec {
+
+        private final MatchablePathElement pathElement;
+        private final String literalKey;
+
+        private final BaseSpec[] specialChildren;
+        private final Map<String, BaseSpec> literalChildren;
+        private final LiteralChildIndex<BaseSpec> literalChildIndex;
+        private final List<BaseSpec> computedChildren;
+        private final ComputedChildMatcher computedChildMatcher;
+        private final ExecutionStrategy executionStrategy;
+
+        // pre-resolved from the literalChildIndex, null unless the executionStrategy is AVAILABLE_LITERALS
+        private final String[] literalKeys;
+        private final BaseSpec[] literalSpecs;
+
+        private CompiledCompositeSpec( MatchablePathElement pathElement, List<BaseSpec> special,
+                                       Map<String, BaseSpec> literals, List<BaseSpec> computed,
+                                       ExecutionStrategy executionStrategy ) {
+            this.pathElement = pathElement;
+            this.literalKey = literalKeyOf( pathElement );
+
+            this.specialChildren = special.toArray( new BaseSpec[ special.size() ] );
+            this.literalChildren = Collections.unmodifiableMap( literals );
+            this.literalChildIndex = new LiteralChildIndex<>( literalChildren );
+            this.computedChildren = Collections.unmodifiableList( computed );
+            this.computedChildMatcher = new ComputedChildMatcher( computedChildren );
+            this.executionStrategy = executionStrategy;
+
+            if ( executionStrategy == ExecutionStrategy.AVAILABLE_LITERALS ) {
+                literalKeys = new String[ literalChildIndex.size() ];
+                literalSpecs = new BaseSpec[ literalChildIndex.size() ];
+                for ( int ordinal = 0; ordinal < literalKeys.length; ordinal++ ) {
+                    literalKeys[ordinal] = literalChildIndex.getKey( ordinal );
+                    literalSpecs[ordinal] = literalChildIndex.getChild( ordinal );
+                }
+            }
+            else {
+                literalKeys = null;
+                literalSpecs = null;
+            }
+        }
+
+        @Override
+        public MatchablePathElement getPathElement() {
+            return pathElement;
+        }
+
+        @Override
+        public Map<String, BaseSpec> getLiteralChildren() {
+            return literalChildren;
+        }
+
+        @Override
+        public LiteralChildIndex<BaseSpec> getLiteralChildIndex() {
+            return literalChildIndex;
+        }
+
+        @Override
+        public List<BaseSpec> getComputedChildren() {
+            return computedChildren;
+        }
+
+        @Override
+        public ComputedChildMatcher getComputedChildMatcher() {
+            return computedChildMatcher;
+        }
+
+        @Override
+        public ExecutionStrategy determineExecutionStrategy() {
+            return executionStrategy;
+        }
+
+        @Override
+        public boolean apply( String inputKey, Optional<Object> inputOptional, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
+
+            MatchedElement thisLevel = match( literalKey, pathElement, inputKey, walkedPath );
+            if ( thisLevel == null ) {
+                return false;
+            }
+
+            Object input = inputOptional.get();
+            walkedPath.add( input, thisLevel );
+
+            for ( BaseSpec special : specialChildren ) {
+                special.apply( inputKey, inputOptional, walkedPath, output, context );
+            }
+
+            if ( literalKeys != null && input instanceof Map && literalKeys.length <= ( (Map<?, ?>) input ).size() ) {
+                applyLiterals( (Map<?, ?>) input, walkedPath, output, context );
+            }
+            else {
+                executionStrategy.process( this, inputOptional, walkedPath, output, context );
+            }
+
+            walkedPath.removeLast();
+            walkedPath.lastElement().getMatchedElement().incrementHashCount();
+
+            return true;
+        }
+
+        /**
+         * Same as AVAILABLE_LITERALS iterating the literal side, but a null from the get is the only case that needs
+         *  the containsKey, so present keys with non null values cost one lookup rather than two.
+         */
+        private void applyLiterals( Map<?, ?> inputMap, WalkedPath walkedPath, Map<String, Object> output, Map<String, Object> context ) {
+            for ( int ordinal = 0; ordinal < literalKeys.length; ordinal++ ) {
+                String key = literalKeys[ordinal];
+                Object subInput = inputMap.get( key );
+                if ( subInput != null || inputMap.containsKey( key ) ) {
+                    literalSpecs[ordinal].apply( key, Optional.of( subInput ), walkedPath, output, context );
+                }
+            }
+        }
+    }
+}
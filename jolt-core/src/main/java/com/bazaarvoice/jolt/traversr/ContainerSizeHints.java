@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.traversr;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the container sizes observed at each output path, so that Traversals can pre-size the
+ *  Maps and Lists they create on later transforms.
+ *
+ * Paths are the canonical form of the output path up to the container, like "root.rating.&1.[]", so
+ *  every Traversr that writes into containers at the same canonical path shares one SizeHint.
+ *
+ * One instance is meant to live as long as the transform that owns it, and is safe to share across threads.
+ */
+public final class ContainerSizeHints {
+
+    // Do not let one freak input make every later container huge
+    static final int MAX_HINT = 1 << 16;
+
+    private final ConcurrentMap<String, SizeHint> hints = new ConcurrentHashMap<>();
+
+    /**
+     * @return the SizeHint for containers at the given canonical path, shared by every caller asking for that path
+     */
+    public SizeHint forPath( String canonicalPath ) {
+        SizeHint hint = hints.get( canonicalPath );
+        if ( hint == null ) {
+            SizeHint newHint = new SizeHint();
+            hint = hints.putIfAbsent( canonicalPath, newHint );
+            if ( hint == null ) {
+                hint = newHint;
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * The largest size seen so far for the containers at one output path.
+     */
+    public static final class SizeHint {
+
+        // Racy on purpose : a lost update just means a slightly smaller hint, which is harmless
+        private volatile int size;
+
+        private SizeHint() {}
+
+        public int get() {
+            return size;
+        }
+
+        public void observe( int observedSize ) {
+            if ( observedSize > size ) {
+                size = Math.min( observedSize, MAX_HINT );
+            }
+        }
+    }
+}
@@ -36,7 +36,7 @@ import java.util.List;
 public class SimpleTraversal<DataType> {
 
     private final SimpleTraversr traversr;
-    private final List<String> keys;
+    private final List<Object> keys;
 
     /**
      * Google Maps.newHashMap() trick to fill in generic type
@@ -49,19 +49,28 @@ public class SimpleTraversal<DataType> {
         traversr = new SimpleTraversr( humanReadablePath );
 
         String[] keysArray = humanReadablePath.split( "\\." );
+        Object[] keyTokens = new Object[ keysArray.length ];
 
         // extract the 3 from "[3]", but don't mess with "[]"
+        //  and hand it to the Traversr as an Integer, so it does not get parsed on every get/set
         for ( int index = 0; index < keysArray.length; index++) {
 
             String key = keysArray[ index ];
+            keyTokens[index] = key;
             if ( key.charAt( 0 ) == '[' && key.charAt( key.length() -1 ) == ']' ) {
                 if ( key.length() > 2 ) {
-                    keysArray[index] = key.substring( 1, key.length() - 1 );
+                    String arrayIndex = key.substring( 1, key.length() - 1 );
+                    try {
+                        keyTokens[index] = Integer.valueOf( arrayIndex );
+                    }
+                    catch ( NumberFormatException nfe ) {
+                        keyTokens[index] = arrayIndex;
+                    }
                 }
             }
         }
 
-        keys = Arrays.asList( keysArray );
+        keys = Arrays.asList( keyTokens );
     }
 
     /**
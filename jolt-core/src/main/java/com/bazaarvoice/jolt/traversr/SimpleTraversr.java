@@ -15,6 +15,7 @@
  */
 package com.bazaarvoice.jolt.traversr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
 import com.bazaarvoice.jolt.traversr.traversal.TraversalStep;
 
@@ -36,8 +37,16 @@ public class SimpleTraversr<DataType> extends Traversr<DataType> {
         super( paths );
     }
 
+    public SimpleTraversr( List<String> paths, ContainerSizeHints sizeHints ) {
+        super( paths, sizeHints );
+    }
+
+    public SimpleTraversr( List<String> paths, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        super( paths, sizeHints, containerFactory );
+    }
+
     @Override
-    public Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, String key, DataType data ) {
+    public Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, Object key, DataType data ) {
         return traversalStep.overwriteSet( tree, key, data );
     }
 
@@ -45,7 +54,7 @@ public class SimpleTraversr<DataType> extends Traversr<DataType> {
      * Only make a new instance of a container object for SET, if there is nothing "there".
      */
     @Override
-    public Optional<DataType> handleIntermediateGet( TraversalStep traversalStep, Object tree, String key, TraversalStep.Operation op ) {
+    public Optional<DataType> handleIntermediateGet( TraversalStep traversalStep, Object tree, Object key, TraversalStep.Operation op ) {
 
         Optional<Object> optSub = traversalStep.get( tree, key );
 
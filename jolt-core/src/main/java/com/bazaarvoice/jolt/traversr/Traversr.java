@@ -15,7 +15,9 @@
  */
 package com.bazaarvoice.jolt.traversr;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.traversal.ArrayTraversalStep;
 import com.bazaarvoice.jolt.traversr.traversal.AutoExpandArrayTraversalStep;
 import com.bazaarvoice.jolt.traversr.traversal.MapTraversalStep;
@@ -54,14 +56,17 @@ import java.util.List;
  *  [ "tuna", "2", "bob", "smith", "[]" ], and they can be quickly used without having to build or
  *  parse any more objects.
  *
- * The list of keys are all Strings, which ArrayTraversals will convert to Integers as needed.
+ * The keys for ArrayTraversals can be pre-resolved Integers, like [ "tuna", 2, "bob", "smith", "[]" ], so that they
+ *  are used as is.  String keys for ArrayTraversals are converted to Integers as needed.
  */
 public abstract class Traversr<DataType> {
 
     private final TraversalStep root;
     private final int traversalLength;
+    private final ContainerFactory containerFactory;
 
     public Traversr ( String humanPath ) {
+        containerFactory = ContainerFactory.DEFAULT;
 
         String intermediatePath = humanPath.replace( "[", ".[" );
         // given this replace and split strategy, we can end up with double dots, "..", which will generate an empty path element.
@@ -88,25 +93,69 @@ public abstract class Traversr<DataType> {
      * Aka, no need to extract it from a "Human Readable" form.
      */
     public Traversr( List<String> paths ) {
+        this( paths, null, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * Constructor where the TraversalSteps pre-size the containers they create, based on the sizes
+     *  previously observed at the same output paths.
+     *
+     * @param sizeHints registry of observed container sizes, or null to always create default sized containers
+     */
+    public Traversr( List<String> paths, ContainerSizeHints sizeHints ) {
+        this( paths, sizeHints, ContainerFactory.DEFAULT );
+    }
+
+    /**
+     * @param sizeHints registry of observed container sizes, or null to always create default sized containers
+     * @param containerFactory creates the Maps and Lists the TraversalSteps add to the tree
+     */
+    public Traversr( List<String> paths, ContainerSizeHints sizeHints, ContainerFactory containerFactory ) {
+        this.containerFactory = containerFactory;
+
         TraversalStep rooty = null;
         for ( int index = paths.size() -1 ; index >= 0; index--) {
-            rooty = makePathElement( paths.get(index), rooty );
+            // The containers a step works on live at the path of all the steps above it
+            SizeHint sizeHint = sizeHints == null ? null : sizeHints.forPath( joinPath( paths, index ) );
+            rooty = makePathElement( paths.get(index), rooty, sizeHint );
         }
         traversalLength = paths.size();
         root = rooty;
     }
 
-    private TraversalStep makePathElement(String path, TraversalStep child) {
+    private TraversalStep makePathElement( String path, TraversalStep child ) {
+        return makePathElement( path, child, null );
+    }
+
+    private TraversalStep makePathElement( String path, TraversalStep child, SizeHint sizeHint ) {
 
         if ( "[]".equals( path ) ) {
-            return new AutoExpandArrayTraversalStep( this, child );
+            return new AutoExpandArrayTraversalStep( this, child, sizeHint );
         }
         else if ( path.startsWith( "[" ) && path.endsWith( "]" ) ) {
-            return new ArrayTraversalStep( this, child );
+            return new ArrayTraversalStep( this, child, sizeHint );
         }
         else {
-            return new MapTraversalStep( this, child );
+            return new MapTraversalStep( this, child, sizeHint );
+        }
+    }
+
+    public ContainerFactory getContainerFactory() {
+        return containerFactory;
+    }
+
+    /**
+     * @return the first "length" paths, joined with dots
+     */
+    protected static String joinPath( List<String> paths, int length ) {
+        StringBuilder sb = new StringBuilder();
+        for ( int index = 0; index < length; index++ ) {
+            if ( index > 0 ) {
+                sb.append( '.' );
+            }
+            sb.append( paths.get( index ) );
         }
+        return sb.toString();
     }
 
     /**
@@ -114,13 +163,13 @@ public abstract class Traversr<DataType> {
      *  for the traversal.  This is determined by the behavior of the implementations of the
      *  abstract methods of this class.
      */
-    public Optional<DataType> get( Object tree, List<String> keys ) {
+    public Optional<DataType> get( Object tree, List<?> keys ) {
 
         if ( keys.size() != traversalLength ) {
             throw new TraversrException( "Traversal Path and number of keys mismatch, traversalLength:" + traversalLength + " numKeys:" + keys.size() );
         }
 
-        return root.traverse( tree, TraversalStep.Operation.GET, keys.iterator(), null );
+        return root.traverse( tree, TraversalStep.Operation.GET, keys, 0, null );
     }
 
     /**
@@ -128,7 +177,7 @@ public abstract class Traversr<DataType> {
      * @param data JSON style data object you want to set
      * @return returns the data object if successfully set, otherwise null if there was a problem walking the path
      */
-    public Optional<DataType> set( Object tree, List<String> keys, DataType data ) {
+    public Optional<DataType> set( Object tree, List<?> keys, DataType data ) {
 
         if ( keys.size() != traversalLength ) {
             throw new TraversrException( "Traversal Path and number of keys mismatch, traversalLength:" + traversalLength + " numKeys:" + keys.size() );
@@ -145,7 +194,7 @@ public abstract class Traversr<DataType> {
             return Optional.empty();
         }
 
-        return root.traverse( tree, TraversalStep.Operation.SET, keys.iterator(), data );
+        return root.traverse( tree, TraversalStep.Operation.SET, keys, 0, data );
     }
 
     /**
@@ -153,7 +202,7 @@ public abstract class Traversr<DataType> {
      *  for the traversal.  This is determined by the behavior of the implementations of the
      *  abstract methods of this class.
      */
-    public Optional<DataType> remove( Object tree, List<String> keys ) {
+    public Optional<DataType> remove( Object tree, List<?> keys ) {
 
         if ( keys.size() != traversalLength ) {
             throw new TraversrException( "Traversal Path and number of keys mismatch, traversalLength:" + traversalLength + " numKeys:" + keys.size() );
@@ -163,7 +212,7 @@ public abstract class Traversr<DataType> {
             return Optional.empty();
         }
 
-        return root.traverse( tree, TraversalStep.Operation.REMOVE, keys.iterator(), null );
+        return root.traverse( tree, TraversalStep.Operation.REMOVE, keys, 0, null );
     }
 
     // TODO extract these methods to an interface, and then sublasses of Traverser like ShiftrTraversr can do the
@@ -177,7 +226,7 @@ public abstract class Traversr<DataType> {
      *
      * @return the data object if the set was successful, or null if not
      */
-    public abstract Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, String key, DataType data );
+    public abstract Optional<DataType> handleFinalSet( TraversalStep traversalStep, Object tree, Object key, DataType data );
 
     /**
      * Allow subclasses to control how gets are handled for intermediate traversals.
@@ -188,5 +237,5 @@ public abstract class Traversr<DataType> {
      *
      * Overwrite or just return?
      */
-    public abstract Optional<DataType> handleIntermediateGet( TraversalStep traversalStep, Object tree, String key, Operation op );
+    public abstract Optional<DataType> handleIntermediateGet( TraversalStep traversalStep, Object tree, Object key, Operation op );
 }
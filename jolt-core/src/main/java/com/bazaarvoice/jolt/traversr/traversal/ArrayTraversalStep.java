@@ -16,9 +16,9 @@
 package com.bazaarvoice.jolt.traversr.traversal;
 
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.Traversr;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,18 +30,22 @@ public class ArrayTraversalStep<DataType> extends BaseTraversalStep<List<Object>
         super( traversr, child );
     }
 
+    public ArrayTraversalStep( Traversr traversr, TraversalStep child, SizeHint sizeHint ) {
+        super( traversr, child, sizeHint );
+    }
+
     public Class getStepType() {
         return List.class;
     }
 
     public List<Object> newContainer() {
-        return new ArrayList<>();
+        return containerFactory.newList( expectedContainerSize() );
     }
 
     @Override
-    public Optional<DataType> get( List<Object> list, String key ) {
+    public Optional<DataType> get( List<Object> list, Object key ) {
 
-        int arrayIndex = Integer.parseInt( key );
+        int arrayIndex = toArrayIndex( key );
         if ( arrayIndex < list.size() ) {
             return Optional.of( (DataType) list.get( arrayIndex ) );
         }
@@ -50,9 +54,9 @@ public class ArrayTraversalStep<DataType> extends BaseTraversalStep<List<Object>
     }
 
     @Override
-    public Optional<DataType> remove( List<Object> list, String key ) {
+    public Optional<DataType> remove( List<Object> list, Object key ) {
 
-        int arrayIndex = Integer.parseInt( key );
+        int arrayIndex = toArrayIndex( key );
         if ( arrayIndex < list.size() ) {
             return Optional.of( (DataType) list.remove( arrayIndex ) );
         }
@@ -61,14 +65,27 @@ public class ArrayTraversalStep<DataType> extends BaseTraversalStep<List<Object>
     }
 
     @Override
-    public Optional<DataType> overwriteSet( List<Object> list, String key, DataType data ) {
+    public Optional<DataType> overwriteSet( List<Object> list, Object key, DataType data ) {
 
-        int arrayIndex = Integer.parseInt( key );
+        int arrayIndex = toArrayIndex( key );
         ensureArraySize( list, arrayIndex );            // make sure it is big enough
         list.set( arrayIndex, data );
+        if ( sizeHint != null ) {
+            sizeHint.observe( list.size() );
+        }
         return Optional.of( data );
     }
 
+    /**
+     * Pre-resolved Integer keys are used as is, String keys are parsed.
+     */
+    private static int toArrayIndex( Object key ) {
+        if ( key instanceof Integer ) {
+            return (Integer) key;
+        }
+        return Integer.parseInt( key.toString() );
+    }
+
     private static void ensureArraySize( List<Object> list, Integer upperIndex ) {
         for ( int sizing = list.size(); sizing <= upperIndex; sizing++ ) {
             list.add( null );
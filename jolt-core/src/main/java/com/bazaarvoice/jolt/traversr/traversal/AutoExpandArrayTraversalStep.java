@@ -16,6 +16,7 @@
 package com.bazaarvoice.jolt.traversr.traversal;
 
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.Traversr;
 import com.bazaarvoice.jolt.traversr.TraversrException;
 
@@ -40,8 +41,12 @@ public class AutoExpandArrayTraversalStep<DataType> extends ArrayTraversalStep<D
         super( traversr, child );
     }
 
+    public AutoExpandArrayTraversalStep( Traversr traversr, TraversalStep child, SizeHint sizeHint ) {
+        super( traversr, child, sizeHint );
+    }
+
     @Override
-    public Optional<DataType> get( List<Object> list, String key ) {
+    public Optional<DataType> get( List<Object> list, Object key ) {
 
         if ( ! "[]".equals( key ) ) {
             throw new TraversrException( "AutoExpandArrayTraversal expects a '[]' key. Was: " + key );
@@ -51,7 +56,7 @@ public class AutoExpandArrayTraversalStep<DataType> extends ArrayTraversalStep<D
     }
 
     @Override
-    public Optional<DataType> remove( List<Object> list, String key ) {
+    public Optional<DataType> remove( List<Object> list, Object key ) {
 
         if ( ! "[]".equals( key ) ) {
             throw new TraversrException( "AutoExpandArrayTraversal expects a '[]' key. Was: " + key );
@@ -61,13 +66,16 @@ public class AutoExpandArrayTraversalStep<DataType> extends ArrayTraversalStep<D
     }
 
     @Override
-    public Optional<DataType> overwriteSet( List<Object> list, String key, DataType data ) {
+    public Optional<DataType> overwriteSet( List<Object> list, Object key, DataType data ) {
 
         if ( ! "[]".equals( key ) ) {
             throw new TraversrException( "AutoExpandArrayTraversal expects a '[]' key. Was: " + key );
         }
 
         list.add( data );
+        if ( sizeHint != null ) {
+            sizeHint.observe( list.size() );
+        }
         return Optional.of( data );
     }
 }
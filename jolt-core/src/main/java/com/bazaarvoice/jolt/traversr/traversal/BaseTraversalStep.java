@@ -15,10 +15,12 @@
  */
 package com.bazaarvoice.jolt.traversr.traversal;
 
+import com.bazaarvoice.jolt.common.ContainerFactory;
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.Traversr;
 
-import java.util.Iterator;
+import java.util.List;
 
 
 public abstract class BaseTraversalStep<StepType,DataType> implements TraversalStep<StepType,DataType> {
@@ -26,16 +28,33 @@ public abstract class BaseTraversalStep<StepType,DataType> implements TraversalS
     protected final TraversalStep child;
     protected final Traversr traversr;
 
+    // null unless the Traversr was built with ContainerSizeHints
+    protected final SizeHint sizeHint;
+    protected final ContainerFactory containerFactory;
+
     public BaseTraversalStep( Traversr traversr, TraversalStep child ) {
+        this( traversr, child, null );
+    }
+
+    public BaseTraversalStep( Traversr traversr, TraversalStep child, SizeHint sizeHint ) {
         this.traversr = traversr;
         this.child = child;
+        this.sizeHint = sizeHint;
+        this.containerFactory = traversr.getContainerFactory();
+    }
+
+    /**
+     * @return the size the containers of this step are expected to grow to, or 0 if unknown
+     */
+    protected int expectedContainerSize() {
+        return sizeHint == null ? 0 : sizeHint.get();
     }
 
     public TraversalStep getChild() {
         return child;
     }
 
-    public final Optional<DataType> traverse( StepType tree, Operation op, Iterator<String> keys, DataType data ) {
+    public final Optional<DataType> traverse( StepType tree, Operation op, List<?> keys, int keyIndex, DataType data ) {
 
         if ( tree == null ) {
             return Optional.empty();
@@ -43,7 +62,7 @@ public abstract class BaseTraversalStep<StepType,DataType> implements TraversalS
 
         if ( getStepType().isAssignableFrom( tree.getClass() ) ) {
 
-            String key = keys.next();
+            Object key = keys.get( keyIndex );
 
             if ( child == null ) {
                 // End of the Traversal so do the set or get
@@ -64,7 +83,7 @@ public abstract class BaseTraversalStep<StepType,DataType> implements TraversalS
                 Optional<Object> optSub = traversr.handleIntermediateGet( this, tree, key, op );
 
                 if ( optSub.isPresent() ) {
-                    return child.traverse( optSub.get(), op, keys, data );
+                    return child.traverse( optSub.get(), op, keys, keyIndex + 1, data );
                 }
             }
         }
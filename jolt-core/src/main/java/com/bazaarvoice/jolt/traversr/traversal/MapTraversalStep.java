@@ -16,9 +16,9 @@
 package com.bazaarvoice.jolt.traversr.traversal;
 
 import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints.SizeHint;
 import com.bazaarvoice.jolt.traversr.Traversr;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -30,37 +30,49 @@ public class MapTraversalStep<DataType> extends BaseTraversalStep<Map<String,Obj
         super( traversr, child );
     }
 
+    public MapTraversalStep( Traversr traversr, TraversalStep child, SizeHint sizeHint ) {
+        super( traversr, child, sizeHint );
+    }
+
     public Class<?> getStepType() {
         return Map.class;
     }
 
     public Map<String,Object> newContainer() {
-        return new LinkedHashMap<>();
+        return containerFactory.newMap( expectedContainerSize() );
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    public Optional<DataType> get( Map<String, Object> map, String key ) {
+    public Optional<DataType> get( Map<String, Object> map, Object key ) {
 
         // This here was the whole point of adding the Optional stuff.
         // Aka, I need a way to distinguish between the key not existing in the map
         //  or the key existing but having a _valid_ null value.
-        if ( ! map.containsKey( key ) ) {
+        String mapKey = toMapKey( key );
+        if ( ! map.containsKey( mapKey ) ) {
             return Optional.empty();
         }
 
-        return Optional.of( (DataType) map.get( key ) );
+        return Optional.of( (DataType) map.get( mapKey ) );
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    public Optional<DataType> remove( Map<String, Object> map, String key ) {
-        return Optional.of( (DataType) map.remove( key ) );
+    public Optional<DataType> remove( Map<String, Object> map, Object key ) {
+        return Optional.of( (DataType) map.remove( toMapKey( key ) ) );
     }
 
     @Override
-    public Optional<DataType> overwriteSet( Map<String, Object> map, String key, DataType data ) {
-        map.put( key, data );
+    public Optional<DataType> overwriteSet( Map<String, Object> map, Object key, DataType data ) {
+        map.put( toMapKey( key ), data );
+        if ( sizeHint != null ) {
+            sizeHint.observe( map.size() );
+        }
         return Optional.of( data );
     }
+
+    private static String toMapKey( Object key ) {
+        return key == null || key instanceof String ? (String) key : key.toString();
+    }
 }
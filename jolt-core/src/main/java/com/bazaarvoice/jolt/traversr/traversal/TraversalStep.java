@@ -17,10 +17,14 @@ package com.bazaarvoice.jolt.traversr.traversal;
 
 import com.bazaarvoice.jolt.common.Optional;
 
-import java.util.Iterator;
+import java.util.List;
 
 /**
  * A step in a JSON tree traversal.
+ *
+ * Keys are passed as Objects, so that callers that already know an array index can hand it over as an
+ *  Integer, instead of formatting it as a String for the array step to parse back.  Map steps use the
+ *  String value of their key, and array steps accept either an Integer or a String.
  */
 public interface TraversalStep<StepType, DataType> {
 
@@ -34,21 +38,21 @@ public interface TraversalStep<StepType, DataType> {
      *
      * @return data object if available, or null.
      */
-    public Optional<DataType> get( StepType tree, String key );
+    public Optional<DataType> get( StepType tree, Object key );
 
     /**
      * Remove and return the data for the key from the provided tree object.
      *
      * @return data object if available, or null.
      */
-    public Optional<DataType> remove( StepType tree, String key );
+    public Optional<DataType> remove( StepType tree, Object key );
 
     /**
      * Insert the data into the tree, overwriting any data that is there.
      *
      * @return returns the data object if successful or null if it could not
      */
-    public Optional<DataType> overwriteSet( StepType tree, String key, DataType data );
+    public Optional<DataType> overwriteSet( StepType tree, Object key, DataType data );
 
     /**
      * @return the child Traversal or null if this Traversal has no child
@@ -73,14 +77,15 @@ public interface TraversalStep<StepType, DataType> {
     /**
      * The meat of the Traversal.
      *
-     * Pull a key from the iterator, use it to make the traversal, and then
-     *  call traverse on your child Traversal.
+     * Use the key at keyIndex to make the traversal, and then
+     *  call traverse on your child Traversal with the next keyIndex.
      *
      * @param tree tree of data to walk
      * @param op the Operation to perform is this is the last node of the Traversal
      * @param keys keys to use
+     * @param keyIndex index of the key this step should use
      * @param data the data to place if the operation is SET
      * @return if SET, null for fail or the "data" object for ok.  if GET, PANTS
      */
-    public Optional<DataType> traverse( StepType tree, Operation op, Iterator<String> keys, DataType data );
+    public Optional<DataType> traverse( StepType tree, Operation op, List<?> keys, int keyIndex, DataType data );
 }
@@ -15,10 +15,15 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.chainr.BatchResult;
+import com.bazaarvoice.jolt.chainr.CachingChainr;
+import com.bazaarvoice.jolt.chainr.ChainrBuilder;
 import com.bazaarvoice.jolt.chainr.spec.ChainrEntry;
 import com.bazaarvoice.jolt.chainr.transforms.ExplodingTestTransform;
 import com.bazaarvoice.jolt.chainr.transforms.GoodTestTransform;
 import com.bazaarvoice.jolt.chainr.transforms.TransformTestResult;
+import com.bazaarvoice.jolt.common.ContainerFactory;
+import com.bazaarvoice.jolt.common.CopyOnWrite;
 import com.bazaarvoice.jolt.exception.SpecException;
 import com.bazaarvoice.jolt.exception.TransformException;
 import com.google.common.collect.ImmutableList;
@@ -28,9 +33,16 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 public class ChainrTest {
 
@@ -246,6 +258,296 @@ public class ChainrTest {
 
 
 
+    @Test(dataProvider = "getTestCaseNames")
+    public void runAdaptiveContainerSizingTestCases(String testCaseName, boolean sorted ) throws IOException {
+        String testPath = "/json/chainr/integration/" + testCaseName;
+        Map<String, Object> testUnit = JsonUtils.classpathToMap( testPath + ".json" );
+
+        Object input = testUnit.get( "input" );
+        Object spec = testUnit.get( "spec" );
+        Object expected = testUnit.get( "expected" );
+
+        Chainr unit = new ChainrBuilder( spec ).adaptiveContainerSizing( true ).build();
+
+        // the second run pre-sizes its containers from the first one
+        JoltTestUtil.runDiffy( "failed adaptive case " + testPath, expected, unit.transform( JsonUtils.cloneJson( input ), null ) );
+        JoltTestUtil.runDiffy( "failed adaptive case " + testPath, expected, unit.transform( JsonUtils.cloneJson( input ), null ) );
+    }
+
+    @Test(dataProvider = "getTestCaseNames")
+    public void runFusedShiftsTestCases(String testCaseName, boolean sorted ) throws IOException {
+        String testPath = "/json/chainr/integration/" + testCaseName;
+        Map<String, Object> testUnit = JsonUtils.classpathToMap( testPath + ".json" );
+
+        Object input = testUnit.get( "input" );
+        Object spec = testUnit.get( "spec" );
+        Object expected = testUnit.get( "expected" );
+
+        Chainr unit = new ChainrBuilder( spec ).fuseShifts( true ).build();
+        JoltTestUtil.runDiffy( "failed fused case " + testPath, expected, unit.transform( input, null ) );
+    }
+
+    @DataProvider
+    public Object[][] shiftFusionCases() {
+        return new Object[][] {
+            {
+                // literal to literal, with data the second shift never reads, and a null RHS
+                "{ 'rating' : { 'primary' : { 'value' : 'r.v', 'max' : 'r.m' }, '*' : { 'value' : 'sec.&1.v', 'max' : 'dropped' } } }",
+                "{ 'r' : { 'v' : 'Rating', 'm' : 'RatingRange' }, 'sec' : 'Secondary', 'ignored' : null }",
+                true
+            },
+            {
+                // & references in the second shift, and dynamic keys past the part it reads
+                "{ 'photos' : { '*' : { 'id' : 'p.ids[]', 'url' : 'p.urls.&1', '$' : 'p.keys[#2]' } } }",
+                "{ 'p' : { 'ids' : 'out.&', 'urls' : 'out.&1-&0', 'keys' : [ 'out.keys', 'copy.[1]' ] } }",
+                true
+            },
+            {
+                // OR'd keys, and implicit lists built up by the first shift
+                "{ '*' : { 'tag' : 'all.tags', 'other' : 'all.more' } }",
+                "{ 'all' : { 'tags|more' : 'merged.&' } }",
+                true
+            },
+            {
+                // the second shift uses a "*"
+                "{ 'a' : 'x.a' }",
+                "{ 'x' : { '*' : 'y.&' } }",
+                false
+            },
+            {
+                // the first shift writes to a dynamic key that the second shift would have to match
+                "{ '*' : { 'value' : '&1.value' } }",
+                "{ 'a' : { 'value' : 'A' } }",
+                false
+            },
+            {
+                // two outputs of the second shift land on top of each other
+                "{ 'a' : 'x', 'b' : 'y' }",
+                "{ 'x' : 'out', 'y' : 'out' }",
+                false
+            }
+        };
+    }
+
+    @Test(dataProvider = "shiftFusionCases")
+    public void fusedShiftsMatchUnfusedShifts( String firstSpec, String secondSpec, boolean fusable ) throws IOException {
+
+        Object spec = JsonUtils.jsonToObject( ( "[ " +
+                "{ 'operation' : 'shift', 'spec' : " + firstSpec + " }, " +
+                "{ 'operation' : 'shift', 'spec' : " + secondSpec + " } " +
+        "]" ).replace( '\'', '"' ) );
+
+        Object input = JsonUtils.jsonToObject( ( "{ " +
+                "'rating' : { 'primary' : { 'value' : 3, 'max' : 5 }, 'quality' : { 'value' : 4, 'max' : 5 } }, " +
+                "'photos' : { 'p1' : { 'id' : 1, 'url' : 'u1' }, 'p2' : { 'id' : 2, 'url' : 'u2' } }, " +
+                "'t1' : { 'tag' : 'x', 'other' : 'y' }, 't2' : { 'tag' : [ 'z' ] }, " +
+                "'a' : { 'value' : 1 }, 'b' : 2 " +
+        "}" ).replace( '\'', '"' ) );
+
+        Object expected = new ChainrBuilder( spec ).build().transform( JsonUtils.cloneJson( input ) );
+
+        ChainrBuilder fusingBuilder = new ChainrBuilder( spec ).fuseShifts( true );
+        Object actual = fusingBuilder.build().transform( JsonUtils.cloneJson( input ) );
+
+        JoltTestUtil.runDiffy( "fused output differs", expected, actual );
+        Assert.assertEquals( fusingBuilder.getFusionReport().size(), 1 );
+        Assert.assertEquals( fusingBuilder.getFusionReport().get( 0 ).isFused(), fusable, fusingBuilder.getFusionReport().toString() );
+    }
+
+    @DataProvider
+    public Object[][] removeFusionCases() {
+        return new Object[][] {
+            {
+                // disjoint keys, stars, and OR'd keys
+                "{ 'a' : { 'value' : '' }, 'tags' : { '*' : { 'id' : '' } } }",
+                "{ 'b' : '', 'photos' : { 'p*' : { 'url|id' : '' } } }",
+                true
+            },
+            {
+                // the same key in both, once as a composite and once as a leaf
+                "{ 'photos' : { '*' : { 'url' : '' } }, 'rating' : '' }",
+                "{ 'photos' : '', 'rating' : { 'primary' : '' } }",
+                true
+            },
+            {
+                // list indexes shift once the first spec removed something
+                "{ 'tags' : { '0' : '' } }",
+                "{ 'tags' : { '0' : '' } }",
+                false
+            }
+        };
+    }
+
+    @Test(dataProvider = "removeFusionCases")
+    public void fusedRemovesMatchUnfusedRemoves( String firstSpec, String secondSpec, boolean fusable ) throws IOException {
+
+        Object spec = JsonUtils.jsonToObject( ( "[ " +
+                "{ 'operation' : 'remove', 'spec' : " + firstSpec + " }, " +
+                "{ 'operation' : 'remove', 'spec' : " + secondSpec + " } " +
+        "]" ).replace( '\'', '"' ) );
+
+        Object input = JsonUtils.jsonToObject( ( "{ " +
+                "'rating' : { 'primary' : { 'value' : 3 }, 'quality' : { 'value' : 4 } }, " +
+                "'photos' : { 'p1' : { 'id' : 1, 'url' : 'u1', 'size' : 7 }, 'q1' : { 'id' : 2, 'url' : 'u2' } }, " +
+                "'tags' : [ { 'id' : 1, 'name' : 'x' }, { 'id' : 2, 'name' : 'y' }, 'z' ], " +
+                "'a' : { 'value' : 1, 'max' : 5 }, 'b' : 2, 'c' : 3 " +
+        "}" ).replace( '\'', '"' ) );
+
+        Object expected = new ChainrBuilder( spec ).build().transform( JsonUtils.cloneJson( input ) );
+
+        ChainrBuilder fusingBuilder = new ChainrBuilder( spec ).fuseRemoves( true );
+        Object actual = fusingBuilder.build().transform( JsonUtils.cloneJson( input ) );
+
+        JoltTestUtil.runDiffy( "fused output differs", expected, actual );
+        Assert.assertEquals( fusingBuilder.getFusionReport().size(), 1 );
+        Assert.assertEquals( fusingBuilder.getFusionReport().get( 0 ).isFused(), fusable, fusingBuilder.getFusionReport().toString() );
+    }
+
+    @Test
+    public void containerFactoryBuildsTheOutputContainers() {
+
+        // sorted Maps and LinkedLists, so it is easy to tell them apart from the stock containers
+        ContainerFactory sortedFactory = new ContainerFactory() {
+            @Override
+            public Map<String, Object> newMap( int expectedSize ) {
+                return new TreeMap<>();
+            }
+
+            @Override
+            public List<Object> newList( int expectedSize ) {
+                return new LinkedList<>();
+            }
+        };
+
+        Object spec = JsonUtils.jsonToObject( ( "[ " +
+                "{ 'operation' : 'shift', 'spec' : { '*' : 'data.&', 'tags' : { '*' : 'tagList[]' } } }, " +
+                "{ 'operation' : 'default', 'spec' : { 'defaulted' : { 'z' : 1, 'a' : 2 } } }, " +
+                "{ 'operation' : 'modify-overwrite-beta', 'spec' : { 'modified' : { 'inner' : { 'z' : 1 } } } }, " +
+                "{ 'operation' : 'cardinality', 'spec' : { 'data' : { 'b' : 'MANY' } } } " +
+        "]" ).replace( '\'', '"' ) );
+
+        Chainr unit = new ChainrBuilder( spec ).containerFactory( sortedFactory ).build();
+        Map<String, Object> actual = (Map<String, Object>) unit.transform( JsonUtils.javason( "{ 'b' : 1, 'a' : 2, 'tags' : [ 'x', 'y' ] }" ) );
+
+        Assert.assertTrue( actual instanceof TreeMap );
+        Assert.assertTrue( actual.get( "data" ) instanceof TreeMap );
+        Assert.assertEquals( new ArrayList<>( ( (Map) actual.get( "data" ) ).keySet() ), Arrays.asList( "a", "b" ) );
+        Assert.assertTrue( actual.get( "tagList" ) instanceof LinkedList );
+        Assert.assertTrue( actual.get( "defaulted" ) instanceof TreeMap );
+        Assert.assertTrue( actual.get( "modified" ) instanceof TreeMap );
+        Assert.assertTrue( ( (Map) actual.get( "modified" ) ).get( "inner" ) instanceof TreeMap );
+        Assert.assertTrue( ( (Map) actual.get( "data" ) ).get( "b" ) instanceof LinkedList );
+    }
+
+    @Test
+    public void transformAllKeepsOrderAndReportsFailuresPerDocument() {
+
+        Transform explodesOnOddIds = new Transform() {
+            @Override
+            public Object transform( Object input ) {
+                int id = (Integer) ( (Map) input ).get( "id" );
+                if ( id % 2 == 1 ) {
+                    throw new TransformException( "odd id " + id );
+                }
+                return input;
+            }
+        };
+        Chainr unit = new Chainr( Arrays.<JoltTransform>asList(
+                new Shiftr( JsonUtils.javason( "{ 'id' : 'id', 'value' : 'data.value' }" ) ),
+                explodesOnOddIds
+        ) );
+
+        List<Object> inputs = new ArrayList<>();
+        for ( int id = 0; id < 1000; id++ ) {
+            inputs.add( JsonUtils.javason( "{ 'id' : " + id + ", 'value' : 'v" + id + "' }" ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try {
+            List<BatchResult> results = unit.transformAll( inputs, null, executor );
+            verifyBatchResults( results );
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        // the stream flavor, on the common pool
+        List<BatchResult> results = unit.transformAll( inputs.parallelStream(), null ).collect( Collectors.<BatchResult>toList() );
+        verifyBatchResults( results );
+    }
+
+    @Test
+    public void transformAllReportsErrorsPerDocument() {
+
+        Transform overflowsOnId3 = new Transform() {
+            @Override
+            public Object transform( Object input ) {
+                if ( ( (Map) input ).get( "id" ).equals( 3 ) ) {
+                    throw new StackOverflowError( "too deep" );
+                }
+                return input;
+            }
+        };
+        Chainr unit = new Chainr( Arrays.<JoltTransform>asList( overflowsOnId3 ) );
+
+        List<Object> inputs = new ArrayList<>();
+        for ( int id = 0; id < 10; id++ ) {
+            inputs.add( JsonUtils.javason( "{ 'id' : " + id + " }" ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try {
+            List<BatchResult> results = unit.transformAll( inputs, null, executor );
+            for ( int id = 0; id < results.size(); id++ ) {
+                Assert.assertEquals( results.get( id ).isSuccess(), id != 3, "id " + id );
+            }
+            Assert.assertTrue( results.get( 3 ).getFailure() instanceof TransformException );
+            Assert.assertTrue( results.get( 3 ).getFailure().getCause() instanceof StackOverflowError );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void cachingChainrPassesNonJsonContextsThrough() {
+
+        Object service = new Object();   // not JSON, and not Serializable
+        ContextualTransform usesService = new ContextualTransform() {
+            @Override
+            public Object transform( Object input, Map<String, Object> context ) {
+                Assert.assertSame( context.get( "service" ), service );
+                return input;
+            }
+        };
+        CachingChainr unit = new CachingChainr( Arrays.<JoltTransform>asList( usesService ), 2 );
+
+        Map<String, Object> context = new HashMap<>();
+        context.put( "service", service );
+
+        for ( int call = 0; call < 2; call++ ) {
+            Assert.assertEquals( unit.transform( JsonUtils.javason( "{ 'a' : 1 }" ), context ), JsonUtils.javason( "{ 'a' : 1 }" ) );
+        }
+        Assert.assertEquals( unit.getHitCount(), 0 );
+        Assert.assertEquals( unit.getMissCount(), 0 );
+        Assert.assertEquals( unit.size(), 0 );
+    }
+
+    private static void verifyBatchResults( List<BatchResult> results ) {
+        Assert.assertEquals( results.size(), 1000 );
+        for ( int id = 0; id < results.size(); id++ ) {
+            BatchResult result = results.get( id );
+            if ( id % 2 == 1 ) {
+                Assert.assertFalse( result.isSuccess() );
+                Assert.assertEquals( result.getFailure().getMessage(), "odd id " + id );
+            }
+            else {
+                Assert.assertTrue( result.isSuccess(), "id " + id );
+                Assert.assertEquals( ( (Map) ( (Map) result.getOutput() ).get( "data" ) ).get( "value" ), "v" + id );
+            }
+        }
+    }
+
     @Test
     public void testReuseChainr() {
         // Spec which moves "attributeMap"'s keys to a root "attributes" list.
@@ -291,4 +593,71 @@ public class ChainrTest {
         // transformedMap["attributes"] == [null, null, null, "attribute1", "attribute2", "attribute3"]
         Assert.assertEquals( transformedMap.get( "attributes" ), ImmutableList.of( "attribute1", "attribute2", "attribute3" ) );
     }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void cachedResultsAreReusedButNotShared() {
+
+        Object spec = JsonUtils.jsonToObject( ( "[ { 'operation' : 'default', 'spec' : { 'rating' : 5 } }, " +
+                                                "  { 'operation' : 'shift', 'spec' : { 'id' : 'Id', 'rating' : 'Rating', 'tags' : 'Tags' } } ]" ).replace( '\'', '"' ) );
+        CachingChainr unit = (CachingChainr) new ChainrBuilder( spec ).cacheResults( 2 ).build();
+
+        Map<String, Object> first = (Map<String, Object>) unit.transform( JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ) );
+        Assert.assertEquals( first, JsonUtils.javason( "{ 'Id' : 1, 'Rating' : 5, 'Tags' : [ 'a' ] }" ) );
+
+        // changing what was handed out does not change what is cached
+        ( (List<Object>) first.get( "Tags" ) ).add( "changed" );
+        Object second = unit.transform( JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ) );
+        Assert.assertEquals( second, JsonUtils.javason( "{ 'Id' : 1, 'Rating' : 5, 'Tags' : [ 'a' ] }" ) );
+        Assert.assertEquals( unit.getHitCount(), 1 );
+        Assert.assertEquals( unit.getMissCount(), 1 );
+
+        // key order and context are part of the key
+        unit.transform( JsonUtils.javason( "{ 'tags' : [ 'a' ], 'id' : 1 }" ) );
+        unit.transform( JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ), JsonUtils.javason( "{ 'x' : 1 }" ) );
+        Assert.assertEquals( unit.getMissCount(), 3 );
+        Assert.assertEquals( unit.getEvictionCount(), 1 );
+        Assert.assertEquals( unit.size(), 2 );
+
+        // transformAll goes through the cache too
+        List<BatchResult> results = unit.transformAll( Arrays.asList( JsonUtils.javason( "{ 'tags' : [ 'a' ], 'id' : 1 }" ) ), null );
+        Assert.assertEquals( results.get( 0 ).getOutput(), JsonUtils.javason( "{ 'Rating' : 5, 'Tags' : [ 'a' ], 'Id' : 1 }" ) );
+        Assert.assertEquals( unit.getHitCount(), 2 );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void cachedResultsOfViewsAndCustomContainersAreCopiedStructurally() {
+
+        Object spec = JsonUtils.jsonToObject( ( "[ { 'operation' : 'default', 'spec' : { 'rating' : 5 } }, " +
+                                                "  { 'operation' : 'shift', 'spec' : { 'id' : 'Id', 'rating' : 'Rating', 'tags' : 'Tags' } } ]" ).replace( '\'', '"' ) );
+        Object expected = JsonUtils.javason( "{ 'Id' : 1, 'Rating' : 5, 'Tags' : [ 'a' ] }" );
+
+        // CopyOnWrite views are not Serializable
+        CachingChainr viewUnit = (CachingChainr) new ChainrBuilder( spec ).cacheResults( 2 ).build();
+        Map<String, Object> doc = JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" );
+        Assert.assertEquals( viewUnit.transform( CopyOnWrite.wrap( doc ) ), expected );
+        Assert.assertEquals( viewUnit.transform( CopyOnWrite.wrap( doc ) ), expected );
+        Assert.assertEquals( viewUnit.getHitCount(), 1 );
+        Assert.assertEquals( doc, JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ) );
+
+        // neither are these anonymous containers, as they hold on to the test instance
+        ContainerFactory unserializableFactory = new ContainerFactory() {
+            @Override
+            public Map<String, Object> newMap( int expectedSize ) {
+                return new LinkedHashMap<String, Object>() {};
+            }
+
+            @Override
+            public List<Object> newList( int expectedSize ) {
+                return new ArrayList<Object>() {};
+            }
+        };
+        CachingChainr factoryUnit = (CachingChainr) new ChainrBuilder( spec ).containerFactory( unserializableFactory ).cacheResults( 2 ).build();
+        Assert.assertEquals( factoryUnit.transform( JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ) ), expected );
+        Map<String, Object> hit = (Map<String, Object>) factoryUnit.transform( JsonUtils.javason( "{ 'id' : 1, 'tags' : [ 'a' ] }" ) );
+        Assert.assertEquals( hit, expected );
+        Assert.assertEquals( factoryUnit.getHitCount(), 1 );
+        Assert.assertEquals( hit.getClass(), LinkedHashMap.class );
+    }
 }
@@ -37,7 +37,8 @@ public class RemovrTest {
             {"array_canHandleTopLevelArray"},
             {"array_nonStarInArrayDoesNotDie"},
             {"array_removeAnArrayIndex"},
-            {"array_removeJsonArrayFields"}
+            {"array_removeJsonArrayFields"},
+            {"array_removeManyArrayIndexes"}
         };
     }
 
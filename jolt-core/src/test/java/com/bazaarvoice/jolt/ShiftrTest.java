@@ -15,6 +15,8 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
+import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -109,4 +111,49 @@ public class ShiftrTest {
 
         JoltTestUtil.runDiffy( "failed case " + testPath, expected, actual );
     }
+
+    @Test(dataProvider = "getTestCaseUnits")
+    public void runCompiledTestUnits(String testCaseName) throws IOException {
+
+        String testPath = "/json/shiftr/" + testCaseName;
+        Map<String, Object> testUnit = JsonUtils.classpathToMap( testPath + ".json" );
+
+        Object input = testUnit.get( "input" );
+        Object spec = testUnit.get( "spec" );
+        Object expected = testUnit.get( "expected" );
+
+        Shiftr shiftr = new Shiftr.Compiled( spec );
+        Object actual = shiftr.transform( input );
+
+        JoltTestUtil.runDiffy( "failed compiled case " + testPath, expected, actual );
+    }
+
+    @Test(dataProvider = "getTestCaseUnits")
+    public void runAdaptiveSizingTestUnits(String testCaseName) throws IOException {
+
+        String testPath = "/json/shiftr/" + testCaseName;
+        Map<String, Object> testUnit = JsonUtils.classpathToMap( testPath + ".json" );
+
+        Object input = testUnit.get( "input" );
+        Object spec = testUnit.get( "spec" );
+        Object expected = testUnit.get( "expected" );
+
+        Shiftr shiftr = new Shiftr( spec, new ContainerSizeHints() );
+
+        // the second transform runs with the sizes learned from the first
+        JoltTestUtil.runDiffy( "failed adaptive case " + testPath, expected, shiftr.transform( JsonUtils.cloneJson( input ) ) );
+        JoltTestUtil.runDiffy( "failed adaptive case " + testPath, expected, shiftr.transform( JsonUtils.cloneJson( input ) ) );
+    }
+
+    @Test
+    public void adaptiveSizingRecordsOutputSizes() {
+
+        ContainerSizeHints sizeHints = new ContainerSizeHints();
+        Shiftr shiftr = new Shiftr( JsonUtils.javason( "{ '*' : 'data.&', 'tags' : { '*' : 'tagList' } }" ), sizeHints );
+
+        shiftr.transform( JsonUtils.javason( "{ 'a' : 1, 'b' : 2, 'c' : 3, 'tags' : [ 'x', 'y', 'z', 'w' ] }" ) );
+
+        Assert.assertEquals( sizeHints.forPath( "root.data" ).get(), 3 );
+        Assert.assertEquals( sizeHints.forPath( "root.tagList" ).get(), 4 );
+    }
 }
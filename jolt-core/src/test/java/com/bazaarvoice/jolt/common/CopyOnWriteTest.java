@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JoltTestUtil;
+import com.bazaarvoice.jolt.JsonUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class CopyOnWriteTest {
+
+    private static final String SPEC = "[" +
+            "{ 'operation' : 'default', 'spec' : { 'Id' : 'none', 'rating' : { '*' : { 'max' : 5 } }, 'Extra' : { 'Flag' : true } } }," +
+            "{ 'operation' : 'remove', 'spec' : { 'tags' : { '0' : '' }, 'rating' : { 'secondary' : { 'junk' : '' } } } }," +
+            "{ 'operation' : 'modify-overwrite-beta', 'spec' : { 'count' : '=size(@(1,tags))', 'rating' : { 'primary' : { 'value' : '=toString' } } } }," +
+            "{ 'operation' : 'cardinality', 'spec' : { 'single' : 'ONE' } }" +
+            "]";
+
+    private static final String INPUT = "{ 'id' : 7, 'tags' : [ 'a', 'b', 'c' ], 'single' : [ { 'x' : 1 }, { 'x' : 2 } ], " +
+            "'untouched' : { 'deep' : [ 1, 2, 3 ] }, " +
+            "'rating' : { 'primary' : { 'value' : 3 }, 'secondary' : { 'value' : 4, 'junk' : true } } }";
+
+    @Test
+    public void inPlaceTransformsLeaveTheOriginalAlone() throws IOException {
+
+        Chainr chainr = Chainr.fromSpec( JsonUtils.jsonToObject( SPEC.replace( '\'', '"' ) ) );
+        Map<String, Object> original = JsonUtils.javason( INPUT );
+        Object snapshot = JsonUtils.cloneJson( original );
+
+        Object expected = chainr.transform( JsonUtils.cloneJson( original ) );
+        Object actual = chainr.transform( CopyOnWrite.wrap( original ) );
+
+        JoltTestUtil.runDiffy( "copy-on-write output should match the output of a clone", expected, actual );
+        JoltTestUtil.runDiffy( "the original should not have changed", snapshot, original );
+    }
+
+    @Test
+    public void nestedWritesDuringIterationAreKept() throws IOException {
+
+        // the "a*" write copies the root while the "*" children are still being iterated
+        Chainr chainr = Chainr.fromSpec( JsonUtils.jsonToObject(
+                "[ { 'operation' : 'modify-overwrite-beta', 'spec' : { 'a*' : '=toUpper', 'b*' : { 'x' : '=toUpper' } } } ]".replace( '\'', '"' ) ) );
+        Map<String, Object> original = JsonUtils.javason( "{ 'a1' : 'foo', 'b1' : { 'x' : 'bar' }, 'b2' : [ { 'x' : 'baz' } ] }" );
+
+        Object actual = chainr.transform( CopyOnWrite.wrap( original ) );
+
+        JoltTestUtil.runDiffy( "nested writes should be in the output",
+                JsonUtils.javason( "{ 'a1' : 'FOO', 'b1' : { 'x' : 'BAR' }, 'b2' : [ { 'x' : 'baz' } ] }" ), actual );
+        JoltTestUtil.runDiffy( "the original should not have changed",
+                JsonUtils.javason( "{ 'a1' : 'foo', 'b1' : { 'x' : 'bar' }, 'b2' : [ { 'x' : 'baz' } ] }" ), original );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void changesStickAcrossReads() {
+
+        Map<String, Object> original = JsonUtils.javason( "{ 'a' : { 'b' : [ 1, { 'c' : 2 } ] }, 'd' : 'e' }" );
+        Map<String, Object> view = (Map<String, Object>) CopyOnWrite.wrap( original );
+
+        List<Object> b = (List<Object>) ( (Map<String, Object>) view.get( "a" ) ).get( "b" );
+        ( (Map<String, Object>) b.get( 1 ) ).put( "c", 3 );
+        b.add( 4 );
+        view.keySet().remove( "d" );
+
+        Assert.assertEquals( view, JsonUtils.javason( "{ 'a' : { 'b' : [ 1, { 'c' : 3 }, 4 ] } }" ) );
+        Assert.assertEquals( original, JsonUtils.javason( "{ 'a' : { 'b' : [ 1, { 'c' : 2 } ] }, 'd' : 'e' }" ) );
+        Assert.assertEquals( ( (Map<String, Object>) view.get( "a" ) ).get( "b" ), Arrays.asList( 1, JsonUtils.javason( "{ 'c' : 3 }" ), 4 ) );
+    }
+}
@@ -17,10 +17,17 @@ package com.bazaarvoice.jolt.common;
 
 import com.bazaarvoice.jolt.JoltTestUtil;
 import com.bazaarvoice.jolt.JsonUtils;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class DeepCopyTest {
 
@@ -50,4 +57,54 @@ public class DeepCopyTest {
         Object expectedModified = JsonUtils.classpathToObject( "/json/deepcopy/modifed.json" );
         JoltTestUtil.runDiffy( "Verify fiddled post deepcopy object looks correct / was modifed.", expectedModified, fiddle );
     }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void deepCopyKeepsTypesAndTheShapeOfTheGraph() {
+
+        TreeMap<String, Object> sorted = new TreeMap<>( Collections.reverseOrder() );
+        sorted.put( "a", 1 );
+        sorted.put( "b", new BigDecimal( "2.50" ) );
+
+        List<Object> shared = new ArrayList<>( Arrays.asList( "x", "y" ) );
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put( "sorted", sorted );
+        input.put( "first", shared );
+        input.put( "second", shared );
+        input.put( "self", input );
+
+        Map<String, Object> copy = (Map<String, Object>) DeepCopy.simpleDeepCopy( input );
+
+        Assert.assertNotSame( copy, input );
+        Assert.assertTrue( copy instanceof LinkedHashMap );
+        Assert.assertSame( copy.get( "self" ), copy );
+
+        TreeMap<String, Object> sortedCopy = (TreeMap<String, Object>) copy.get( "sorted" );
+        Assert.assertNotSame( sortedCopy, sorted );
+        Assert.assertEquals( sortedCopy.firstKey(), "b" );
+        Assert.assertSame( sortedCopy.get( "b" ), sorted.get( "b" ) );
+
+        Assert.assertNotSame( copy.get( "first" ), shared );
+        Assert.assertSame( copy.get( "first" ), copy.get( "second" ) );
+        Assert.assertEquals( copy.get( "first" ), shared );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void deepCopyHandlesVeryDeepTrees() {
+
+        List<Object> root = new ArrayList<>();
+        List<Object> current = root;
+        for ( int depth = 0; depth < 100000; depth++ ) {
+            List<Object> child = new ArrayList<>();
+            current.add( child );
+            current = child;
+        }
+
+        Object copy = DeepCopy.simpleDeepCopy( root );
+        for ( int depth = 0; depth < 100000; depth++ ) {
+            copy = ( (List<Object>) copy ).get( 0 );
+        }
+        Assert.assertEquals( copy, Collections.emptyList() );
+    }
 }
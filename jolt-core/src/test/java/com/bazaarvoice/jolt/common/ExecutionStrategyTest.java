@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common;
+
+import com.bazaarvoice.jolt.JsonUtils;
+import com.bazaarvoice.jolt.Shiftr;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ExecutionStrategyTest {
+
+    @Test
+    public void availableLiteralsIteratesTheSmallerSide() {
+
+        // every key writes to the same place, so the order of the output list is the order the children were applied in
+        Shiftr shiftr = new Shiftr( JsonUtils.jsonToMap( "{ 'a' : 'out', 'b' : 'out', 'c' : 'out', 'd' : 'out' }".replace( '\'', '"' ) ) );
+
+        Map<String, Object> smallInput = new LinkedHashMap<>();
+        smallInput.put( "c", 3 );
+        smallInput.put( "a", 1 );
+
+        Map<String, Object> bigInput = new LinkedHashMap<>();
+        bigInput.put( "c", 3 );
+        bigInput.put( "x", 0 );
+        bigInput.put( "a", 1 );
+        bigInput.put( "y", 0 );
+        bigInput.put( "z", 0 );
+
+        // off by default, so nothing is counted
+        ExecutionStrategy.resetIterationCounts();
+        shiftr.transform( smallInput );
+        Assert.assertEquals( ExecutionStrategy.getInputSideIterationCount(), 0 );
+
+        Object smallOutput;
+        Object bigOutput;
+        ExecutionStrategy.setIterationCounting( true );
+        try {
+            smallOutput = shiftr.transform( smallInput );
+            Assert.assertEquals( ExecutionStrategy.getInputSideIterationCount(), 1 );
+            Assert.assertEquals( ExecutionStrategy.getLiteralSideIterationCount(), 0 );
+
+            bigOutput = shiftr.transform( bigInput );
+            Assert.assertEquals( ExecutionStrategy.getLiteralSideIterationCount(), 1 );
+        }
+        finally {
+            ExecutionStrategy.setIterationCounting( false );
+            ExecutionStrategy.resetIterationCounts();
+        }
+
+        // either way, the children are applied in spec order
+        Assert.assertEquals( ( (Map) smallOutput ).get( "out" ), Arrays.asList( 1, 3 ) );
+        Assert.assertEquals( ( (Map) bigOutput ).get( "out" ), Arrays.asList( 1, 3 ) );
+    }
+
+    @Test
+    public void availableLiteralsWithMoreThan64Literals() {
+
+        Map<String, Object> spec = new LinkedHashMap<>();
+        for ( int index = 0; index < 100; index++ ) {
+            spec.put( "key" + index, "out" );
+        }
+        Shiftr shiftr = new Shiftr( spec );
+
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put( "key99", 99 );
+        input.put( "key70", 70 );
+        input.put( "key3", 3 );
+
+        Object output = shiftr.transform( input );
+        Assert.assertEquals( ( (Map) output ).get( "out" ), Arrays.asList( 3, 70, 99 ) );
+    }
+
+    @Test
+    public void literalKeysAgainstListInput() {
+
+        Shiftr shiftr = new Shiftr( JsonUtils.javason( "{ 'data' : { '2' : 'two', '0' : 'zero', '-1' : 'negative', 'x' : 'notAnIndex', '9' : 'outOfBounds' } }" ) );
+
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put( "data", Arrays.asList( "a", "b", "c" ) );
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put( "two", "c" );
+        expected.put( "zero", "a" );
+
+        Assert.assertEquals( shiftr.transform( input ), expected );
+    }
+}
@@ -20,6 +20,10 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class StarRegexPathElementTest {
 
     @DataProvider
@@ -60,4 +64,60 @@ public class StarRegexPathElementTest {
         Assert.assertNull( multiMetacharStarpathelement.match( "rating-$capGrp1-capGrp2", null ) );
         Assert.assertNotNull(multiMetacharStarpathelement.match( "rating-$-capGrp1-capGrp2",null) );
     }
+
+    @Test
+    public void capturesTheSameAsReluctantRegexTest() {
+
+        String[] specs = { "a*b*", "*a*", "a**b", "*ab*ba*", "a*a*a", "**", "*b*b*b*" };
+        Random random = new Random( 42 );
+
+        for ( String spec : specs ) {
+            StarPathElement star = new StarRegexPathElement( spec );
+            Pattern pattern = Pattern.compile( "^" + spec.replace( "*", "(.+?)" ) + "$" );
+
+            for ( int count = 0; count < 2000; count++ ) {
+                StringBuilder dataKey = new StringBuilder();
+                int length = random.nextInt( 12 );
+                for ( int index = 0; index < length; index++ ) {
+                    dataKey.append( random.nextBoolean() ? 'a' : 'b' );
+                }
+
+                Matcher matcher = pattern.matcher( dataKey );
+                MatchedElement matched = star.match( dataKey.toString(), null );
+
+                if ( ! matcher.find() ) {
+                    Assert.assertNull( matched, spec + " vs " + dataKey );
+                    continue;
+                }
+
+                Assert.assertNotNull( matched, spec + " vs " + dataKey );
+                Assert.assertEquals( matched.getSubKeyCount(), matcher.groupCount() + 1 );
+                for ( int group = 1; group <= matcher.groupCount(); group++ ) {
+                    Assert.assertEquals( matched.getSubKeyRef( group ), matcher.group( group ), spec + " vs " + dataKey );
+                }
+            }
+        }
+    }
+
+    /**
+     * The reluctant regex version of this key backtracks through every way of splitting the data key
+     *  between its stars before giving up.
+     */
+    @Test( timeOut = 5000 )
+    public void adversarialKeyIsLinearTest() {
+
+        StarPathElement star = new StarRegexPathElement( "*a*a*a*a*a*a*a*a*b" );
+
+        StringBuilder dataKey = new StringBuilder();
+        for ( int index = 0; index < 100000; index++ ) {
+            dataKey.append( 'a' );
+        }
+
+        for ( int count = 0; count < 100; count++ ) {
+            Assert.assertNull( star.match( dataKey.toString(), null ) );
+        }
+
+        dataKey.append( 'b' );
+        Assert.assertNotNull( star.match( dataKey.toString(), null ) );
+    }
 }
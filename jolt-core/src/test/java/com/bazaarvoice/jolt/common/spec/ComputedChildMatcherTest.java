@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.spec;
+
+import com.bazaarvoice.jolt.JsonUtils;
+import com.bazaarvoice.jolt.common.Optional;
+import com.bazaarvoice.jolt.common.tree.MatchedElement;
+import com.bazaarvoice.jolt.common.tree.WalkedPath;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrCompositeSpec;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ComputedChildMatcherTest {
+
+    @DataProvider
+    public Object[][] specs() {
+        return new Object[][] {
+            {
+                // star children only, several sharing prefixes and suffixes
+                "{ 'rating-*' : 'r.&(0,1)', 'rating-*-max' : 'rm.&(0,1)', 'r*' : 'short.&(0,1)', " +
+                "  'a*b*c' : 'abc.&(0,1).&(0,2)', 'x*y' : 'xy.&(0,1)', '*-id' : 'id.&(0,1)' }"
+            },
+            {
+                // plus an & and a catch all "*", which can not be pre-filtered by their key text
+                "{ 'rating-*' : 'r.&(0,1)', 'rating-*-max' : 'rm.&(0,1)', 'a*b*c' : 'abc.&(0,1)', 'x*y' : 'xy.&(0,1)', " +
+                "  '*-id' : 'id.&(0,1)', '&' : 'amp.&', '*' : 'rest.&' }"
+            }
+        };
+    }
+
+    @Test( dataProvider = "specs" )
+    public void matcherAppliesTheSameChildAsTryingEachChild( String specJson ) {
+
+        Map<String, Object> spec = JsonUtils.javason( "{ 'root' : " + specJson + " }" );
+        ShiftrCompositeSpec root = new ShiftrCompositeSpec( "root", (Map<String, Object>) spec.get( "root" ) );
+        ComputedChildMatcher matcher = root.getComputedChildMatcher();
+
+        String[] keys = { "rating-1", "rating-1-max", "rating-", "rating--max", "r", "rx", "abc", "aXbYc", "abbc",
+                          "ab", "xy", "xzy", "x-y", "-id", "1-id", "rating-2-id", "", "zzz" };
+
+        for ( String key : keys ) {
+            Map<String, Object> expected = new LinkedHashMap<>();
+            boolean expectedApplied = false;
+            for ( BaseSpec child : root.getComputedChildren() ) {
+                if ( child.apply( key, Optional.<Object>of( key ), newWalkedPath(), expected, null ) ) {
+                    expectedApplied = true;
+                    break;
+                }
+            }
+
+            Map<String, Object> actual = new LinkedHashMap<>();
+            boolean actualApplied = matcher.apply( key, Optional.<Object>of( key ), newWalkedPath(), actual, null );
+
+            Assert.assertEquals( actualApplied, expectedApplied, "key : " + key );
+            Assert.assertEquals( actual, expected, "key : " + key );
+        }
+    }
+
+    private static WalkedPath newWalkedPath() {
+        WalkedPath walkedPath = new WalkedPath( null, new MatchedElement( "root" ) );
+        walkedPath.add( "input", new MatchedElement( "root" ) );
+        return walkedPath;
+    }
+}
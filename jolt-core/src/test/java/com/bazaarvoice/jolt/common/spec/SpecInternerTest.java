@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.spec;
+
+import com.bazaarvoice.jolt.JsonUtils;
+import com.bazaarvoice.jolt.common.ContainerFactory;
+import com.bazaarvoice.jolt.shiftr.ShiftrSpecBuilder;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrCompositeSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrLeafSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrSpec;
+import com.bazaarvoice.jolt.shiftr.spec.ShiftrSpecCompiler;
+import com.bazaarvoice.jolt.traversr.ContainerSizeHints;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+public class SpecInternerTest {
+
+    private static final String RATING = "{ 'primary' : { 'value' : 'Rating', 'max' : 'RatingRange' }, " +
+                                         "  '*' : { 'value' : 'Secondary.&1.Value', '$' : 'Secondary.&1.Id' } }";
+
+    @Test
+    public void equalSpecsShareTheirNodes() {
+
+        // separately parsed, so nothing is shared unless the builder interns it
+        ShiftrSpec first = build( new ShiftrSpecBuilder(), "{ 'rating' : " + RATING + ", 'id' : 'Id' }" );
+        ShiftrSpec second = build( new ShiftrSpecBuilder(), "{ 'rating' : " + RATING + ", 'id' : 'Id' }" );
+        Assert.assertSame( second, first );
+
+        Assert.assertSame( ShiftrSpecCompiler.compile( second, true ), ShiftrSpecCompiler.compile( first, true ) );
+    }
+
+    @Test
+    public void differentSpecsShareTheirCommonParts() {
+
+        ShiftrCompositeSpec first = build( new ShiftrSpecBuilder(), "{ 'rating' : " + RATING + ", 'id' : 'Id' }" );
+        ShiftrCompositeSpec second = build( new ShiftrSpecBuilder(), "{ 'rating' : " + RATING + ", 'id' : 'ProductId' }" );
+        Assert.assertNotSame( second, first );
+
+        Assert.assertSame( second.getLiteralChildren().get( "rating" ), first.getLiteralChildren().get( "rating" ) );
+        ShiftrLeafSpec firstId = (ShiftrLeafSpec) first.getLiteralChildren().get( "id" );
+        ShiftrLeafSpec secondId = (ShiftrLeafSpec) second.getLiteralChildren().get( "id" );
+        Assert.assertSame( secondId.getPathElement(), firstId.getPathElement() );
+        Assert.assertNotSame( secondId.getShiftrWriters().get( 0 ), firstId.getShiftrWriters().get( 0 ) );
+
+        // literal order is output order, so it is part of the structure
+        ShiftrSpec reordered = build( new ShiftrSpecBuilder(), "{ 'id' : 'Id', 'rating' : " + RATING + " }" );
+        Assert.assertNotSame( reordered, first );
+    }
+
+    @Test
+    public void specsWithPerShiftrStateAreNotInterned() {
+
+        ShiftrSpecBuilder hintedBuilder = new ShiftrSpecBuilder( new ContainerSizeHints(), ContainerFactory.DEFAULT );
+        Assert.assertFalse( hintedBuilder.isInterning() );
+
+        ShiftrSpec plain = build( new ShiftrSpecBuilder(), "{ 'rating' : " + RATING + " }" );
+        ShiftrSpec hinted = build( hintedBuilder, "{ 'rating' : " + RATING + " }" );
+        ShiftrSpec sameHinted = build( hintedBuilder, "{ 'rating' : " + RATING + " }" );
+
+        Assert.assertNotSame( hinted, plain );
+        Assert.assertNotSame( sameHinted, hinted );
+        // PathElements hold no per Shiftr state, so they are still shared
+        Assert.assertSame( hinted.getPathElement(), plain.getPathElement() );
+    }
+
+    @Test
+    public void unusedValuesAreCollected() throws InterruptedException {
+
+        SpecInterner interner = new SpecInterner();
+        Object key = SpecInterner.key( String.class, "a" );
+
+        Object first = new Object();
+        Assert.assertSame( interner.intern( key, new Object() ), interner.intern( key, new Object() ) );
+        Assert.assertSame( interner.intern( SpecInterner.key( String.class, "b" ), first ), first );
+
+        // nothing holds on to the value interned for "a", so eventually a new value takes its place
+        Object replacement = new Object();
+        for ( int attempt = 0; attempt < 50 && interner.intern( key, replacement ) != replacement; attempt++ ) {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+        Assert.assertSame( interner.intern( key, new Object() ), replacement );
+        Assert.assertEquals( interner.size(), 2 );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static <T extends ShiftrSpec> T build( ShiftrSpecBuilder builder, String spec ) {
+        Map<String, Object> rawSpec = JsonUtils.javason( spec );
+        return (T) builder.createSpec( "root", rawSpec );
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt.common.tree;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class WalkedPathTest {
+
+    @Test
+    public void stackGrowsAndReusesFrames() {
+
+        WalkedPath walkedPath = new WalkedPath( 1 );
+        walkedPath.add( "a", new MatchedElement( "root" ) );
+        walkedPath.add( "b", new MatchedElement( "one" ) );
+        walkedPath.add( "c", new MatchedElement( "two" ) );
+
+        Assert.assertEquals( walkedPath.size(), 3 );
+        Assert.assertEquals( walkedPath.lastElement().getTreeRef(), "c" );
+        Assert.assertEquals( walkedPath.elementFromEnd( 2 ).getMatchedElement().getRawKey(), "root" );
+
+        PathStep frame = walkedPath.lastElement();
+        walkedPath.removeLast();
+        Assert.assertNull( frame.getTreeRef(), "removed frames should not keep a reference to the input" );
+        Assert.assertEquals( walkedPath.lastElement().getTreeRef(), "b" );
+
+        walkedPath.add( "d", new MatchedElement( "three" ) );
+        Assert.assertSame( walkedPath.lastElement(), frame );
+        Assert.assertEquals( walkedPath.lastElement().getMatchedElement().getRawKey(), "three" );
+    }
+
+    @Test
+    public void emptyPath() {
+        WalkedPath walkedPath = new WalkedPath();
+        Assert.assertTrue( walkedPath.isEmpty() );
+        Assert.assertNull( walkedPath.elementFromEnd( 0 ) );
+    }
+
+    @Test( expectedExceptions = IndexOutOfBoundsException.class )
+    public void lookupPastTheRoot() {
+        new WalkedPath( null, new MatchedElement( "root" ) ).elementFromEnd( 1 );
+    }
+
+    @Test
+    public void requiredDepth() {
+        Map<String, Object> spec = new HashMap<>();
+        spec.put( "leaf", "out" );
+        spec.put( "nested", Collections.singletonMap( "leaf", Arrays.asList( "out1", "out2" ) ) );
+
+        // transform root + spec root + "nested" + its "leaf"
+        Assert.assertEquals( WalkedPath.requiredDepth( spec ), 4 );
+    }
+}
@@ -28,7 +28,10 @@ import com.bazaarvoice.jolt.common.tree.WalkedPath;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // Todo Now that the PathElement classes have been split out (no longer inner classes)
 //  each class should get a test
@@ -177,4 +180,27 @@ public class ShiftrWritrTest {
         Assert.assertEquals( "3",      stringPath.get( 3 ) );
         Assert.assertEquals( "BBB",    stringPath.get( 4 ) );
     }
+
+    @Test
+    public void writeTest_constantAndReferencePaths() {
+
+        Map<String, Object> output = new HashMap<>();
+
+        // constant path, written twice, should list-ize like any other Shiftr write
+        ShiftrWriter constantWriter = new ShiftrWriter( "a.b[1]" );
+        constantWriter.write( "x", output, new WalkedPath() );
+        constantWriter.write( "y", output, new WalkedPath() );
+
+        // reference path, evaluated against two different WalkedPaths
+        ShiftrWriter refWriter = new ShiftrWriter( "refs.&.value" );
+        refWriter.write( 1, output, new WalkedPath( null, new MatchedElement( "first" ) ) );
+        refWriter.write( 2, output, new WalkedPath( null, new MatchedElement( "second" ) ) );
+
+        Map<String, Object> a = (Map<String, Object>) output.get( "a" );
+        Assert.assertEquals( Arrays.asList( null, Arrays.asList( "x", "y" ) ), a.get( "b" ) );
+
+        Map<String, Object> refs = (Map<String, Object>) output.get( "refs" );
+        Assert.assertEquals( 1, ( (Map) refs.get( "first" ) ).get( "value" ) );
+        Assert.assertEquals( 2, ( (Map) refs.get( "second" ) ).get( "value" ) );
+    }
 }
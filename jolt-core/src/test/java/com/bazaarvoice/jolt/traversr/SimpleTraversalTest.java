@@ -221,4 +221,19 @@ public class SimpleTraversalTest {
         List catalogLin = queryContext.get( "catalogLin" );
         Assert.fail( "Expected ClassCast Exception");
     }
+
+    @Test
+    public void typedKeysTest() throws Exception
+    {
+        Object tree = JsonUtils.javason( "{ 'a' : [ { 'b' : 'zero' }, { 'b' : 'one' } ] }" );
+
+        SimpleTraversr<Object> traversr = new SimpleTraversr<>( "a.[1].b" );
+
+        // array indexes can be handed over pre-resolved as Integers, or as Strings as before
+        Assert.assertEquals( traversr.get( tree, Arrays.<Object>asList( "a", 1, "b" ) ).get(), "one" );
+        Assert.assertEquals( traversr.get( tree, Arrays.asList( "a", "0", "b" ) ).get(), "zero" );
+
+        traversr.set( tree, Arrays.<Object>asList( "a", 3, "b" ), "three" );
+        Assert.assertEquals( SimpleTraversal.newTraversal( "a.[3].b" ).get( tree ).get(), "three" );
+    }
 }
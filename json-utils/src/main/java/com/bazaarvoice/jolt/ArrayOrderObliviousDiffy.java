@@ -15,6 +15,9 @@
  */
 package com.bazaarvoice.jolt;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +27,9 @@ import java.util.Map;
  * Useful for diffing JSON created from Java Tools that do not
  *  care about preserving JSON array order from call to call.
  *  *cough* DevAPI *cough*
+ *
+ * Elements are paired up by their structural hash first, so only elements that could be equal get diffed against
+ *  each other, rather than every element against every other one.
  */
 public class ArrayOrderObliviousDiffy extends Diffy {
 
@@ -36,98 +42,119 @@ public class ArrayOrderObliviousDiffy extends Diffy {
     @Override
     protected Result diffList(List<Object> expected, List<Object> actual) {
 
-        // First we got thru an n^2 operation to compare the two lists
-        for (int expectedIndex=0; expectedIndex < expected.size(); expectedIndex++) {
-
-            Object exp = expected.get(expectedIndex);
-
-            for(int actualIndex=0; actualIndex < actual.size(); actualIndex++) {
-                Object act = actual.get(actualIndex);
-
-                if ( exp == null && act == null ) {
-                    // great, we "found a match"
-                    break;
+        boolean[] expectedMatched = new boolean[ expected.size() ];
+        boolean[] actualMatched = new boolean[ actual.size() ];
+
+        // Bucket the actual elements by hash, keeping them in index order within a bucket
+        Map<Integer, List<Integer>> actualByHash = new HashMap<>();
+        for ( int actualIndex = 0; actualIndex < actual.size(); actualIndex++ ) {
+            Object act = actual.get( actualIndex );
+            if ( act != null ) {
+                Integer hash = structuralHash( act );
+                List<Integer> bucket = actualByHash.get( hash );
+                if ( bucket == null ) {
+                    bucket = new ArrayList<>( 1 );
+                    actualByHash.put( hash, bucket );
                 }
+                bucket.add( actualIndex );
+            }
+        }
 
-                if( act != null && exp != null ) {
+        // Match each expected element with the first unmatched actual element that is the same,
+        //  which can only be in the bucket with the same hash
+        int unmatched = 0;
+        for ( int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++ ) {
+            Object exp = expected.get( expectedIndex );
+            if ( exp == null ) {
+                expectedMatched[expectedIndex] = true;
+                continue;
+            }
 
-                    // Ideally the equals method finds a match, works for identical maps and simple Strings and numbers
-                    // Also try the sub-classable diffScalar if the normal ".equals" does not work
-                    if ( act.equals(exp) || diffScalar( exp, act ).isEmpty() ) {
-                        // if the indicies match nuke them
-                        expected.set(expectedIndex, null);
-                        actual.set(actualIndex, null);
+            List<Integer> bucket = actualByHash.get( structuralHash( exp ) );
+            if ( bucket != null ) {
+                Iterator<Integer> candidates = bucket.iterator();
+                while ( candidates.hasNext() ) {
+                    int actualIndex = candidates.next();
+                    if ( diffHelper( exp, actual.get( actualIndex ) ).isEmpty() ) {
+                        expectedMatched[expectedIndex] = true;
+                        actualMatched[actualIndex] = true;
+                        candidates.remove();
                         break;
                     }
-                    else if ( (exp instanceof List && act instanceof List) ||
-                              (exp instanceof Map  && act instanceof Map) ) {
-
-                        // ugh, n^2 again, but enter from the top so a copy is made
-                        Diffy.Result result = diff( exp, act );
-                        if ( result.isEmpty() ) {
-                            // score!
-                            expected.set(expectedIndex, null);
-                            actual.set(actualIndex, null);
-                            break;
-                        }
-                    }
                 }
             }
+            if ( ! expectedMatched[expectedIndex] ) {
+                unmatched++;
+            }
+        }
+        for ( int actualIndex = 0; actualIndex < actual.size(); actualIndex++ ) {
+            if ( actual.get( actualIndex ) == null ) {
+                actualMatched[actualIndex] = true;
+            }
+            else if ( ! actualMatched[actualIndex] ) {
+                unmatched++;
+            }
         }
 
-        // See if all the indicies in the arrays were nulled out.
-        if ( isAllNulls( expected ) && isAllNulls( actual ) ) {
+        // See if everything non-null found its match
+        if ( unmatched == 0 ) {
             return new Result();
         }
 
-        // Now we make a second pass, "lining up" and subtractively Diffy-ing non-null elements.
+        // Now we make a second pass, "lining up" and subtractively Diffy-ing the unmatched elements.
+        //  Matched elements are left null in the Result.
+        List<Object> expectedLeft = new ArrayList<>( expected.size() );
+        List<Object> actualLeft = new ArrayList<>( actual.size() );
+        for ( int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++ ) {
+            expectedLeft.add( expectedMatched[expectedIndex] ? null : expected.get( expectedIndex ) );
+        }
+        for ( int actualIndex = 0; actualIndex < actual.size(); actualIndex++ ) {
+            actualLeft.add( actualMatched[actualIndex] ? null : actual.get( actualIndex ) );
+        }
+
         int actualIndex = 0;
 
         for (int expectedIndex=0; expectedIndex < expected.size() && actualIndex < actual.size(); expectedIndex++) {
 
-            expectedIndex = findNextNonNullIndex( expected, expectedIndex );
+            expectedIndex = findNextUnmatchedIndex( expectedMatched, expectedIndex );
             if ( expectedIndex >= expected.size() ) {
                 break;
             }
 
-            actualIndex = findNextNonNullIndex( actual, actualIndex );
+            actualIndex = findNextUnmatchedIndex( actualMatched, actualIndex );
             if ( actualIndex >= actual.size() ) {
                 break;
             }
 
-            Object exp = expected.get(expectedIndex);
-            Object act = actual.get(actualIndex);
-
-            // Do an actual "subtractive" diff, with "lined up" non-null items
-            Result subResult = diffHelper( exp, act );
-            expected.set( expectedIndex, subResult.expected );
-            actual.set( actualIndex, subResult.actual );
+            // Do an actual "subtractive" diff, with "lined up" unmatched items
+            Result subResult = diffHelper( expected.get( expectedIndex ), actual.get( actualIndex ) );
+            expectedLeft.set( expectedIndex, subResult.expected );
+            actualLeft.set( actualIndex, subResult.actual );
 
             actualIndex++;
         }
 
-        return new Result( expected, actual );
+        return new Result( expectedLeft, actualLeft );
     }
 
-    private boolean isAllNulls( List<Object> list ) {
-
-        boolean isAllNulls = true;
-        for( int index=0; isAllNulls && index < list.size(); index++) {
-            if ( list.get(index) != null ) {
-                isAllNulls = false;
+    /**
+     * Order does not matter, so the hash of a List is the sum of the hashes of its elements.
+     *  Nulls are never unmatched, so they do not count.
+     */
+    @Override
+    protected int listHash( List<Object> list ) {
+        int hash = 0;
+        for ( Object element : list ) {
+            if ( element != null ) {
+                hash += structuralHash( element );
             }
         }
-        return isAllNulls;
+        return hash;
     }
 
-    private static int findNextNonNullIndex( List<Object> list, int index ) {
-
-        while ( index < list.size() ) {
-
-            if (list.get(index) != null ) {
-                break;
-            }
+    private static int findNextUnmatchedIndex( boolean[] matched, int index ) {
 
+        while ( index < matched.length && matched[index] ) {
             index++;
         }
         return index;
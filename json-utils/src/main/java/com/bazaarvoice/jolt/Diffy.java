@@ -15,6 +15,9 @@
  */
 package com.bazaarvoice.jolt;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,9 +25,13 @@ import java.util.Map;
  * JSON Diff tool that will walk two "JSON" objects simultaneously and identify mismatches.
  *
  * Algorithm :
- *   1) make a copy of both input objects
- *   2) walk both objects and _remove_ items that match
- *   3) return what is left of the two objects in the Result
+ *   1) walk both objects, comparing the items at the same place
+ *   2) return what is left of the two objects, once the items that match are taken out, in the Result
+ *
+ * The inputs are only read, never changed or copied.  The Result is built from new Maps and Lists holding just the
+ *  mismatches, and may share unmatched subtrees with the inputs.  Scalars are compared the way they would be after a
+ *  round trip through the JsonUtil, eg a Long 1 matches an Integer 1.  A custom JsonUtil may round trip scalars in
+ *  ways Diffy can not know about, so with one, each input is cloned through it once up front instead.
  *
  * In the case a full / "sucessful" match, Diffy returns a Result object with isEmpty() == true.
  */
@@ -32,25 +39,55 @@ public class Diffy {
 
     private final JsonUtil jsonUtil;
 
+    // true if the jsonUtil is the stock one, whose round trip of a scalar normalize() can do without serializing it
+    private final boolean stockJsonUtil;
+
+    // structural hashes of the containers seen by the diff running on this thread, see structuralHash()
+    private final ThreadLocal<Map<Object, Integer>> hashCache = new ThreadLocal<>();
+
     public Diffy() {
-        jsonUtil = JsonUtils.getDefaultJsonUtil();
+        this( JsonUtils.getDefaultJsonUtil() );
     }
 
     /**
-     * Pass in a custom jsonUtil to use for the cloneJson method.
+     * Pass in a custom jsonUtil to use to normalize scalars, like cloneJson would.
      */
     public Diffy( JsonUtil jsonUtil ) {
         this.jsonUtil = jsonUtil;
+        this.stockJsonUtil = jsonUtil == JsonUtils.getDefaultJsonUtil();
     }
 
     public Result diff(Object expected, Object actual) {
-        Object expectedCopy = jsonUtil.cloneJson( expected );
-        Object actualCopy = jsonUtil.cloneJson( actual );
-        return diffHelper( expectedCopy, actualCopy );
+        boolean outermost = hashCache.get() == null;
+        if ( outermost ) {
+            hashCache.set( new IdentityHashMap<Object, Integer>() );
+        }
+        try {
+            if ( ! stockJsonUtil ) {
+                // one round trip per side, rather than one per scalar
+                expected = jsonUtil.cloneJson( expected );
+                actual = jsonUtil.cloneJson( actual );
+            }
+            return diffHelper( expected, actual );
+        }
+        finally {
+            if ( outermost ) {
+                hashCache.remove();
+            }
+        }
     }
 
     @SuppressWarnings( "unchecked" )
     protected Result diffHelper(Object expected, Object actual) {
+
+        // the very same container is trivially a match, without walking it
+        if ( expected == actual && ( expected instanceof Map || expected instanceof List ) ) {
+            return new Result();
+        }
+
+        expected = normalize( expected );
+        actual = normalize( actual );
+
         if (expected instanceof Map) {
             if (!(actual instanceof Map)) {
                 return new Result( expected, actual );
@@ -68,34 +105,87 @@ public class Diffy {
 
     protected Result diffMap(Map<String, Object> expected, Map<String, Object> actual) {
 
-        // Make a copy of the expected keySet so that we can remove things w/out concurrent mod exceptions
-        String[] expectedKeys = expected.keySet().toArray( new String[ expected.keySet().size() ] );
-        for (String key : expectedKeys ) {
-            Result subResult = diffHelper( expected.get( key ), actual.get( key ) );
-            if (subResult.isEmpty()) {
-                expected.remove( key );
-                actual.remove( key );
+        // only allocated once something does not match
+        Map<String, Object> expectedLeft = null;
+        Map<String, Object> actualMismatches = null;
+        int matchedInActual = 0;
+
+        for ( Map.Entry<String, Object> entry : expected.entrySet() ) {
+            String key = entry.getKey();
+            Object actualValue = actual.get( key );
+            boolean inActual = actualValue != null || actual.containsKey( key );
+
+            Result subResult = diffHelper( entry.getValue(), actualValue );
+            if ( subResult.isEmpty() ) {
+                if ( inActual ) {
+                    matchedInActual++;
+                }
+                continue;
+            }
+
+            if ( expectedLeft == null ) {
+                expectedLeft = new LinkedHashMap<>();
+                actualMismatches = new LinkedHashMap<>();
+            }
+            expectedLeft.put( key, subResult.expected );
+            if ( inActual ) {
+                actualMismatches.put( key, subResult.actual );
             }
         }
-        if (expected.isEmpty() && actual.isEmpty()) {
+
+        if ( expectedLeft == null && matchedInActual == actual.size() ) {
             return new Result();
         }
-        return new Result( expected, actual );
+
+        // what is left of actual, in its own key order : mismatches, plus whatever expected does not have
+        Map<String, Object> actualLeft = new LinkedHashMap<>();
+        for ( Map.Entry<String, Object> entry : actual.entrySet() ) {
+            String key = entry.getKey();
+            if ( actualMismatches != null && actualMismatches.containsKey( key ) ) {
+                actualLeft.put( key, actualMismatches.get( key ) );
+            }
+            else if ( ! expected.containsKey( key ) ) {
+                actualLeft.put( key, entry.getValue() );
+            }
+        }
+
+        return new Result( expectedLeft == null ? new LinkedHashMap<String, Object>() : expectedLeft, actualLeft );
     }
 
     protected Result diffList(List<Object> expected, List<Object> actual) {
         int shortlen = Math.min( expected.size(), actual.size() );
-        boolean emptyDiff = true;
+
+        // only allocated once something does not match, matched elements are left null
+        List<Object> expectedLeft = null;
+        List<Object> actualLeft = null;
+
         for (int i=0; i<shortlen; i++) {
             Result subresult = diffHelper( expected.get( i ), actual.get( i ) );
-            expected.set( i, subresult.expected );
-            actual.set( i, subresult.actual );
-            emptyDiff = emptyDiff && subresult.isEmpty();
+            if ( subresult.isEmpty() ) {
+                if ( expectedLeft != null ) {
+                    expectedLeft.add( null );
+                    actualLeft.add( null );
+                }
+                continue;
+            }
+            if ( expectedLeft == null ) {
+                expectedLeft = nulls( i, expected.size() );
+                actualLeft = nulls( i, actual.size() );
+            }
+            expectedLeft.add( subresult.expected );
+            actualLeft.add( subresult.actual );
         }
-        if (emptyDiff && (expected.size() == actual.size())) {
+        if (expectedLeft == null && (expected.size() == actual.size())) {
             return new Result();
         }
-        return new Result( expected, actual );
+        if ( expectedLeft == null ) {
+            expectedLeft = nulls( shortlen, expected.size() );
+            actualLeft = nulls( shortlen, actual.size() );
+        }
+        expectedLeft.addAll( expected.subList( shortlen, expected.size() ) );
+        actualLeft.addAll( actual.subList( shortlen, actual.size() ) );
+
+        return new Result( expectedLeft, actualLeft );
     }
 
     protected Result diffScalar(Object expected, Object actual) {
@@ -117,11 +207,107 @@ public class Diffy {
     /**
      * Allow subclasses to handle things like Long 0 versus Int 0.  They should be the same,
      *  but the .equals doesn't handle it.
+     *
+     * Subclasses that change this should change scalarHash to match.
      */
     protected boolean scalarEquals( Object expected, Object actual ) {
         return expected.equals( actual );
     }
 
+    /**
+     * Hash of a non-null scalar, which has to be equal for any two scalars that scalarEquals says are equal.
+     */
+    protected int scalarHash( Object scalar ) {
+        return scalar.hashCode();
+    }
+
+    /**
+     * Hash of a JSON tree that is equal for any two trees this Diffy finds no difference between, so that
+     *  subclasses can tell trees that are certainly different apart without diffing them.
+     *
+     * Containers are hashed once per call to diff, however many times they are asked about.
+     */
+    @SuppressWarnings( "unchecked" )
+    protected int structuralHash( Object json ) {
+
+        if ( ! ( json instanceof Map || json instanceof List ) ) {
+            json = normalize( json );
+            if ( json == null ) {
+                return 0;
+            }
+            if ( ! ( json instanceof Map || json instanceof List ) ) {
+                return scalarHash( json );
+            }
+        }
+
+        Map<Object, Integer> cache = hashCache.get();
+        Integer cached = cache == null ? null : cache.get( json );
+        if ( cached != null ) {
+            return cached;
+        }
+
+        int hash;
+        if ( json instanceof Map ) {
+            hash = 0;
+            for ( Map.Entry<String, Object> entry : ( (Map<String, Object>) json ).entrySet() ) {
+                // a null value matches a missing key, so it can not count
+                if ( entry.getValue() != null ) {
+                    hash += entry.getKey().hashCode() ^ structuralHash( entry.getValue() );
+                }
+            }
+        }
+        else {
+            hash = listHash( (List<Object>) json );
+        }
+
+        if ( cache != null ) {
+            cache.put( json, hash );
+        }
+        return hash;
+    }
+
+    /**
+     * Order matters to Diffy, so it does to the hash of a List.
+     */
+    protected int listHash( List<Object> list ) {
+        int hash = 1;
+        for ( Object element : list ) {
+            hash = 31 * hash + structuralHash( element );
+        }
+        return hash;
+    }
+
+    /**
+     * @return the value as it would be after a round trip through the JsonUtil, without copying Maps or Lists
+     */
+    private Object normalize( Object value ) {
+        if ( ! stockJsonUtil ) {
+            // diff() already round tripped the whole tree
+            return value;
+        }
+        if ( value == null || value instanceof Map || value instanceof List || value instanceof String ||
+             value instanceof Boolean || value instanceof Integer ) {
+            return value;
+        }
+        if ( value instanceof Long ) {
+            long longValue = (Long) value;
+            return longValue == (int) longValue ? Integer.valueOf( (int) longValue ) : value;
+        }
+        if ( value instanceof Double && ! ( (Double) value ).isInfinite() && ! ( (Double) value ).isNaN() ) {
+            return value;
+        }
+        // rare, eg Floats, BigDecimals or domain objects
+        return jsonUtil.cloneJson( value );
+    }
+
+    private static List<Object> nulls( int count, int capacity ) {
+        List<Object> list = new ArrayList<>( capacity );
+        for ( int i = 0; i < count; i++ ) {
+            list.add( null );
+        }
+        return list;
+    }
+
     /**
      * Contains the unmatched fields from the Diffy operation.
      *
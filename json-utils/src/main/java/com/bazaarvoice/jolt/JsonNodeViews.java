@@ -0,0 +1,321 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Live Map and List views of Jackson JsonNode trees, so that code written against the "maps-of-maps" JSON model,
+ *  like all of the Jolt transforms, can read and write a JsonNode tree without converting it first.
+ *
+ * ObjectNodes look like Map&lt;String, Object&gt;, ArrayNodes like List&lt;Object&gt;, and value nodes like the
+ *  Java values Jackson would have hydrated them as : String, Integer / Long / Double / BigDecimal..., Boolean and null.
+ *  Views are created on the fly as the tree is read, and every write goes straight through to the underlying node.
+ *
+ * Values written into a view are turned back into nodes : views are unwrapped to the node they are a view of,
+ *  so moving a subtree around does not copy it, while plain Maps and Lists are copied into new nodes.
+ *
+ * Like the JsonNodes themselves, views are not thread safe.
+ */
+public class JsonNodeViews {
+
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private JsonNodeViews() {}
+
+    /**
+     * @return a new, empty ObjectNode, as a Map view
+     */
+    public static Map<String, Object> newMap() {
+        return new ObjectNodeMap( NODE_FACTORY.objectNode() );
+    }
+
+    /**
+     * @return a new, empty ArrayNode, as a List view
+     */
+    public static List<Object> newList() {
+        return new ArrayNodeList( NODE_FACTORY.arrayNode() );
+    }
+
+    /**
+     * @param node any JsonNode, or null
+     * @return a Map view for ObjectNodes, a List view for ArrayNodes, and the plain Java value of anything else
+     */
+    public static Object wrap( JsonNode node ) {
+
+        if ( node == null || node.isNull() || node.isMissingNode() ) {
+            return null;
+        }
+        if ( node.isObject() ) {
+            return new ObjectNodeMap( (ObjectNode) node );
+        }
+        if ( node.isArray() ) {
+            return new ArrayNodeList( (ArrayNode) node );
+        }
+        if ( node.isTextual() ) {
+            return node.textValue();
+        }
+        if ( node.isNumber() ) {
+            return node.numberValue();
+        }
+        if ( node.isBoolean() ) {
+            return node.booleanValue();
+        }
+        if ( node.isPojo() ) {
+            return ( (POJONode) node ).getPojo();
+        }
+        try {
+            return node.binaryValue();
+        }
+        catch ( IOException e ) {
+            throw new IllegalArgumentException( "Unable to read the value of a " + node.getNodeType() + " node.", e );
+        }
+    }
+
+    /**
+     * @param value a view, a JsonNode, or a maps-of-maps JSON value
+     * @return the node behind a view, or a new JsonNode holding the value
+     */
+    @SuppressWarnings( "unchecked" )
+    public static JsonNode unwrap( Object value ) {
+
+        if ( value == null ) {
+            return NODE_FACTORY.nullNode();
+        }
+        if ( value instanceof ObjectNodeMap ) {
+            return ( (ObjectNodeMap) value ).node;
+        }
+        if ( value instanceof ArrayNodeList ) {
+            return ( (ArrayNodeList) value ).node;
+        }
+        if ( value instanceof JsonNode ) {
+            return (JsonNode) value;
+        }
+        if ( value instanceof Map ) {
+            ObjectNode node = NODE_FACTORY.objectNode();
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) value ).entrySet() ) {
+                node.set( String.valueOf( entry.getKey() ), unwrap( entry.getValue() ) );
+            }
+            return node;
+        }
+        if ( value instanceof List ) {
+            ArrayNode node = NODE_FACTORY.arrayNode();
+            for ( Object element : (List<Object>) value ) {
+                node.add( unwrap( element ) );
+            }
+            return node;
+        }
+        if ( value instanceof String ) {
+            return NODE_FACTORY.textNode( (String) value );
+        }
+        if ( value instanceof Boolean ) {
+            return NODE_FACTORY.booleanNode( (Boolean) value );
+        }
+        if ( value instanceof Integer ) {
+            return NODE_FACTORY.numberNode( (Integer) value );
+        }
+        if ( value instanceof Long ) {
+            return NODE_FACTORY.numberNode( (Long) value );
+        }
+        if ( value instanceof Double ) {
+            return NODE_FACTORY.numberNode( (Double) value );
+        }
+        if ( value instanceof BigDecimal ) {
+            return NODE_FACTORY.numberNode( (BigDecimal) value );
+        }
+        if ( value instanceof BigInteger ) {
+            return NODE_FACTORY.numberNode( (BigInteger) value );
+        }
+        if ( value instanceof Float ) {
+            return NODE_FACTORY.numberNode( (Float) value );
+        }
+        if ( value instanceof Short ) {
+            return NODE_FACTORY.numberNode( (Short) value );
+        }
+        if ( value instanceof Byte ) {
+            return NODE_FACTORY.numberNode( (Byte) value );
+        }
+        if ( value instanceof byte[] ) {
+            return NODE_FACTORY.binaryNode( (byte[]) value );
+        }
+        return NODE_FACTORY.pojoNode( value );
+    }
+
+    /**
+     * Map view of an ObjectNode.
+     */
+    private static final class ObjectNodeMap extends AbstractMap<String, Object> {
+
+        private final ObjectNode node;
+
+        private ObjectNodeMap( ObjectNode node ) {
+            this.node = node;
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return key instanceof String && node.has( (String) key );
+        }
+
+        @Override
+        public Object get( Object key ) {
+            return key instanceof String ? wrap( node.get( (String) key ) ) : null;
+        }
+
+        @Override
+        public Object put( String key, Object value ) {
+            return wrap( node.replace( key, unwrap( value ) ) );
+        }
+
+        @Override
+        public Object remove( Object key ) {
+            return key instanceof String ? wrap( node.remove( (String) key ) ) : null;
+        }
+
+        @Override
+        public void clear() {
+            node.removeAll();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public int size() {
+                    return node.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            final Entry<String, JsonNode> field = fields.next();
+                            return new SimpleEntry<String, Object>( field.getKey(), wrap( field.getValue() ) ) {
+                                @Override
+                                public Object setValue( Object value ) {
+                                    super.setValue( value );
+                                    return wrap( field.setValue( unwrap( value ) ) );
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            fields.remove();
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            return o instanceof ObjectNodeMap ? node.equals( ( (ObjectNodeMap) o ).node ) : super.equals( o );
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    /**
+     * List view of an ArrayNode.
+     */
+    private static final class ArrayNodeList extends AbstractList<Object> implements RandomAccess {
+
+        private final ArrayNode node;
+
+        private ArrayNodeList( ArrayNode node ) {
+            this.node = node;
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Object get( int index ) {
+            if ( index < 0 || index >= node.size() ) {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + node.size() );
+            }
+            return wrap( node.get( index ) );
+        }
+
+        @Override
+        public Object set( int index, Object element ) {
+            return wrap( node.set( index, unwrap( element ) ) );
+        }
+
+        @Override
+        public void add( int index, Object element ) {
+            if ( index < 0 || index > node.size() ) {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + node.size() );
+            }
+            node.insert( index, unwrap( element ) );
+            modCount++;
+        }
+
+        @Override
+        public Object remove( int index ) {
+            Object removed = get( index );
+            node.remove( index );
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            return o instanceof ArrayNodeList ? node.equals( ( (ArrayNodeList) o ).node ) : super.equals( o );
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+}
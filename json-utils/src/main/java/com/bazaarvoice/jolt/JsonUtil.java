@@ -82,11 +82,9 @@ public interface JsonUtil {
     String toPrettyJsonString( Object obj );
 
     /**
-     * Makes a deep copy of a Map<String, Object> object by converting it to a String and then
+     * Makes a deep copy of a Map<String, Object> object, equivalent to converting it to a String and then
      * back onto stock JSON objects.
      *
-     * Leverages Serialization
-     *
      * @param obj object tree to copy
      * @return deep copy of the incoming obj
      */
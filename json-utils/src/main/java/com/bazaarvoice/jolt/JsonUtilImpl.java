@@ -29,9 +29,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of JsonUtil that allows the user to provide a configured
@@ -44,6 +51,11 @@ public class JsonUtilImpl implements JsonUtil {
     private final ObjectMapper objectMapper;
     private final ObjectWriter prettyPrintWriter;
 
+    // Only a mapper we created ourselves is known to serialize Maps, Lists and scalars the stock way, so only then
+    //  can cloneJson copy structurally and still match a round trip.  Modules, serializers, inclusion settings, etc
+    //  on a caller's mapper can change the result in ways we can not check for.
+    private final boolean stockMapper;
+
     // Default Encoding for String to JSON operations
     public static final String DEFAULT_ENCODING_UTF_8 = "utf-8";
 
@@ -73,13 +85,14 @@ public class JsonUtilImpl implements JsonUtil {
     public JsonUtilImpl( ObjectMapper objectMapper ) {
 
         this.objectMapper = objectMapper == null ? new ObjectMapper() : objectMapper;
+        this.stockMapper = objectMapper == null;
 
         configureStockJoltObjectMapper( this.objectMapper );
         prettyPrintWriter = this.objectMapper.writerWithDefaultPrettyPrinter();
     }
 
     public JsonUtilImpl() {
-        this( new ObjectMapper() );
+        this( null );
     }
 
     // DE-SERIALIZATION
@@ -321,9 +334,113 @@ public class JsonUtilImpl implements JsonUtil {
         }
     }
 
+    /**
+     * Copies Maps, Lists and the scalars Jackson would have parsed directly, without going through a JSON String.
+     *
+     * The result is the same as serializing the tree and parsing it back : Maps become LinkedHashMaps, Lists become
+     *  ArrayLists, and Longs that fit in an int become Integers.  Strings, Integers, Doubles, etc are immutable, so
+     *  they are shared rather than copied.  Anything else, like a domain object, is round tripped through JSON on its
+     *  own.  If the ObjectMapper was passed in by the caller, the whole tree is round tripped, as its configuration
+     *  may serialize or parse the tree differently.
+     *
+     * The walk is iterative, so very deep trees do not blow the stack.
+     */
     @Override
+    @SuppressWarnings( "unchecked" )
     public Object cloneJson( Object obj ) {
+
+        if ( ! stockMapper ) {
+            return roundTrip( obj );
+        }
+        if ( ! ( obj instanceof Map || obj instanceof List ) ) {
+            return copyScalar( obj );
+        }
+
+        // Containers being copied, so that a tree that contains itself fails like serializing it would
+        Set<Object> ancestors = Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>() );
+        Deque<CopyFrame> frames = new ArrayDeque<>();
+
+        Object rootCopy = newCopyFrame( obj, frames, ancestors );
+
+        while ( ! frames.isEmpty() ) {
+            CopyFrame frame = frames.peek();
+            if ( ! frame.source.hasNext() ) {
+                ancestors.remove( frames.pop().original );
+                continue;
+            }
+
+            Object next = frame.source.next();
+            if ( frame.copy instanceof Map ) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+                Object value = entry.getValue();
+                Object valueCopy = value instanceof Map || value instanceof List ? newCopyFrame( value, frames, ancestors ) : copyScalar( value );
+                ( (Map<String, Object>) frame.copy ).put( String.valueOf( entry.getKey() ), valueCopy );
+            }
+            else {
+                Object elementCopy = next instanceof Map || next instanceof List ? newCopyFrame( next, frames, ancestors ) : copyScalar( next );
+                ( (List<Object>) frame.copy ).add( elementCopy );
+            }
+        }
+
+        return rootCopy;
+    }
+
+    /**
+     * @return the new, empty copy of the container, which the frame pushed for it will fill in
+     */
+    private static Object newCopyFrame( Object container, Deque<CopyFrame> frames, Set<Object> ancestors ) {
+
+        if ( ! ancestors.add( container ) ) {
+            throw new JsonMarshalException( "Unable to clone a JSON tree that contains itself." );
+        }
+
+        Object copy;
+        Iterator<?> source;
+        if ( container instanceof Map ) {
+            Map<?, ?> map = (Map<?, ?>) container;
+            copy = new LinkedHashMap<>( map.size() < 3 ? map.size() + 1 : (int) ( map.size() / 0.75f + 1.0f ) );
+            source = map.entrySet().iterator();
+        }
+        else {
+            List<?> list = (List<?>) container;
+            copy = new ArrayList<>( list.size() );
+            source = list.iterator();
+        }
+
+        frames.push( new CopyFrame( container, source, copy ) );
+        return copy;
+    }
+
+    private Object copyScalar( Object value ) {
+
+        if ( value == null || value instanceof String || value instanceof Boolean || value instanceof Integer ) {
+            return value;
+        }
+        if ( value instanceof Long ) {
+            long longValue = (Long) value;
+            return longValue == (int) longValue ? Integer.valueOf( (int) longValue ) : value;
+        }
+        if ( value instanceof Double && ! ( (Double) value ).isInfinite() && ! ( (Double) value ).isNaN() ) {
+            return value;
+        }
+        return roundTrip( value );
+    }
+
+    private Object roundTrip( Object obj ) {
         String string = this.toJsonString( obj );
         return this.jsonToObject( string );
     }
+
+    private static final class CopyFrame {
+
+        private final Object original;
+        private final Iterator<?> source;
+        private final Object copy;
+
+        private CopyFrame( Object original, Iterator<?> source, Object copy ) {
+            this.original = original;
+            this.source = source;
+            this.copy = copy;
+        }
+    }
 }
@@ -221,7 +221,7 @@ public class JsonUtils {
 
 
     /**
-     * Makes a deep copy of a Map<String, Object> object by converting it to a String and then
+     * Makes a deep copy of a Map<String, Object> object, equivalent to converting it to a String and then
      * back onto stock JSON objects.
      *
      * @param obj object tree to copy
@@ -22,6 +22,8 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -55,4 +57,27 @@ public class ArrayOrderObliviousDiffyTest {
         Diffy.Result result = unit.diff(expected, actual);
         Assert.assertTrue(result.isEmpty(), result.toString());
     }
-} 
+
+    @Test
+    public void matchesLargeShuffledListsAndReportsWhatIsLeft() {
+        List<Object> expected = new ArrayList<>();
+        List<Object> actual = new ArrayList<>();
+        for ( int i = 0; i < 20000; i++ ) {
+            expected.add( JsonUtils.javason( "{ 'id' : " + i + ", 'tags' : [ 'a', 'b' ] }" ) );
+            actual.add( JsonUtils.javason( "{ 'id' : " + ( 19999 - i ) + ", 'tags' : [ 'b', 'a' ] }" ) );
+        }
+        Assert.assertTrue( unit.diff( expected, actual ).isEmpty() );
+
+        actual.set( 0, JsonUtils.javason( "{ 'id' : 19999, 'tags' : [ 'c' ] }" ) );
+        Diffy.Result result = unit.diff( expected, actual );
+
+        Assert.assertEquals( result.expected, withOnly( expected.size(), expected.size() - 1, JsonUtils.javason( "{ 'tags' : [ 'a', 'b' ] }" ) ) );
+        Assert.assertEquals( result.actual, withOnly( actual.size(), 0, JsonUtils.javason( "{ 'tags' : [ 'c' ] }" ) ) );
+    }
+
+    private static List<Object> withOnly( int size, int index, Object value ) {
+        List<Object> list = new ArrayList<>( Collections.nCopies( size, null ) );
+        list.set( index, value );
+        return list;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -194,4 +195,40 @@ public class DiffyUnitTest {
         Assert.assertFalse( d1.equals( h2 ), "Two HashMaps that should not be equal." );
         Assert.assertNotEquals( d1.hashCode(), h2.hashCode(), "lh1->2 Two HashMaps should not have the same hashCode ." );
     }
+
+    @Test
+    public void diff_itLeavesItsInputsAlone() {
+        Map<String, Object> expected = JsonUtils.javason( "{ 'a' : [ 1, { 'b' : 'c' } ], 'same' : { 'x' : [ 1, 2 ] }, 'd' : 2 }" );
+        Map<String, Object> actual = JsonUtils.javason( "{ 'a' : [ 1, { 'b' : 'z' } ], 'same' : { 'x' : [ 1, 2 ] }, 'e' : 3 }" );
+        Object expectedBefore = JsonUtils.cloneJson( expected );
+        Object actualBefore = JsonUtils.cloneJson( actual );
+
+        Diffy.Result result = this.unit.diff( expected, actual );
+
+        Assert.assertEquals( result.expected, JsonUtils.javason( "{ 'a' : [ null, { 'b' : 'c' } ], 'd' : 2 }" ) );
+        Assert.assertEquals( result.actual, JsonUtils.javason( "{ 'a' : [ null, { 'b' : 'z' } ], 'e' : 3 }" ) );
+        Assert.assertEquals( expected, expectedBefore );
+        Assert.assertEquals( actual, actualBefore );
+    }
+
+    @Test
+    public void diff_itMatchesNumbersLikeARoundTripWould() {
+        Assert.assertTrue( this.unit.diff( Arrays.asList( 1, 2.5 ), Arrays.asList( 1L, 2.5f ) ).isEmpty() );
+    }
+
+    @Test
+    public void diff_withACustomJsonUtilRoundTripsEachSideOnce() {
+        final int[] clones = { 0 };
+        JsonUtil countingJsonUtil = new JsonUtilImpl( new ObjectMapper() ) {
+            @Override
+            public Object cloneJson( Object obj ) {
+                clones[0]++;
+                return super.cloneJson( obj );
+            }
+        };
+        Diffy diffy = new Diffy( countingJsonUtil );
+
+        Assert.assertTrue( diffy.diff( Arrays.asList( 1, 2.5, 3L, 4 ), Arrays.asList( 1L, 2.5f, 3, 4L ) ).isEmpty() );
+        Assert.assertEquals( clones[0], 2 );
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 Bazaarvoice, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bazaarvoice.jolt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class JsonNodeViewsTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void viewsReadLikeHydratedJson() throws Exception {
+        String json = "{ \"a\" : 1, \"b\" : [ true, null, 2.5, \"s\", { \"c\" : 12345678901 } ], \"d\" : { } }";
+
+        Object view = JsonNodeViews.wrap( MAPPER.readTree( json ) );
+
+        Assert.assertEquals( view, JsonUtils.jsonToObject( json ) );
+        Assert.assertEquals( ( (List<Object>) ( (Map<String, Object>) view ).get( "b" ) ).get( 4 ), JsonUtils.jsonToObject( "{ \"c\" : 12345678901 }" ) );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void writesGoThroughToTheNode() throws Exception {
+        ObjectNode node = (ObjectNode) MAPPER.readTree( "{ \"a\" : 1, \"b\" : [ 1, 2 ], \"c\" : { \"x\" : \"y\" } }" );
+        Map<String, Object> view = (Map<String, Object>) JsonNodeViews.wrap( node );
+
+        List<Object> b = (List<Object>) view.get( "b" );
+        b.add( 3 );
+        b.set( 0, "one" );
+        b.remove( 1 );
+
+        // views are moved without copying, plain values are converted
+        view.put( "moved", view.remove( "c" ) );
+        view.put( "plain", JsonUtils.jsonToObject( "{ \"list\" : [ 1, null ] }" ) );
+
+        Iterator<Map.Entry<String, Object>> iter = view.entrySet().iterator();
+        while ( iter.hasNext() ) {
+            Map.Entry<String, Object> entry = iter.next();
+            if ( entry.getKey().equals( "a" ) ) {
+                entry.setValue( Arrays.asList( "A" ) );
+            }
+        }
+
+        JsonNode expected = MAPPER.readTree( "{ \"a\" : [ \"A\" ], \"b\" : [ \"one\", 3 ], \"moved\" : { \"x\" : \"y\" }, \"plain\" : { \"list\" : [ 1, null ] } }" );
+        Assert.assertEquals( node, expected );
+        Assert.assertSame( JsonNodeViews.unwrap( view ), node );
+    }
+}
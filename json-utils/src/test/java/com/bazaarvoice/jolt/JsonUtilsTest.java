@@ -15,7 +15,10 @@
  */
 package com.bazaarvoice.jolt;
 
+import com.bazaarvoice.jolt.exception.JsonMarshalException;
 import com.beust.jcommander.internal.Sets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
@@ -27,8 +30,10 @@ import org.testng.collections.Lists;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -213,4 +218,66 @@ public class JsonUtilsTest {
         Assert.assertEquals(actual, expected);
     }
 
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void cloneJsonMatchesARoundTrip() {
+
+        Map<String, Object> original = new HashMap<>();
+        original.put( "int", 1 );
+        original.put( "smallLong", 2L );
+        original.put( "bigLong", Long.MAX_VALUE );
+        original.put( "float", 1.5f );
+        original.put( "list", Lists.newArrayList( "a", null, ImmutableMap.of( "b", true ) ) );
+        original.put( "immutable", top );
+
+        Object clone = JsonUtils.cloneJson( original );
+
+        Assert.assertEquals( clone, JsonUtils.jsonToObject( JsonUtils.toJsonString( original ) ) );
+        Assert.assertEquals( ( (Map<String, Object>) clone ).get( "smallLong" ), 2 );
+        Assert.assertTrue( ( (Map<String, Object>) clone ).get( "immutable" ) instanceof LinkedHashMap );
+        Assert.assertNotSame( ( (Map<String, Object>) clone ).get( "list" ), original.get( "list" ) );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void cloneJsonHandlesVeryDeepTrees() {
+
+        Map<String, Object> root = Maps.newLinkedHashMap();
+        Map<String, Object> current = root;
+        for ( int depth = 0; depth < 100000; depth++ ) {
+            Map<String, Object> child = Maps.newLinkedHashMap();
+            current.put( "child", Lists.newArrayList( child ) );
+            current = child;
+        }
+        current.put( "leaf", "bottom" );
+
+        Object clone = JsonUtils.cloneJson( root );
+
+        for ( int depth = 0; depth < 100000; depth++ ) {
+            clone = ( (List<Object>) ( (Map<String, Object>) clone ).get( "child" ) ).get( 0 );
+        }
+        Assert.assertEquals( ( (Map<String, Object>) clone ).get( "leaf" ), "bottom" );
+    }
+
+    @Test
+    public void cloneJsonWithACustomMapperMatchesItsRoundTrip() {
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure( SerializationFeature.WRITE_NULL_MAP_VALUES, false );
+        JsonUtil util = JsonUtils.customJsonUtil( mapper );
+
+        Map<String, Object> original = new LinkedHashMap<>();
+        original.put( "a", null );
+        original.put( "b", 1 );
+
+        Assert.assertEquals( util.cloneJson( original ), util.jsonToObject( util.toJsonString( original ) ) );
+        Assert.assertEquals( util.cloneJson( original ), ImmutableMap.of( "b", 1 ) );
+    }
+
+    @Test( expectedExceptions = JsonMarshalException.class )
+    public void cloneJsonRejectsTreesThatContainThemselves() {
+        Map<String, Object> loop = Maps.newLinkedHashMap();
+        loop.put( "self", Lists.newArrayList( loop ) );
+        JsonUtils.cloneJson( loop );
+    }
 }